@@ -0,0 +1,105 @@
+package com.natwest.primecalculator.cache;
+
+/**
+ * Approximate access frequency of keys, the TinyLFU count-min sketch used by WeightedCacheManager to decide whether a
+ * new entry is worth evicting others for.
+ *
+ * Each key hashes to one 4 bit counter in each of 4 rows, the counters are packed 16 to a long. The estimate is the
+ * smallest of the 4 counters, so collisions can only ever overestimate. Counters saturate at 15 and once sampleSize
+ * increments have been recorded every counter is halved, so the sketch follows recent traffic rather than all time
+ * totals. It is not thread safe, the cache manager only touches it while holding its lock.
+ */
+public final class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * counters per row, a power of 2
+     */
+    private final int width;
+    private final int widthBits;
+    /**
+     * 4 rows of width 4 bit counters
+     */
+    private final long[] table;
+    /**
+     * increments between two halvings
+     */
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * constructor
+     * @param expectedKeys roughly how many distinct keys are in play, sizes the sketch
+     */
+    public FrequencySketch(int expectedKeys) {
+        int counters = Integer.highestOneBit(Math.max(16, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+        this.width = counters;
+        this.widthBits = Integer.numberOfTrailingZeros(counters);
+        this.table = new long[4 * counters / 16];
+        this.sampleSize = 10 * counters;
+    }
+
+    /**
+     * @param key
+     * @return estimated recent number of accesses of key, 0 to 15
+     */
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < 4; row++) {
+            frequency = Math.min(frequency, counter(indexOf(hash, row)));
+        }
+        return frequency;
+    }
+
+    /**
+     * record one access of key
+     * @param key
+     */
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            int index = indexOf(hash, row);
+            if (counter(index) < 15) {
+                table[index >>> 4] += 1L << ((index & 15) << 2);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize)
+            reset();
+    }
+
+    /**
+     * halve every counter
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    /**
+     * @param hash
+     * @param row
+     * @return index of the counter of hash in row, counters of a row are contiguous
+     */
+    private int indexOf(int hash, int row) {
+        //the top bits of the product depend on every bit of hash, the low ones only on its low bits
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return row * width + (int) (h >>> (64 - widthBits));
+    }
+
+    private int counter(int index) {
+        return (int) (table[index >>> 4] >>> ((index & 15) << 2)) & 15;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
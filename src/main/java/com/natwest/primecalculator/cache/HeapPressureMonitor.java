@@ -0,0 +1,80 @@
+package com.natwest.primecalculator.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sheds cached results when the heap is running out, before it gets to an OutOfMemoryError.
+ *
+ * A collection usage threshold is set on every heap pool that supports one, i.e. the old generation, at the configured
+ * fraction of its maximum. The JVM notifies us when the pool is still above it straight after a collection, meaning
+ * what is left is live data rather than garbage. Then half of every Spring cache is evicted and the PrimeStore, which
+ * can hold hundreds of megabytes of primes, is dropped. Both fill up again from the next requests.
+ */
+@Component
+@Slf4j
+public class HeapPressureMonitor implements NotificationListener {
+
+    private final WeightedCacheManager cacheManager;
+    private final PrimeStore primeStore;
+    private final AtomicLong events = new AtomicLong();
+
+    /**
+     * constructor
+     * @param cacheManager
+     * @param primeStore
+     * @param threshold fraction of the old generation still in use after a collection that triggers shedding
+     */
+    public HeapPressureMonitor(WeightedCacheManager cacheManager, PrimeStore primeStore,
+                               @Value("${primecalculator.cache.heap-pressure-threshold:0.85}") double threshold) {
+        this.cacheManager = cacheManager;
+        this.primeStore = primeStore;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0)
+                pool.setCollectionUsageThreshold((long) (max * threshold));
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(this, null, null);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()))
+            shed();
+    }
+
+    /**
+     * evict half of every cache and drop the PrimeStore
+     */
+    public void shed() {
+        events.incrementAndGet();
+        log.warn("Heap pressure: shedding cached results, cache {} bytes, prime store {} bytes",
+                cacheManager.getWeightedBytes(), primeStore.sizeInBytes());
+        cacheManager.shed(0.5);
+        primeStore.clear();
+    }
+
+    /**
+     * @return number of times cached results were shed
+     */
+    public long getEventCount() {
+        return events.get();
+    }
+
+    @PreDestroy
+    public void close() throws ListenerNotFoundException {
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+    }
+}
@@ -0,0 +1,125 @@
+package com.natwest.primecalculator.cache;
+
+import com.natwest.primecalculator.entities.ChunkedPrimeList;
+import com.natwest.primecalculator.entities.EliasFanoPrimeList;
+import com.natwest.primecalculator.entities.PrimeList;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estimates the heap retained by a cached key or value, assuming a 64 bit JVM with compressed references: 12 byte
+ * object headers, 4 byte references and sizes rounded up to 8 bytes.
+ *
+ * Our own classes and records are walked field by field by reflection, objects reachable twice are only counted once.
+ * The JDK's fields can't be reflected on, so collections and maps are weighed from their elements plus a per element
+ * overhead for the node or slot holding them, and the prime lists from their packed arrays. This is an estimate, but it
+ * is proportional to what is really retained, which is all an eviction budget needs.
+ */
+public final class ObjectSizeEstimator {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private ObjectSizeEstimator() {
+    }
+
+    /**
+     * @param object
+     * @return estimated bytes retained by object, 0 for null
+     */
+    public static long sizeOf(Object object) {
+        return sizeOf(object, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private static long sizeOf(Object object, Set<Object> seen) {
+        if (object == null || !seen.add(object))
+            return 0;
+        Class<?> type = object.getClass();
+
+        if (object instanceof String string)
+            return align(HEADER + 12) + align(ARRAY_HEADER + string.length());
+        if (object instanceof Long || object instanceof Double)
+            return align(HEADER + 8);
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character)
+            return align(HEADER + 4);
+        if (object instanceof Enum<?>)
+            return 0;
+        if (object instanceof PrimeList list)
+            return align(HEADER + REFERENCE) + align(ARRAY_HEADER + 4L * list.size());
+        if (object instanceof EliasFanoPrimeList list)
+            return list.sizeInBytes();
+        if (object instanceof ChunkedPrimeList list)
+            return list.sizeInBytes();
+        if (type.isArray())
+            return sizeOfArray(object, type.getComponentType(), seen);
+        if (object instanceof Map<?, ?> map) {
+            //one 32 byte node per entry plus a table of at least 4/3 as many slots
+            long size = align(HEADER + 32) + align(ARRAY_HEADER + REFERENCE * (map.size() * 4L / 3 + 1));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += 32 + sizeOf(entry.getKey(), seen) + sizeOf(entry.getValue(), seen);
+            }
+            return size;
+        }
+        if (object instanceof Collection<?> collection) {
+            long size = align(HEADER + 16) + align(ARRAY_HEADER + REFERENCE * (long) collection.size());
+            for (Object element : collection) {
+                size += sizeOf(element, seen);
+            }
+            return size;
+        }
+        if (type.getName().startsWith("java."))
+            return align(HEADER + 16);
+
+        long size = HEADER;
+        long references = 0;
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()))
+                    continue;
+                Class<?> fieldType = field.getType();
+                size += fieldType.isPrimitive() ? primitiveSize(fieldType) : REFERENCE;
+                if (!fieldType.isPrimitive() && field.trySetAccessible()) {
+                    try {
+                        references += sizeOf(field.get(object), seen);
+                    } catch (IllegalAccessException e) {
+                        //not reachable once trySetAccessible() has succeeded, the field is just left out
+                    }
+                }
+            }
+        }
+        return align(size) + references;
+    }
+
+    private static long sizeOfArray(Object array, Class<?> componentType, Set<Object> seen) {
+        int length = Array.getLength(array);
+        if (componentType.isPrimitive())
+            return align(ARRAY_HEADER + (long) primitiveSize(componentType) * length);
+        long size = align(ARRAY_HEADER + (long) REFERENCE * length);
+        for (int i = 0; i < length; i++) {
+            size += sizeOf(Array.get(array, i), seen);
+        }
+        return size;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class)
+            return 8;
+        if (type == int.class || type == float.class)
+            return 4;
+        if (type == short.class || type == char.class)
+            return 2;
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,404 @@
+package com.natwest.primecalculator.cache;
+
+import com.natwest.primecalculator.entities.ChunkedPrimeList;
+import com.natwest.primecalculator.entities.EliasFanoPrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the PrimeStore on disk so a restart starts warm rather than sieving again.
+ *
+ *     chunk-*.ef         one file per compressed chunk of the store, as written by EliasFanoPrimeList.writeTo(..).
+ *                        Chunks are immutable and named after their first and last prime so they are only written once
+ *     primes.varint      every stored prime as its gap to the previous one in LEB128 varints, exactly the body of an
+ *                        application/x-primes delta-varint response from 0. Only ever appended to
+ *     primes.index       byte offset in primes.varint of every 4096th prime, little endian int64s
+ *     primes.manifest    limit, prime count, the chunk files and how much of primes.varint and primes.index is valid.
+ *                        Written last, by an atomic rename, so a crash mid write leaves the previous state readable
+ *
+ * Every result the PrimeStore publishes is written on a background thread, only what is new since the last write. On
+ * startup the chunk files are memory mapped (FileChannel.map) and copied straight into the store's arrays, nothing is
+ * sieved, decoded or re-encoded, so the store is back within the time it takes to read its compressed size, tens of
+ * megabytes up to 2 * 10^9. A delta-varint response for primes held on disk is then sent from primes.varint with
+ * FileChannel.transferTo(..) rather than encoded prime by prime. Without a directory configured nothing is persisted.
+ */
+@Component
+@Slf4j
+public class PrimeFileStore {
+
+    private static final String MANIFEST = "primes.manifest";
+    private static final String VARINT = "primes.varint";
+    private static final String INDEX = "primes.index";
+    private static final String CHUNK_PREFIX = "chunk-";
+    private static final String CHUNK_SUFFIX = ".ef";
+
+    /**
+     * primes.index holds the offset of every 2^INDEX_SHIFT-th prime
+     */
+    private static final int INDEX_SHIFT = 12;
+
+    /**
+     * null if nothing is persisted
+     */
+    private final Path directory;
+    private final PrimeStore primeStore;
+
+    /**
+     * what the manifest on disk describes, null if nothing is persisted yet
+     */
+    private final AtomicReference<Persisted> persisted = new AtomicReference<>();
+
+    /**
+     * latest result published and not written yet
+     */
+    private final AtomicReference<PrimeRange> unwritten = new AtomicReference<>();
+
+    private final AtomicLong bytesTransferred = new AtomicLong();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "prime-store-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * constructor, restores whatever the directory holds into primeStore
+     * @param primeStore
+     * @param directory where the files are kept, empty to persist nothing
+     */
+    public PrimeFileStore(PrimeStore primeStore, @Value("${primecalculator.store.directory:}") String directory) {
+        this.primeStore = primeStore;
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        if (this.directory == null)
+            return;
+
+        try {
+            Files.createDirectories(this.directory);
+            restore();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Prime store files in {} can't be read, starting empty", this.directory, e);
+            persisted.set(null);
+        }
+        primeStore.addListener(this::published);
+    }
+
+    /**
+     * Send the delta-varint encoding of the first count primes straight from primes.varint
+     * @param count number of primes
+     * @param target
+     * @return bytes sent, -1 if fewer than count primes are on disk, then nothing is sent
+     * @throws IOException
+     */
+    public long transferDeltaVarint(int count, WritableByteChannel target) throws IOException {
+        Persisted state = persisted.get();
+        if (state == null || count > state.count())
+            return -1;
+        try (FileChannel channel = FileChannel.open(directory.resolve(VARINT), StandardOpenOption.READ)) {
+            long length = varintLength(channel, state, count);
+            for (long position = 0; position < length; ) {
+                position += channel.transferTo(position, length - position, target);
+            }
+            bytesTransferred.addAndGet(length);
+            return length;
+        }
+    }
+
+    /**
+     * @return largest limit held on disk, Integer.MIN_VALUE if none
+     */
+    public int getLimit() {
+        Persisted state = persisted.get();
+        return state == null ? Integer.MIN_VALUE : state.limit();
+    }
+
+    /**
+     * @return bytes sent by transferDeltaVarint(..) so far
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred.get();
+    }
+
+    /**
+     * wait for the results published so far to be written
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        //a write cut short leaves the previous manifest in place
+        writer.shutdownNow();
+    }
+
+    /**
+     * PrimeStore listener, hands the result to the writer thread. If the writer is behind only the latest is written.
+     * @param primeRange
+     */
+    private void published(PrimeRange primeRange) {
+        if (unwritten.getAndSet(primeRange) == null && !writer.isShutdown())
+            writer.execute(() -> {
+                PrimeRange latest = unwritten.getAndSet(null);
+                try {
+                    write(latest);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Prime store up to {} not written to {}", latest.initial(), directory, e);
+                }
+            });
+    }
+
+    /**
+     * Write whatever result is new to disk, then the manifest pointing at it
+     * @param primeRange published by the PrimeStore
+     * @throws IOException
+     */
+    private void write(PrimeRange primeRange) throws IOException {
+        Persisted state = persisted.get();
+        if (state != null && primeRange.initial() <= state.limit())
+            return;
+        StopWatch watch = new StopWatch();
+        watch.start();
+
+        ChunkedPrimeList primes = (ChunkedPrimeList) primeRange.primes();
+        List<String> chunkFiles = new ArrayList<>();
+        for (EliasFanoPrimeList chunk : primes.chunks()) {
+            String name = CHUNK_PREFIX + chunk.getInt(0) + "-" + chunk.getInt(chunk.size() - 1) + "-" + chunk.size() + CHUNK_SUFFIX;
+            chunkFiles.add(name);
+            //anything not named by the manifest may be left over from a write that never finished
+            if (state == null || !state.chunkFiles().contains(name))
+                writeAtomically(name, chunk::writeTo);
+        }
+
+        long[] index = new long[(primes.size() + (1 << INDEX_SHIFT) - 1) >>> INDEX_SHIFT];
+        long varintLength = appendVarints(primes, state, index);
+
+        Persisted written = new Persisted(primeRange.initial(), primes.size(), varintLength, index, chunkFiles);
+        Properties manifest = new Properties();
+        manifest.setProperty("limit", Integer.toString(written.limit()));
+        manifest.setProperty("count", Integer.toString(written.count()));
+        manifest.setProperty("varintLength", Long.toString(written.varintLength()));
+        manifest.setProperty("chunks", String.join(",", chunkFiles));
+        //store(..) flushes, the stream isn't closed so the channel can still be forced
+        writeAtomically(MANIFEST, channel -> manifest.store(Channels.newOutputStream(channel), "prime store"));
+        persisted.set(written);
+
+        //chunks merged away by the store are no longer referenced
+        Set<String> referenced = new HashSet<>(chunkFiles);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(CHUNK_PREFIX) && !referenced.contains(name))
+                    Files.deleteIfExists(file);
+            }
+        }
+        watch.stop();
+        log.info("Prime store up to {} written to {}. Time Taken(Nano seconds): {}", written.limit(), directory, watch.getNanoTime());
+    }
+
+    /**
+     * Append the primes past the ones already in primes.varint, and their index entries
+     * @param primes
+     * @param state what is on disk, null if nothing
+     * @param appendedIndex filled with the index of all the primes
+     * @return the new length of primes.varint
+     * @throws IOException
+     */
+    private long appendVarints(ChunkedPrimeList primes, Persisted state, long[] appendedIndex) throws IOException {
+        int from = state == null ? 0 : state.count();
+        long length = state == null ? 0 : state.varintLength();
+        long[] index = state == null ? new long[0] : state.index();
+        System.arraycopy(index, 0, appendedIndex, 0, index.length);
+        long previous = from == 0 ? 0 : primes.getInt(from - 1);
+
+        try (FileChannel varints = FileChannel.open(directory.resolve(VARINT), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileChannel indexFile = FileChannel.open(directory.resolve(INDEX), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            //anything past the manifest is left over from a write that never finished
+            varints.truncate(length);
+            varints.position(length);
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            int i = 0;
+            for (EliasFanoPrimeList chunk : primes.chunks()) {
+                if (i + chunk.size() <= from) {
+                    i += chunk.size();
+                    continue;
+                }
+                PrimitiveIterator.OfInt cursor = chunk.iterator();
+                for (; cursor.hasNext(); i++) {
+                    int prime = cursor.nextInt();
+                    if (i < from)
+                        continue;
+                    if ((i & ((1 << INDEX_SHIFT) - 1)) == 0)
+                        appendedIndex[i >>> INDEX_SHIFT] = length + buffer.position();
+                    if (buffer.remaining() < 5) {
+                        length += drain(buffer, varints);
+                    }
+                    long gap = prime - previous;
+                    previous = prime;
+                    while ((gap & ~0x7FL) != 0) {
+                        buffer.put((byte) (gap | 0x80));
+                        gap >>>= 7;
+                    }
+                    buffer.put((byte) gap);
+                }
+            }
+            length += drain(buffer, varints);
+            varints.force(false);
+
+            ByteBuffer indexBuffer = ByteBuffer.allocate(8 * (appendedIndex.length - index.length)).order(ByteOrder.LITTLE_ENDIAN);
+            for (int k = index.length; k < appendedIndex.length; k++) {
+                indexBuffer.putLong(appendedIndex[k]);
+            }
+            indexFile.truncate(8L * index.length);
+            indexFile.position(8L * index.length);
+            drain(indexBuffer, indexFile);
+            indexFile.force(false);
+        }
+        return length;
+    }
+
+    /**
+     * Map the chunk files named by the manifest and hand the result to the PrimeStore
+     * @throws IOException
+     */
+    private void restore() throws IOException {
+        Path manifestFile = directory.resolve(MANIFEST);
+        if (!Files.exists(manifestFile))
+            return;
+        StopWatch watch = new StopWatch();
+        watch.start();
+
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(manifestFile)) {
+            manifest.load(in);
+        }
+        int limit = Integer.parseInt(manifest.getProperty("limit"));
+        int count = Integer.parseInt(manifest.getProperty("count"));
+        long varintLength = Long.parseLong(manifest.getProperty("varintLength"));
+        String chunkNames = manifest.getProperty("chunks", "");
+        List<String> chunkFiles = chunkNames.isEmpty() ? List.of() : List.of(chunkNames.split(","));
+
+        List<EliasFanoPrimeList> chunks = new ArrayList<>();
+        for (String name : chunkFiles) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(name), StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                chunks.add(EliasFanoPrimeList.readFrom(mapped));
+            }
+        }
+        ChunkedPrimeList primes = ChunkedPrimeList.of(chunks);
+        if (primes.size() != count)
+            throw new IllegalStateException("Manifest says " + count + " primes, the chunks hold " + primes.size());
+
+        long[] index = new long[(count + (1 << INDEX_SHIFT) - 1) >>> INDEX_SHIFT];
+        try (FileChannel channel = FileChannel.open(directory.resolve(INDEX), StandardOpenOption.READ)) {
+            if (channel.size() < 8L * index.length || Files.size(directory.resolve(VARINT)) < varintLength)
+                throw new IllegalStateException("primes.varint or primes.index is shorter than the manifest says");
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, 8L * index.length).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(index);
+        }
+
+        persisted.set(new Persisted(limit, count, varintLength, index, chunkFiles));
+        primeStore.put(new PrimeRange(limit, primes));
+        watch.stop();
+        log.info("Prime store restored from {}, {} primes up to {}. Time Taken(Nano seconds): {}", directory, count, limit, watch.getNanoTime());
+    }
+
+    /**
+     * @param channel primes.varint
+     * @param state
+     * @param count at most state.count()
+     * @return bytes taken by the first count primes, from the nearest index entry below
+     * @throws IOException
+     */
+    private static long varintLength(FileChannel channel, Persisted state, int count) throws IOException {
+        if (count == state.count())
+            return state.varintLength();
+        int entry = count >>> INDEX_SHIFT;
+        long position = state.index()[entry];
+        int remaining = count - (entry << INDEX_SHIFT);
+        if (remaining == 0)
+            return position;
+        //at most 4095 varints of at most 5 bytes each
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(5L << INDEX_SHIFT, state.varintLength() - position));
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            //read until full
+        }
+        buffer.flip();
+        while (remaining > 0) {
+            if ((buffer.get() & 0x80) == 0)
+                remaining--;
+        }
+        return position + buffer.position();
+    }
+
+    private static long drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    /**
+     * write name through a temporary file renamed over it, so it is either the old or the new content
+     */
+    private void writeAtomically(String name, ChannelWriter content) throws IOException {
+        Path temporary = directory.resolve(name + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            content.write(channel);
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @FunctionalInterface
+    private interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * what the manifest on disk describes
+     * @param limit
+     * @param count primes up to limit
+     * @param varintLength valid bytes of primes.varint
+     * @param index byte offset in primes.varint of every 4096th prime
+     * @param chunkFiles
+     */
+    private record Persisted(int limit, int count, long varintLength, long[] index, List<String> chunkFiles) {
+    }
+}
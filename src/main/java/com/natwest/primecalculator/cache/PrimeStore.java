@@ -0,0 +1,242 @@
+package com.natwest.primecalculator.cache;
+
+import com.natwest.primecalculator.entities.ChunkedPrimeList;
+import com.natwest.primecalculator.entities.EliasFanoPrimeList;
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.forkjoin.SegmentRecursiveAction;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Single canonical store of primes shared by every SieveService.
+ *
+ * Every sieve gives the same primes for the same limit, and the primes up to n are a prefix of the primes up to any
+ * m >= n. So rather than caching each exact limit per sieve and version, only the result with the largest limit worked
+ * out so far is kept, Elias-Fano compressed, and any limit up to it is answered by slicing: the number of primes <= n
+ * is found by binary search and a view of that prefix is returned, nothing is sieved or copied. /primes/1000000,
+ * /primes/1000001 and /primes/eratosthenes/v3/1000000 all come from the same stored list.
+ *
+ * Once filled, the store grows in place. A limit n past the stored m is answered by extendTo(n), which only sieves
+ * (m, n], using base primes sliced from the store when sqrt(n) <= m, and appends them as a new compressed chunk
+ * (ChunkedPrimeList), so the cost is proportional to the new range rather than to n. Extensions are read-copy-update:
+ * one writer at a time builds the new list, sharing the existing chunks, and publishes it by swapping the reference.
+ * Readers never lock, they slice whichever list was published when they looked and never see a partial update.
+ */
+@Component
+@Slf4j
+public class PrimeStore {
+
+    /**
+     * the published result with the largest limit so far, its primes always a ChunkedPrimeList
+     */
+    private final AtomicReference<PrimeRange> largest = new AtomicReference<>();
+
+    /**
+     * held by the one thread publishing a new result, readers never take it
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final List<Consumer<PrimeRange>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param limit
+     * @return the primes up to and including limit sliced from the stored result, null if limit is past it
+     */
+    public PrimeRange get(int limit) {
+        PrimeRange stored = largest.get();
+        if (stored == null || limit > stored.initial())
+            return null;
+        return slice(stored, limit);
+    }
+
+    /**
+     * @param primeRange
+     * @param limit at most primeRange.initial()
+     * @return the primes of primeRange up to and including limit, a view rather than a copy for our own prime lists
+     */
+    public static PrimeRange slice(PrimeRange primeRange, int limit) {
+        if (limit == primeRange.initial())
+            return primeRange;
+        if (primeRange.primes() instanceof ChunkedPrimeList primes)
+            return new PrimeRange(limit, primes.headList(primes.countUpTo(limit)));
+        if (primeRange.primes() instanceof EliasFanoPrimeList primes)
+            return new PrimeRange(limit, primes.headList(primes.countUpTo(limit)));
+        if (primeRange.primes() instanceof PrimeList primes)
+            return new PrimeRange(limit, primes.headList(primes.countUpTo(limit)));
+        return new PrimeRange(limit, primeRange.primes().stream().filter(prime -> prime <= limit).toList());
+    }
+
+    /**
+     * Offer a result worked out by any sieve, or restored from disk. It is kept if its limit is past the stored one.
+     * @param primeRange
+     * @return primeRange
+     */
+    public PrimeRange put(PrimeRange primeRange) {
+        PrimeRange stored = largest.get();
+        if (stored != null && primeRange.initial() <= stored.initial())
+            return primeRange;
+
+        //compress before taking the lock, only the swap itself is serialised
+        PrimeRange compressed = primeRange.primes() instanceof ChunkedPrimeList
+                ? primeRange
+                : new PrimeRange(primeRange.initial(), ChunkedPrimeList.of(List.of(EliasFanoPrimeList.encode(primeRange.primes()))));
+        writeLock.lock();
+        try {
+            stored = largest.get();
+            if (stored == null || compressed.initial() > stored.initial()) {
+                largest.set(compressed);
+                log.info("Prime store now holds the {} primes up to {}", compressed.primes().size(), compressed.initial());
+                published(compressed);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return primeRange;
+    }
+
+    /**
+     * Grow the stored result up to limit by sieving only the range past the stored limit, and publish it.
+     * @param limit
+     * @return the primes up to and including limit, null if nothing is stored, or it was cleared meanwhile, to extend
+     */
+    public PrimeRange extendTo(int limit) {
+        PrimeRange stored = largest.get();
+        if (stored == null)
+            return null;
+        if (limit <= stored.initial())
+            return slice(stored, limit);
+
+        writeLock.lock();
+        try {
+            //another writer may have got there first, or clear() dropped the store
+            stored = largest.get();
+            if (stored == null)
+                return null;
+            if (limit > stored.initial()) {
+                stored = extend(stored, limit);
+                largest.set(stored);
+                published(stored);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return slice(stored, limit);
+    }
+
+    /**
+     * @param listener called with every new result published, under the writer lock so it should only hand it off
+     */
+    public void addListener(Consumer<PrimeRange> listener) {
+        listeners.add(listener);
+    }
+
+    private void published(PrimeRange primeRange) {
+        for (Consumer<PrimeRange> listener : listeners) {
+            listener.accept(primeRange);
+        }
+    }
+
+    /**
+     * @return largest limit held, Integer.MIN_VALUE if nothing is held yet
+     */
+    public int getLimit() {
+        PrimeRange stored = largest.get();
+        return stored == null ? Integer.MIN_VALUE : stored.initial();
+    }
+
+    /**
+     * @return approximate heap used by the stored primes, 0 if nothing is held yet
+     */
+    public long sizeInBytes() {
+        PrimeRange stored = largest.get();
+        return stored == null ? 0 : ((ChunkedPrimeList) stored.primes()).sizeInBytes();
+    }
+
+    /**
+     * drop the stored result
+     */
+    public void clear() {
+        writeLock.lock();
+        try {
+            largest.set(null);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sieve (stored limit, limit] in parallel segments and append the primes found to the stored ones
+     * @param stored
+     * @param limit past stored.initial()
+     * @return the new result, stored is left untouched
+     */
+    private static PrimeRange extend(PrimeRange stored, int limit) {
+        StopWatch watch = new StopWatch();
+        watch.start();
+
+        ChunkedPrimeList primes = (ChunkedPrimeList) stored.primes();
+        int from = Math.max(2, stored.initial() + 1);
+        int sqrt = (int) SegmentedSieve.isqrt(limit);
+        //the base primes up to sqrt(limit) are usually already held
+        int[] basePrimes = sqrt <= stored.initial()
+                ? primes.headList(primes.countUpTo(sqrt)).toIntArray()
+                : SegmentedSieve.basePrimes(sqrt);
+
+        int[][] segmentPrimes = SegmentRecursiveAction.invoke(from, limit,
+                (low, high, action) -> SegmentedSieve.forEachPrime(low, high, basePrimes, action));
+        int total = 0;
+        for (int[] segment : segmentPrimes) {
+            total += segment.length;
+        }
+        int[] merged = new int[total];
+        int size = 0;
+        for (int[] segment : segmentPrimes) {
+            for (int prime : segment) {
+                merged[size++] = from + prime;
+            }
+        }
+
+        //values of the new chunk are relative to its first odd candidate
+        EliasFanoPrimeList chunk = EliasFanoPrimeList.encode(PrimeList.of(merged), from | 1);
+        ChunkedPrimeList extended = compact(primes.append(chunk));
+
+        watch.stop();
+        log.info("Prime store extended from {} to {}. Time Taken(Nano seconds): {}, New primes: {}, Chunks: {}",
+                stored.initial(), limit, watch.getNanoTime(), total, extended.chunks().size());
+        return new PrimeRange(limit, extended);
+    }
+
+    /**
+     * Merge the last two chunks while the older one is no more than twice the size of the newer one. Chunk sizes then
+     * roughly double towards the front, so a list grown by many small extensions keeps O(log n) chunks and each prime is
+     * only re-encoded O(log n) times.
+     * @param primes
+     * @return ChunkedPrimeList
+     */
+    private static ChunkedPrimeList compact(ChunkedPrimeList primes) {
+        List<EliasFanoPrimeList> chunks = new ArrayList<>(primes.chunks());
+        int last = chunks.size() - 1;
+        if (last < 1 || chunks.get(last - 1).size() > 2 * chunks.get(last).size())
+            return primes;
+
+        while (last >= 1 && chunks.get(last - 1).size() <= 2 * chunks.get(last).size()) {
+            EliasFanoPrimeList older = chunks.get(last - 1);
+            EliasFanoPrimeList newer = chunks.remove(last--);
+            int[] merged = new int[older.size() + newer.size()];
+            System.arraycopy(older.toIntArray(), 0, merged, 0, older.size());
+            System.arraycopy(newer.toIntArray(), 0, merged, older.size(), newer.size());
+            chunks.set(last, EliasFanoPrimeList.encode(PrimeList.of(merged), older.base()));
+        }
+        return ChunkedPrimeList.of(chunks);
+    }
+}
@@ -0,0 +1,156 @@
+package com.natwest.primecalculator.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One named cache of a WeightedCacheManager. Entries of every cache share the manager's memory budget, this class only
+ * adapts the Spring Cache calls onto the manager and keeps the per cache statistics published by WeightedCacheMetrics.
+ */
+public class WeightedCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final WeightedCacheManager manager;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    /**
+     * entries and their weight currently held, only changed under the manager's lock
+     */
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * constructor
+     * @param name
+     * @param manager
+     */
+    WeightedCache(String name, WeightedCacheManager manager) {
+        super(true);
+        this.name = name;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return manager;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = manager.get(this, key);
+        if (value == null)
+            misses.increment();
+        else
+            hits.increment();
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null)
+            return (T) cached.get();
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        manager.put(this, key, toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        manager.evict(this, key);
+    }
+
+    @Override
+    public void clear() {
+        manager.clear(this);
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups not answered from the cache
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of entries admitted
+     */
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    /**
+     * @return number of entries evicted to make room for others or shed under heap pressure
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of entries not admitted, too big or less frequently used than what they would have evicted
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return number of entries held
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    /**
+     * @return estimated bytes held by the entries
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    void recordPut(long weight) {
+        puts.increment();
+        size.incrementAndGet();
+        bytes.addAndGet(weight);
+    }
+
+    void recordRemoval(long weight, boolean evicted) {
+        if (evicted)
+            evictions.increment();
+        size.decrementAndGet();
+        bytes.addAndGet(-weight);
+    }
+
+    void recordRejection() {
+        rejections.increment();
+    }
+}
@@ -0,0 +1,217 @@
+package com.natwest.primecalculator.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CacheManager holding the entries of all its caches within one memory budget, replacing the unbounded
+ * ConcurrentMapCaches Spring gives by default.
+ *
+ * Every entry is weighed by the estimated bytes of its key and value (ObjectSizeEstimator). Entries of all caches share
+ * one least recently used order. When a new entry doesn't fit, the least recently used entries it would displace are
+ * only evicted if the new key has been asked for more often than each of them recently, as estimated by a TinyLFU
+ * FrequencySketch. Otherwise the new entry is rejected, so a one off result for a huge limit can't flush the entries
+ * being hit all day. An entry larger than the whole budget is never admitted. shed(..) evicts a share of everything
+ * held, which HeapPressureMonitor calls when the heap is running out.
+ *
+ * Lookups and updates take one lock, the work under it is a hash lookup and a few counter updates. Weighing is done
+ * before the lock is taken.
+ */
+@Slf4j
+public class WeightedCacheManager implements CacheManager {
+
+    /**
+     * bytes of the entry itself and its slot in the LinkedHashMap, on top of its key and value
+     */
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private final long maxBytes;
+    private final ConcurrentMap<String, WeightedCache> caches = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * every entry of every cache, least recently used first
+     */
+    private final LinkedHashMap<EntryKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final FrequencySketch sketch;
+    private volatile long weightedBytes;
+
+    /**
+     * constructor
+     * @param maxBytes memory budget shared by all the caches
+     * @param cacheNames caches created up front, so their metrics are bound at startup. Others are created on demand.
+     */
+    public WeightedCacheManager(long maxBytes, Collection<String> cacheNames) {
+        this.maxBytes = maxBytes;
+        //assume small entries for sizing the sketch, a few hundred bytes each
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(1024, maxBytes / 512)));
+        cacheNames.forEach(this::getCache);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> new WeightedCache(cacheName, this));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return List.copyOf(caches.keySet());
+    }
+
+    /**
+     * @return the memory budget shared by all the caches
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return estimated bytes held by all the caches
+     */
+    public long getWeightedBytes() {
+        return weightedBytes;
+    }
+
+    /**
+     * Evict the least recently used entries of all the caches until at most (1 - fraction) of the bytes held remain
+     * @param fraction between 0 and 1
+     * @return bytes freed
+     */
+    public long shed(double fraction) {
+        lock.lock();
+        try {
+            long before = weightedBytes;
+            long target = (long) (before * (1 - fraction));
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (weightedBytes > target && iterator.hasNext()) {
+                Entry entry = iterator.next();
+                iterator.remove();
+                removed(entry, true);
+            }
+            log.info("Cache shed {} of {} bytes", before - weightedBytes, before);
+            return before - weightedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Object get(WeightedCache cache, Object key) {
+        EntryKey entryKey = new EntryKey(cache.getName(), key);
+        lock.lock();
+        try {
+            sketch.increment(entryKey);
+            Entry entry = entries.get(entryKey);
+            return entry == null ? null : entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(WeightedCache cache, Object key, Object value) {
+        EntryKey entryKey = new EntryKey(cache.getName(), key);
+        long weight = ENTRY_OVERHEAD + ObjectSizeEstimator.sizeOf(key) + ObjectSizeEstimator.sizeOf(value);
+        Entry entry = new Entry(cache, entryKey, value, weight);
+
+        lock.lock();
+        try {
+            //a rejected replacement leaves the value already held in place
+            Entry replaced = entries.get(entryKey);
+            if (!admit(entry, replaced)) {
+                cache.recordRejection();
+                log.debug("Cache {} rejected {}, {} bytes", cache.getName(), key, weight);
+                return;
+            }
+            if (replaced != null) {
+                entries.remove(entryKey);
+                removed(replaced, false);
+            }
+            entries.put(entryKey, entry);
+            weightedBytes += weight;
+            cache.recordPut(weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void evict(WeightedCache cache, Object key) {
+        lock.lock();
+        try {
+            Entry entry = entries.remove(new EntryKey(cache.getName(), key));
+            if (entry != null)
+                removed(entry, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear(WeightedCache cache) {
+        lock.lock();
+        try {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.cache() == cache) {
+                    iterator.remove();
+                    removed(entry, false);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Make room for the candidate if it is worth it. Must hold the lock.
+     * @param candidate
+     * @param replaced entry held for the same key, its bytes are freed by the candidate and it is never a victim. null
+     *                 if none
+     * @return false if the candidate is bigger than the budget, or not used more often than every entry it would evict
+     */
+    private boolean admit(Entry candidate, Entry replaced) {
+        if (candidate.weight() > maxBytes)
+            return false;
+        long needed = weightedBytes - (replaced == null ? 0 : replaced.weight()) + candidate.weight() - maxBytes;
+        if (needed <= 0)
+            return true;
+
+        //decide on all the victims before evicting any of them
+        int frequency = sketch.frequency(candidate.key());
+        List<Entry> victims = new ArrayList<>();
+        for (Entry victim : entries.values()) {
+            if (needed <= 0)
+                break;
+            if (victim == replaced)
+                continue;
+            if (sketch.frequency(victim.key()) >= frequency)
+                return false;
+            victims.add(victim);
+            needed -= victim.weight();
+        }
+        for (Entry victim : victims) {
+            entries.remove(victim.key());
+            removed(victim, true);
+        }
+        return true;
+    }
+
+    private void removed(Entry entry, boolean evicted) {
+        weightedBytes -= entry.weight();
+        entry.cache().recordRemoval(entry.weight(), evicted);
+    }
+
+    private record EntryKey(String cacheName, Object key) {
+    }
+
+    private record Entry(WeightedCache cache, EntryKey key, Object value, long weight) {
+    }
+}
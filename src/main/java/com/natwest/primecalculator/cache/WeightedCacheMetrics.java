@@ -0,0 +1,69 @@
+package com.natwest.primecalculator.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Publishes the statistics of a WeightedCache to Micrometer, and so to /actuator/metrics. On top of the common cache.gets
+ * (hit/miss), cache.puts, cache.evictions and cache.size meters it adds cache.bytes, the estimated bytes held, and
+ * cache.rejections, the entries not admitted.
+ */
+public class WeightedCacheMetrics extends CacheMeterBinder<WeightedCache> {
+
+    /**
+     * constructor
+     * @param cache
+     * @param tags
+     */
+    public WeightedCacheMetrics(WeightedCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        WeightedCache cache = getCache();
+        return cache == null ? null : cache.getSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        WeightedCache cache = getCache();
+        return cache == null ? 0 : cache.getHitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        WeightedCache cache = getCache();
+        return cache == null ? null : cache.getMissCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        WeightedCache cache = getCache();
+        return cache == null ? null : cache.getEvictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        WeightedCache cache = getCache();
+        return cache == null ? 0 : cache.getPutCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        WeightedCache cache = getCache();
+        Gauge.builder("cache.bytes", cache, WeightedCache::getBytes)
+                .tags(getTagsWithCacheName())
+                .description("Estimated bytes held by the cache")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionCounter.builder("cache.rejections", cache, WeightedCache::getRejectionCount)
+                .tags(getTagsWithCacheName())
+                .description("Entries not admitted, too big or used less often than the entries they would have evicted")
+                .register(registry);
+    }
+}
@@ -0,0 +1,161 @@
+package com.natwest.primecalculator.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Client side decoder for application/x-primes bodies, see PrimesFormat. It only depends on the JDK so it can be
+ * copied into a consumer as it is, together with PrimesFormat. e.g.
+ *
+ *     HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/primes/1000000"))
+ *             .header("Accept", "application/x-primes;encoding=delta-varint").build();
+ *     InputStream body = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream()).body();
+ *     PrimesDecoder.Primes primes = PrimesDecoder.decode(body);
+ *
+ * or PrimesDecoder.forEachPrime(body, prime -> ...) to handle them as they arrive without holding them.
+ */
+public final class PrimesDecoder {
+
+    private PrimesDecoder() {
+    }
+
+    /**
+     * Decoded body
+     * @param from lowest value (inclusive) of the range the primes come from
+     * @param to highest value (inclusive) of the range the primes come from
+     * @param encoding encoding the body was written with
+     * @param primes in ascending order
+     */
+    public record Primes(long from, long to, PrimesFormat.Encoding encoding, long[] primes) {
+    }
+
+    /**
+     * Header of a body
+     * @param from
+     * @param to
+     * @param encoding
+     */
+    public record Header(long from, long to, PrimesFormat.Encoding encoding) {
+    }
+
+    /**
+     * @param body whole body
+     * @return Primes
+     * @throws IOException if the body is not valid application/x-primes
+     */
+    public static Primes decode(byte[] body) throws IOException {
+        return decode(new ByteArrayInputStream(body));
+    }
+
+    /**
+     * read the whole body
+     * @param in
+     * @return Primes
+     * @throws IOException if reading fails or the body is not valid application/x-primes
+     */
+    public static Primes decode(InputStream in) throws IOException {
+        long[][] primes = {new long[1024]};
+        int[] size = {0};
+        Header header = forEachPrime(in, prime -> {
+            if (size[0] == primes[0].length)
+                primes[0] = Arrays.copyOf(primes[0], primes[0].length * 2);
+            primes[0][size[0]++] = prime;
+        });
+        return new Primes(header.from(), header.to(), header.encoding(), Arrays.copyOf(primes[0], size[0]));
+    }
+
+    /**
+     * read the body, calling action with each prime as soon as it is decoded
+     * @param in
+     * @param action
+     * @return Header
+     * @throws IOException if reading fails or the body is not valid application/x-primes
+     */
+    public static Header forEachPrime(InputStream in, LongConsumer action) throws IOException {
+        Reader reader = new Reader(in);
+        for (byte magic : PrimesFormat.MAGIC) {
+            if (reader.read() != magic)
+                throw new IOException("Not an application/x-primes body");
+        }
+        int id = reader.read();
+        if (id < 0)
+            throw new EOFException("Body ends within the header");
+        Header header = new Header(reader.readLong(8), reader.readLong(8), PrimesFormat.Encoding.fromId(id));
+
+        switch (header.encoding()) {
+            case INT32, INT64 -> {
+                int bytes = header.encoding() == PrimesFormat.Encoding.INT32 ? 4 : 8;
+                while (reader.hasMore()) {
+                    action.accept(reader.readLong(bytes));
+                }
+            }
+            case DELTA_VARINT -> {
+                long prime = 0;
+                while (reader.hasMore()) {
+                    long gap = 0;
+                    int shift = 0;
+                    int b;
+                    do {
+                        b = reader.read();
+                        if (b < 0)
+                            throw new EOFException("Body ends within a varint");
+                        gap |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while ((b & 0x80) != 0);
+                    prime += gap;
+                    action.accept(prime);
+                }
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Buffered little endian reader
+     */
+    private static final class Reader {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+
+        private Reader(InputStream in) {
+            this.in = in;
+        }
+
+        private boolean hasMore() throws IOException {
+            while (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit < 0) {
+                    limit = 0;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return next byte 0 to 255, -1 at the end of the body
+         */
+        private int read() throws IOException {
+            return hasMore() ? buffer[position++] & 0xFF : -1;
+        }
+
+        private long readLong(int bytes) throws IOException {
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                int b = read();
+                if (b < 0)
+                    throw new EOFException("Body ends within a " + bytes + " byte value");
+                value |= (long) b << (8 * i);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.natwest.primecalculator.client;
+
+/**
+ * The application/x-primes binary format, a compact alternative to JSON for lists of primes. All numbers are little
+ * endian:
+ *
+ *     offset  size  field
+ *     0       4     magic, the ASCII bytes "PRIM"
+ *     4       1     encoding, see Encoding
+ *     5       8     from, int64, lowest value (inclusive) of the range the primes come from
+ *     13      8     to, int64, highest value (inclusive) of the range the primes come from
+ *     21      ...   the primes in ascending order, up to the end of the body
+ *
+ * A client picks the encoding with the Accept header, e.g. "application/x-primes;encoding=int32". With no encoding
+ * parameter delta-varint is used. Nothing says up front how many primes follow, so a large list can be written as it
+ * is sieved.
+ */
+public final class PrimesFormat {
+
+    public static final String MEDIA_TYPE = "application/x-primes";
+
+    /**
+     * name of the media type parameter selecting the encoding
+     */
+    public static final String ENCODING_PARAMETER = "encoding";
+
+    public static final byte[] MAGIC = {'P', 'R', 'I', 'M'};
+
+    public static final int HEADER_SIZE = 21;
+
+    private PrimesFormat() {
+    }
+
+    /**
+     * How the primes following the header are written
+     */
+    public enum Encoding {
+        /**
+         * 4 bytes per prime, only for primes up to Integer.MAX_VALUE
+         */
+        INT32("int32", 1),
+        /**
+         * 8 bytes per prime
+         */
+        INT64("int64", 2),
+        /**
+         * the gap to the previous prime (the first prime's gap is from 0) as an unsigned LEB128 varint: 7 bits per
+         * byte, low bits first, the top bit set on every byte but the last. Gaps below 128 take 1 byte, so about 1
+         * byte per prime below 10^10.
+         */
+        DELTA_VARINT("delta-varint", 3);
+
+        private final String parameter;
+        private final int id;
+
+        Encoding(String parameter, int id) {
+            this.parameter = parameter;
+            this.id = id;
+        }
+
+        /**
+         * @return value of the encoding media type parameter
+         */
+        public String parameter() {
+            return parameter;
+        }
+
+        /**
+         * @return byte written at offset 4
+         */
+        public int id() {
+            return id;
+        }
+
+        /**
+         * @param parameter value of the encoding media type parameter, null for the default
+         * @return Encoding, null if unknown
+         */
+        public static Encoding fromParameter(String parameter) {
+            if (parameter == null)
+                return DELTA_VARINT;
+            for (Encoding encoding : values()) {
+                if (encoding.parameter.equalsIgnoreCase(parameter))
+                    return encoding;
+            }
+            return null;
+        }
+
+        /**
+         * @param id byte read at offset 4
+         * @return Encoding
+         */
+        public static Encoding fromId(int id) {
+            for (Encoding encoding : values()) {
+                if (encoding.id == id)
+                    return encoding;
+            }
+            throw new IllegalArgumentException("Unknown application/x-primes encoding " + id);
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package com.natwest.primecalculator.config;
 
+import com.natwest.primecalculator.cache.HeapPressureMonitor;
+import com.natwest.primecalculator.cache.PrimeFileStore;
+import com.natwest.primecalculator.cache.PrimeStore;
+import com.natwest.primecalculator.cache.WeightedCache;
+import com.natwest.primecalculator.cache.WeightedCacheManager;
+import com.natwest.primecalculator.cache.WeightedCacheMetrics;
+import com.natwest.primecalculator.converters.PrimesHttpMessageConverter;
+import com.natwest.primecalculator.converters.StringToBatchOperationEnumConverter;
 import com.natwest.primecalculator.converters.StringToSieveEnumConverter;
 import com.natwest.primecalculator.converters.StringToVersionEnumConverter;
 import com.natwest.primecalculator.entities.SieveKey;
 import com.natwest.primecalculator.enums.SieveAndVersionEnum;
 import com.natwest.primecalculator.service.SieveService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -22,14 +38,35 @@ import java.util.stream.Collectors;
 @Configuration
 public class AppConfig implements WebMvcConfigurer {
 
+    private final PrimeFileStore primeFileStore;
+
     /**
-     * add SieveEnumConverter and VersionEnumConverter to the registry
+     * constructor
+     * @param primeFileStore handed to PrimesHttpMessageConverter
+     */
+    public AppConfig(PrimeFileStore primeFileStore) {
+        this.primeFileStore = primeFileStore;
+    }
+
+    /**
+     * add SieveEnumConverter, VersionEnumConverter and BatchOperationEnumConverter to the registry
      * @param registry
      */
     @Override
     public void addFormatters(FormatterRegistry registry) {
         registry.addConverter(new StringToSieveEnumConverter());
         registry.addConverter(new StringToVersionEnumConverter());
+        registry.addConverter(new StringToBatchOperationEnumConverter());
+    }
+
+    /**
+     * add PrimesHttpMessageConverter so prime lists can also be negotiated as application/x-primes, sending what
+     * primeFileStore holds straight from its file
+     * @param converters
+     */
+    @Override
+    public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+        converters.add(new PrimesHttpMessageConverter(primeFileStore));
     }
 
 
@@ -45,5 +82,65 @@ public class AppConfig implements WebMvcConfigurer {
                 .collect(Collectors.toMap(SieveService::getSieveKey, Function.identity()));
     }
 
+    /**
+     * CacheManager for the @Cacheable results, bounded by an estimate of the bytes held rather than unbounded
+     * @param maxBytes memory budget shared by all the caches
+     * @param cacheNames caches created up front
+     * @return WeightedCacheManager
+     */
+    @Bean
+    public WeightedCacheManager cacheManager(@Value("${primecalculator.cache.max-bytes:268435456}") long maxBytes,
+                                             @Value("${spring.cache.cache-names:PrimeCount,NthPrime,PrimeStatistics}") String[] cacheNames) {
+        return new WeightedCacheManager(maxBytes, List.of(cacheNames));
+    }
+
+    /**
+     * lets the actuator bind WeightedCacheMetrics to every WeightedCache, as it does for the caches it knows about
+     * @return CacheMeterBinderProvider
+     */
+    @Bean
+    public CacheMeterBinderProvider<WeightedCache> weightedCacheMeterBinderProvider() {
+        return WeightedCacheMetrics::new;
+    }
+
+    /**
+     * totals across the caches, the PrimeStore, its files and heap pressure events
+     * @param cacheManager
+     * @param primeStore
+     * @param heapPressureMonitor
+     * @return MeterBinder
+     */
+    @Bean
+    public MeterBinder primeCacheMeterBinder(@NonNull WeightedCacheManager cacheManager, @NonNull PrimeStore primeStore,
+                                             @NonNull HeapPressureMonitor heapPressureMonitor) {
+        return registry -> {
+            Gauge.builder("primecalculator.cache.bytes", cacheManager, WeightedCacheManager::getWeightedBytes)
+                    .description("Estimated bytes held by all the caches")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            Gauge.builder("primecalculator.cache.max.bytes", cacheManager, WeightedCacheManager::getMaxBytes)
+                    .description("Memory budget shared by all the caches")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            Gauge.builder("primecalculator.primestore.bytes", primeStore, PrimeStore::sizeInBytes)
+                    .description("Estimated bytes held by the PrimeStore")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            Gauge.builder("primecalculator.primestore.limit", primeStore, store -> Math.max(0, store.getLimit()))
+                    .description("Largest limit held by the PrimeStore")
+                    .register(registry);
+            Gauge.builder("primecalculator.primestore.file.limit", primeFileStore, store -> Math.max(0, store.getLimit()))
+                    .description("Largest limit held by the PrimeStore files")
+                    .register(registry);
+            FunctionCounter.builder("primecalculator.primestore.file.transferred", primeFileStore, PrimeFileStore::getBytesTransferred)
+                    .description("Bytes of delta-varint responses sent straight from the PrimeStore files")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            FunctionCounter.builder("primecalculator.cache.heap.pressure", heapPressureMonitor, HeapPressureMonitor::getEventCount)
+                    .description("Times cached results were shed because the heap was running out")
+                    .register(registry);
+        };
+    }
+
 
 }
@@ -0,0 +1,41 @@
+package com.natwest.primecalculator.controllers;
+
+import com.natwest.primecalculator.entities.Factorisation;
+import com.natwest.primecalculator.service.PrimeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * RestController for prime factorisation. Support results only as json.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/factors")
+public class FactorController {
+
+    //PrimeService
+    @Autowired
+    private PrimeService primeService;
+
+    /**
+     * Get the prime factors of any long n >= 1 with multiplicity, in ascending order
+     * @param n
+     * @return Factorisation
+     */
+    @GetMapping(value = "/{n}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Factorisation getFactors(@PathVariable("n") Long n) {
+        return primeService.getFactors(n);
+    }
+
+    /**
+     * Factorise every value of a JSON array of longs in one round trip
+     * @param values
+     * @return Factorisation[] in the same order as the values
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Factorisation[] getFactorBatch(@RequestBody long[] values) {
+        return primeService.getFactorBatch(values);
+    }
+}
@@ -1,16 +1,31 @@
 package com.natwest.primecalculator.controllers;
 
+import com.natwest.primecalculator.client.PrimesFormat;
+import com.natwest.primecalculator.entities.LargePrimeRange;
+import com.natwest.primecalculator.entities.NthPrime;
+import com.natwest.primecalculator.entities.Primality;
+import com.natwest.primecalculator.entities.PrimeBatch;
+import com.natwest.primecalculator.entities.PrimeCount;
 import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeStatistics;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import com.natwest.primecalculator.enums.BatchOperationEnum;
 import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
 import com.natwest.primecalculator.service.PrimeService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.ByteBuffer;
 
 /**
- * RestController for Primes. Entry point for this microservice. Support results only as json.
+ * RestController for Primes. Entry point for this microservice. Results are json, lists of primes can also be
+ * negotiated as the application/x-primes binary format (see PrimesFormat).
  */
 @Slf4j
 @RestController
@@ -26,11 +41,149 @@ public class PrimeController {
      * @param upToAndIncluding
      * @return PrimeRange
      */
-    @GetMapping(value = "/{upToAndIncluding}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/{upToAndIncluding}", produces = {MediaType.APPLICATION_JSON_VALUE, PrimesFormat.MEDIA_TYPE})
     public PrimeRange getPrimes(@PathVariable("upToAndIncluding") Integer upToAndIncluding) {
         return primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, upToAndIncluding);
     }
 
+    /**
+     * Get Primes for limits past Integer.MAX_VALUE. The primes are sieved in bounded memory, one chunk at a time, while
+     * the response is being written.
+     * @param upToAndIncluding
+     * @return LargePrimeRange
+     */
+    @GetMapping(value = "/large/{upToAndIncluding}", produces = {MediaType.APPLICATION_JSON_VALUE, PrimesFormat.MEDIA_TYPE})
+    public LargePrimeRange getLargePrimes(@PathVariable("upToAndIncluding") Long upToAndIncluding) {
+        return primeService.getLargePrimes(upToAndIncluding);
+    }
+
+    /**
+     * Get Primes as a JSON stream, in the same shape as a PrimeRange. Each segment is written while the next one is
+     * being sieved, so the first bytes go out straight away and memory stays flat however high the limit.
+     * @param upToAndIncluding
+     * @return StreamingResponseBody
+     */
+    @GetMapping(value = "/stream/{upToAndIncluding}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody getPrimeStream(@PathVariable("upToAndIncluding") Long upToAndIncluding) {
+        return primeService.getPrimeStream(upToAndIncluding);
+    }
+
+    /**
+     * Get the number of primes up to and including the supplied limit without listing them. Set sum=true to also get
+     * the sum of the primes.
+     * @param upToAndIncluding
+     * @param sum
+     * @return PrimeCount
+     */
+    @GetMapping(value = "/count/{upToAndIncluding}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PrimeCount getPrimeCount(@PathVariable("upToAndIncluding") Long upToAndIncluding,
+                                    @RequestParam(value = "sum", defaultValue = "false") boolean sum) {
+        return primeService.getPrimeCount(upToAndIncluding, sum);
+    }
+
+    /**
+     * Get the n-th prime (1 based, the 1st prime being 2). Only the primes up to an estimate of it are counted and the
+     * short window left is sieved.
+     * @param n
+     * @return NthPrime
+     */
+    @GetMapping(value = "/nth/{n}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public NthPrime getNthPrime(@PathVariable("n") Long n) {
+        return primeService.getNthPrime(n);
+    }
+
+    /**
+     * Check whether any long n is a prime, without sieving up to it
+     * @param n
+     * @return Primality
+     */
+    @GetMapping(value = "/is-prime/{n}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Primality isPrime(@PathVariable("n") Long n) {
+        return primeService.isPrime(n);
+    }
+
+    /**
+     * Run isPrime, nextPrime or previousPrime for every value of a JSON array of longs in one round trip
+     * @param operation is-prime, next-prime or previous-prime
+     * @param values
+     * @return PrimeBatch
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public PrimeBatch getPrimeBatch(@RequestParam("operation") BatchOperationEnum operation,
+                                    @RequestBody long[] values) {
+        return primeService.getPrimeBatch(operation, values);
+    }
+
+    /**
+     * Binary form of the batch endpoint, avoiding JSON parsing of large batches. The body is the values as 8 byte big
+     * endian longs. The response is 1 byte (0 or 1) per value for is-prime, otherwise an 8 byte big endian long per
+     * value (0 where there is no such prime).
+     * @param operation is-prime, next-prime or previous-prime
+     * @param body
+     * @return byte[]
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] getPrimeBatch(@RequestParam("operation") BatchOperationEnum operation,
+                                @RequestBody byte[] body) {
+        if(body.length % Long.BYTES != 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Body of %d bytes isn't a whole number of 8 byte longs", body.length));
+
+        long[] values = new long[body.length / Long.BYTES];
+        ByteBuffer.wrap(body).asLongBuffer().get(values);
+        PrimeBatch batch = primeService.getPrimeBatch(operation, values);
+
+        if(batch.prime() != null) {
+            byte[] result = new byte[values.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (byte) (batch.prime()[i] ? 1 : 0);
+            }
+            return result;
+        }
+        ByteBuffer result = ByteBuffer.allocate(values.length * Long.BYTES);
+        result.asLongBuffer().put(batch.primes());
+        return result.array();
+    }
+
+    /**
+     * Get the gap and k-tuple statistics (largest gap, gap histogram, twins, cousins, sexy pairs, triplets and
+     * quadruplets) of the primes up to and including the supplied limit, without listing them
+     * @param upToAndIncluding
+     * @return PrimeStatistics
+     */
+    @GetMapping(value = "/stats/{upToAndIncluding}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PrimeStatistics getPrimeStatistics(@PathVariable("upToAndIncluding") Long upToAndIncluding) {
+        return primeService.getPrimeStatistics(upToAndIncluding);
+    }
+
+    /**
+     * Get the gap and k-tuple statistics of the primes within [from, to], without listing them
+     * @param from
+     * @param to
+     * @return PrimeStatistics
+     */
+    @GetMapping(value = "/stats/range", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PrimeStatistics getPrimeStatistics(@RequestParam("from") Long from,
+                                              @RequestParam("to") Long to) {
+        return primeService.getPrimeStatistics(from, to);
+    }
+
+    /**
+     * Get the primes within [from, to] based on the chosen sieve and version. Only the window is sieved, using the base
+     * primes up to sqrt(to), so narrow windows at high offsets are cheap.
+     * @param sieve
+     * @param version
+     * @param from
+     * @param to
+     * @return PrimeWindow
+     */
+    @GetMapping(value = "/{sieve}/{version}/range", produces = {MediaType.APPLICATION_JSON_VALUE, PrimesFormat.MEDIA_TYPE})
+    public PrimeWindow getPrimesInRange(@PathVariable("sieve") SieveEnum sieve,
+                                        @PathVariable("version") VersionEnum version,
+                                        @RequestParam("from") Long from,
+                                        @RequestParam("to") Long to) {
+        return primeService.getPrimesInRange(sieve, version, from, to);
+    }
+
     /**
      * Get Primes based on the chosen sieve and version
      * @param sieve
@@ -38,7 +191,7 @@ public class PrimeController {
      * @param upToAndIncluding
      * @return PrimeRange
      */
-    @GetMapping(value = "/{sieve}/{version}/{upToAndIncluding}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/{sieve}/{version}/{upToAndIncluding}", produces = {MediaType.APPLICATION_JSON_VALUE, PrimesFormat.MEDIA_TYPE})
     public PrimeRange getPrimes(@PathVariable("sieve") SieveEnum sieve,
                                 @PathVariable("version") VersionEnum version,
                                 @PathVariable("upToAndIncluding") Integer upToAndIncluding) {
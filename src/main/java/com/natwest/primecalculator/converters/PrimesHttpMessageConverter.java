@@ -0,0 +1,213 @@
+package com.natwest.primecalculator.converters;
+
+import com.natwest.primecalculator.cache.PrimeFileStore;
+import com.natwest.primecalculator.client.PrimesFormat;
+import com.natwest.primecalculator.entities.ChunkedPrimeList;
+import com.natwest.primecalculator.entities.EliasFanoPrimeList;
+import com.natwest.primecalculator.entities.LargePrimeRange;
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+/**
+ * HttpMessageConverter writing PrimeRange, LargePrimeRange and PrimeWindow results as application/x-primes, see
+ * PrimesFormat. The encoding comes from the encoding parameter of the negotiated media type, e.g.
+ * "Accept: application/x-primes;encoding=int64", falling back to delta-varint when it is missing or unknown. The
+ * response Content-Type always names the encoding used.
+ * The primes are encoded straight from the int[] (or compressed) list, or as they are sieved for a LargePrimeRange,
+ * through a 64KB buffer.
+ * A delta-varint body of the PrimeStore's primes is the prefix of the file PrimeFileStore keeps, so when the file holds
+ * them it is sent from there with FileChannel.transferTo(..) instead.
+ */
+public class PrimesHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_X_PRIMES = MediaType.parseMediaType(PrimesFormat.MEDIA_TYPE);
+
+    /**
+     * null to always encode
+     */
+    private final PrimeFileStore primeFileStore;
+
+    public PrimesHttpMessageConverter() {
+        this(null);
+    }
+
+    /**
+     * constructor
+     * @param primeFileStore delta-varint bodies it holds are sent from its file
+     */
+    public PrimesHttpMessageConverter(PrimeFileStore primeFileStore) {
+        super(APPLICATION_X_PRIMES);
+        this.primeFileStore = primeFileStore;
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return PrimeRange.class.isAssignableFrom(clazz)
+                || LargePrimeRange.class.isAssignableFrom(clazz)
+                || PrimeWindow.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @NonNull
+    protected Object readInternal(@NonNull Class<?> clazz, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("application/x-primes is only used for responses", inputMessage);
+    }
+
+    @Override
+    protected void addDefaultHeaders(@NonNull HttpHeaders headers, @NonNull Object body, MediaType contentType) throws IOException {
+        super.addDefaultHeaders(headers, body, contentType);
+        //a missing or unknown encoding falls back to delta-varint, the Content-Type says which one was used
+        MediaType type = headers.getContentType();
+        if (type != null) {
+            PrimesFormat.Encoding encoding = PrimesFormat.Encoding.fromParameter(type.getParameter(PrimesFormat.ENCODING_PARAMETER));
+            headers.setContentType(new MediaType(type, Map.of(PrimesFormat.ENCODING_PARAMETER,
+                    (encoding == null ? PrimesFormat.Encoding.DELTA_VARINT : encoding).parameter())));
+        }
+    }
+
+    @Override
+    protected void writeInternal(@NonNull Object body, @NonNull HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        PrimesFormat.Encoding encoding = PrimesFormat.Encoding.fromParameter(
+                contentType == null ? null : contentType.getParameter(PrimesFormat.ENCODING_PARAMETER));
+        if (encoding == null)
+            encoding = PrimesFormat.Encoding.DELTA_VARINT;
+
+        long from;
+        long to;
+        if (body instanceof PrimeRange primeRange) {
+            from = 0;
+            to = primeRange.initial();
+        } else if (body instanceof LargePrimeRange largePrimeRange) {
+            from = 0;
+            to = largePrimeRange.initial();
+        } else {
+            from = ((PrimeWindow) body).from();
+            to = ((PrimeWindow) body).to();
+        }
+        //a client asking for int32 past its range is told so before anything is written, rather than failing mid body
+        if (encoding == PrimesFormat.Encoding.INT32 && to > Integer.MAX_VALUE)
+            throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE,
+                    String.format("int32 can't hold primes past Integer.MAX_VALUE (%d), use int64 or delta-varint", to));
+
+        Writer writer = new Writer(outputMessage.getBody(), encoding);
+        writer.writeHeader(from, to);
+        if (primeFileStore != null && encoding == PrimesFormat.Encoding.DELTA_VARINT
+                && body instanceof PrimeRange primeRange && primeRange.primes() instanceof ChunkedPrimeList primes) {
+            writer.flush();
+            if (primeFileStore.transferDeltaVarint(primes.size(), Channels.newChannel(outputMessage.getBody())) >= 0)
+                return;
+        }
+        try {
+            if (body instanceof PrimeRange primeRange) {
+                if (primeRange.primes() instanceof PrimeList primes)
+                    primes.forEachInt(writer::writePrime);
+                else if (primeRange.primes() instanceof EliasFanoPrimeList primes)
+                    primes.forEachInt(writer::writePrime);
+                else if (primeRange.primes() instanceof ChunkedPrimeList primes)
+                    primes.forEachInt(writer::writePrime);
+                else
+                    primeRange.primes().forEach(writer::writePrime);
+            } else if (body instanceof LargePrimeRange largePrimeRange) {
+                if (largePrimeRange.primes().iterator() instanceof PrimitiveIterator.OfLong primes)
+                    primes.forEachRemaining((long prime) -> writer.writePrime(prime));
+                else
+                    largePrimeRange.primes().forEach(writer::writePrime);
+            } else {
+                for (long prime : ((PrimeWindow) body).primes()) {
+                    writer.writePrime(prime);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Encodes into a 64KB buffer, handing it to out whenever it is full
+     */
+    private static final class Writer {
+
+        private final OutputStream out;
+        private final PrimesFormat.Encoding encoding;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private long previous;
+
+        private Writer(OutputStream out, PrimesFormat.Encoding encoding) {
+            this.out = out;
+            this.encoding = encoding;
+        }
+
+        private void writeHeader(long from, long to) {
+            for (byte magic : PrimesFormat.MAGIC) {
+                buffer[position++] = magic;
+            }
+            buffer[position++] = (byte) encoding.id();
+            writeLittleEndian(from, 8);
+            writeLittleEndian(to, 8);
+        }
+
+        /**
+         * @param prime
+         * @throws UncheckedIOException if out fails, so it can be used as an IntConsumer or LongConsumer
+         */
+        private void writePrime(long prime) {
+            //room for the longest value, a 10 byte varint
+            if (position > buffer.length - 10) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            switch (encoding) {
+                case INT32 -> writeLittleEndian(prime, 4);
+                case INT64 -> writeLittleEndian(prime, 8);
+                case DELTA_VARINT -> {
+                    long gap = prime - previous;
+                    previous = prime;
+                    while ((gap & ~0x7FL) != 0) {
+                        buffer[position++] = (byte) (gap | 0x80);
+                        gap >>>= 7;
+                    }
+                    buffer[position++] = (byte) gap;
+                }
+            }
+        }
+
+        private void writeLittleEndian(long value, int bytes) {
+            for (int i = 0; i < bytes; i++) {
+                buffer[position++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        private void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
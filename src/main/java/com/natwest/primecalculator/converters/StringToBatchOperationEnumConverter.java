@@ -0,0 +1,19 @@
+package com.natwest.primecalculator.converters;
+
+import com.natwest.primecalculator.enums.BatchOperationEnum;
+import org.springframework.core.convert.converter.Converter;
+
+/**
+ * String to BatchOperationEnum converter class to supply to Spring registry
+ */
+public class StringToBatchOperationEnumConverter implements Converter<String, BatchOperationEnum> {
+    /**
+     * convert String to BatchOperationEnum, e.g. is-prime or IS_PRIME
+     * @param source
+     * @return BatchOperationEnum
+     */
+    @Override
+    public BatchOperationEnum convert(String source) {
+        return BatchOperationEnum.valueOf(source.toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,233 @@
+package com.natwest.primecalculator.entities;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable list of primes in ascending order made of consecutive Elias-Fano compressed chunks, e.g. the primes up to
+ * m followed by the primes of (m, n] sieved later on. append(..) gives a new list sharing the existing chunks, so a
+ * list can grow by the new range only and anyone still reading the old list is unaffected.
+ *
+ *     chunks      the compressed chunks, none of them empty, every prime of a chunk below every prime of the next
+ *     starts      starts[k] is the index of the first prime of chunks[k], starts[chunks.length] is the size
+ */
+@JsonSerialize(using = ChunkedPrimeList.Serializer.class)
+public final class ChunkedPrimeList extends AbstractList<Integer> implements RandomAccess {
+
+    private static final ChunkedPrimeList EMPTY = new ChunkedPrimeList(new EliasFanoPrimeList[0], new int[]{0});
+
+    private final EliasFanoPrimeList[] chunks;
+    private final int[] starts;
+
+    private ChunkedPrimeList(EliasFanoPrimeList[] chunks, int[] starts) {
+        this.chunks = chunks;
+        this.starts = starts;
+    }
+
+    /**
+     * @param chunks consecutive chunks in ascending order, empty ones are dropped
+     * @return ChunkedPrimeList
+     */
+    public static ChunkedPrimeList of(List<EliasFanoPrimeList> chunks) {
+        ChunkedPrimeList list = EMPTY;
+        for (EliasFanoPrimeList chunk : chunks) {
+            list = list.append(chunk);
+        }
+        return list;
+    }
+
+    /**
+     * @param chunk primes all above the last prime of this list
+     * @return a new list with chunk after the chunks of this one, this list if chunk is empty
+     */
+    public ChunkedPrimeList append(EliasFanoPrimeList chunk) {
+        if (chunk.isEmpty())
+            return this;
+        if (!isEmpty() && chunk.getInt(0) <= getInt(size() - 1))
+            throw new IllegalArgumentException("Chunk starting at " + chunk.getInt(0) + " does not follow " + getInt(size() - 1));
+
+        EliasFanoPrimeList[] appended = Arrays.copyOf(chunks, chunks.length + 1);
+        appended[chunks.length] = chunk;
+        int[] appendedStarts = Arrays.copyOf(starts, starts.length + 1);
+        appendedStarts[starts.length] = Math.addExact(size(), chunk.size());
+        return new ChunkedPrimeList(appended, appendedStarts);
+    }
+
+    /**
+     * @return the chunks in order
+     */
+    public List<EliasFanoPrimeList> chunks() {
+        return List.of(chunks);
+    }
+
+    /**
+     * @param index
+     * @return the prime at index, without boxing
+     */
+    public int getInt(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        int k = chunkOf(index);
+        return chunks[k].getInt(index - starts[k]);
+    }
+
+    /**
+     * @param value
+     * @return number of primes <= value, by binary search over the chunks and then within the chunk
+     */
+    public int countUpTo(int value) {
+        int low = 0;
+        int high = chunks.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks[mid].getInt(0) <= value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        //chunks[low - 1] is the last chunk starting at or below value
+        return low == 0 ? 0 : starts[low - 1] + chunks[low - 1].countUpTo(value);
+    }
+
+    /**
+     * @param size
+     * @return the first size primes as a view sharing this list's chunks, nothing is copied or decoded
+     */
+    public ChunkedPrimeList headList(int size) {
+        if (size < 0 || size > size())
+            throw new IndexOutOfBoundsException("Size " + size + " out of bounds for length " + size());
+        if (size == size())
+            return this;
+        if (size == 0)
+            return EMPTY;
+        int k = chunkOf(size - 1);
+        EliasFanoPrimeList[] head = Arrays.copyOf(chunks, k + 1);
+        head[k] = chunks[k].headList(size - starts[k]);
+        int[] headStarts = Arrays.copyOf(starts, k + 2);
+        headStarts[k + 1] = size;
+        return new ChunkedPrimeList(head, headStarts);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public int size() {
+        return starts[chunks.length];
+    }
+
+    /**
+     * @return approximate heap used by the compressed chunks
+     */
+    public long sizeInBytes() {
+        long bytes = 4L * starts.length + 64;
+        for (EliasFanoPrimeList chunk : chunks) {
+            bytes += chunk.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new Cursor();
+    }
+
+    /**
+     * call action with every prime in ascending order, without boxing
+     * @param action
+     */
+    public void forEachInt(IntConsumer action) {
+        for (EliasFanoPrimeList chunk : chunks) {
+            chunk.forEachInt(action);
+        }
+    }
+
+    /**
+     * @return the primes decompressed into an int[]
+     */
+    public int[] toIntArray() {
+        int[] primes = new int[size()];
+        for (int k = 0; k < chunks.length; k++) {
+            int[] chunk = chunks[k].toIntArray();
+            System.arraycopy(chunk, 0, primes, starts[k], chunk.length);
+        }
+        return primes;
+    }
+
+    /**
+     * @param index
+     * @return k where starts[k] <= index < starts[k + 1]
+     */
+    private int chunkOf(int index) {
+        int k = Arrays.binarySearch(starts, 0, chunks.length, index);
+        return k >= 0 ? k : -k - 2;
+    }
+
+    @Override
+    public int hashCode() {
+        //same as List.hashCode() as Integer.hashCode() is the value itself
+        int hashCode = 1;
+        PrimitiveIterator.OfInt cursor = iterator();
+        while (cursor.hasNext()) {
+            hashCode = 31 * hashCode + cursor.nextInt();
+        }
+        return hashCode;
+    }
+
+    /**
+     * Walks the chunks one after the other, decoding each sequentially
+     */
+    private final class Cursor implements PrimitiveIterator.OfInt {
+
+        private int k;
+        private PrimitiveIterator.OfInt chunk = chunks.length == 0 ? null : chunks[0].iterator();
+
+        @Override
+        public boolean hasNext() {
+            while (chunk != null && !chunk.hasNext()) {
+                chunk = ++k < chunks.length ? chunks[k].iterator() : null;
+            }
+            return chunk != null;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return chunk.nextInt();
+        }
+    }
+
+    /**
+     * Writes the primes as a JSON array of numbers, decoding them one at a time from the compressed chunks
+     */
+    public static final class Serializer extends StdSerializer<ChunkedPrimeList> {
+
+        public Serializer() {
+            super(ChunkedPrimeList.class);
+        }
+
+        @Override
+        public void serialize(ChunkedPrimeList value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray(value, value.size());
+            PrimitiveIterator.OfInt cursor = value.iterator();
+            while (cursor.hasNext()) {
+                generator.writeNumber(cursor.nextInt());
+            }
+            generator.writeEndArray();
+        }
+    }
+}
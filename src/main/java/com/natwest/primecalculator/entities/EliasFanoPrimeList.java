@@ -0,0 +1,407 @@
+package com.natwest.primecalculator.entities;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable, Elias-Fano compressed list of primes in ascending order, used for the primes of a cached PrimeRange.
+ *
+ * 2 is the only even prime so it is kept as a flag and every odd prime p is stored as v = (p - base) / 2, where base
+ * is 1 for a list starting from the beginning and the first odd value of the range for a chunk further along. The n values
+ * v are split into L = floor(log2(u / n)) low bits, where u is the largest v + 1, and the remaining high bits:
+ *
+ *     lowBits     the L low bits of every v, packed one after the other
+ *     highBits    for the j-th value the bit (v >> L) + j is set, i.e. the high parts as unary coded gaps
+ *     samples     position in highBits of every 256th set bit
+ *
+ * That is at most L + 2 bits per prime, about 5.3 bits at 2 billion rather than the 32 bits of an int[] or roughly 160
+ * bits of a boxed Integer and its reference. get(i) jumps to the nearest sample and counts set bits a word at a time so
+ * random access is O(1), and iteration, forEachInt(..) and the Serializer decode sequentially straight from the
+ * compressed form without building an int[].
+ */
+@JsonSerialize(using = EliasFanoPrimeList.Serializer.class)
+public final class EliasFanoPrimeList extends AbstractList<Integer> implements RandomAccess {
+
+    /**
+     * every 2^SAMPLE_SHIFT-th set bit of highBits has its position sampled
+     */
+    private static final int SAMPLE_SHIFT = 8;
+
+    /**
+     * first 4 bytes written by writeTo(..), "PEF1" read as a little endian int
+     */
+    private static final int FILE_MAGIC = 0x31464550;
+
+    /**
+     * odd value stored as 0
+     */
+    private final int base;
+    /**
+     * true if the list starts with 2
+     */
+    private final boolean hasTwo;
+    /**
+     * number of odd primes
+     */
+    private final int oddCount;
+    /**
+     * L, the number of low bits of each value
+     */
+    private final int lowWidth;
+    private final long[] lowBits;
+    private final long[] highBits;
+    private final int[] samples;
+
+    private EliasFanoPrimeList(int base, boolean hasTwo, int oddCount, int lowWidth, long[] lowBits, long[] highBits, int[] samples) {
+        this.base = base;
+        this.hasTwo = hasTwo;
+        this.oddCount = oddCount;
+        this.lowWidth = lowWidth;
+        this.lowBits = lowBits;
+        this.highBits = highBits;
+        this.samples = samples;
+    }
+
+    /**
+     * Compress a list of primes.
+     * @param primes in ascending order, no even value other than a leading 2
+     * @return EliasFanoPrimeList
+     */
+    public static EliasFanoPrimeList encode(Collection<Integer> primes) {
+        if (primes instanceof EliasFanoPrimeList compressed)
+            return compressed;
+        return encode(primes, 1);
+    }
+
+    /**
+     * Compress a list of primes that are all >= base, e.g. the primes of (m, n] appended to a list already holding the
+     * primes up to m. Values are stored relative to base so the low bits only cover the range actually spanned.
+     * @param primes in ascending order, no even value other than a leading 2
+     * @param base odd, no odd prime in primes is below it
+     * @return EliasFanoPrimeList
+     */
+    public static EliasFanoPrimeList encode(Collection<Integer> primes, int base) {
+        if ((base & 1) == 0 || base < 1)
+            throw new IllegalArgumentException("Base must be a positive odd value, not " + base);
+        PrimeList list = primes instanceof PrimeList primeList
+                ? primeList
+                : PrimeList.of(primes.stream().mapToInt(Integer::intValue).toArray());
+
+        int size = list.size();
+        boolean hasTwo = size > 0 && list.getInt(0) == 2;
+        int first = hasTwo ? 1 : 0;
+        int oddCount = size - first;
+        int maxValue = oddCount == 0 ? 0 : (list.getInt(size - 1) - base) >>> 1;
+        int ratio = oddCount == 0 ? 0 : (int) (((long) maxValue + 1) / oddCount);
+        int lowWidth = ratio == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(ratio);
+        long lowMask = (1L << lowWidth) - 1;
+
+        long highLength = oddCount == 0 ? 0 : ((long) maxValue >>> lowWidth) + oddCount;
+        long[] highBits = new long[(int) ((highLength + 63) >>> 6)];
+        long[] lowBits = new long[(int) (((long) oddCount * lowWidth + 63) >>> 6)];
+        int[] samples = new int[(oddCount >>> SAMPLE_SHIFT) + 1];
+
+        int previous = hasTwo ? 2 : 0;
+        for (int j = 0; j < oddCount; j++) {
+            int prime = list.getInt(first + j);
+            if ((prime & 1) == 0 || prime <= previous)
+                throw new IllegalArgumentException("Not an ascending list of primes, " + prime + " at index " + (first + j));
+            if (prime < base)
+                throw new IllegalArgumentException("Prime " + prime + " at index " + (first + j) + " is below base " + base);
+            previous = prime;
+
+            long value = (prime - base) >>> 1;
+            if (lowWidth > 0) {
+                long bit = (long) j * lowWidth;
+                int word = (int) (bit >>> 6);
+                int shift = (int) (bit & 63);
+                lowBits[word] |= (value & lowMask) << shift;
+                if (shift + lowWidth > 64)
+                    lowBits[word + 1] |= (value & lowMask) >>> (64 - shift);
+            }
+            long position = (value >>> lowWidth) + j;
+            highBits[(int) (position >>> 6)] |= 1L << position;
+            if ((j & ((1 << SAMPLE_SHIFT) - 1)) == 0)
+                samples[j >>> SAMPLE_SHIFT] = (int) position;
+        }
+        return new EliasFanoPrimeList(base, hasTwo, oddCount, lowWidth, lowBits, highBits, samples);
+    }
+
+    /**
+     * Read a list written by writeTo(..), e.g. from a memory mapped file. The arrays are copied onto the heap in bulk,
+     * nothing is decoded or re-encoded.
+     * @param buffer positioned at the start of the list, its position is moved past it
+     * @return EliasFanoPrimeList
+     */
+    public static EliasFanoPrimeList readFrom(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != FILE_MAGIC)
+            throw new IllegalArgumentException("Not an Elias-Fano prime list");
+        int base = buffer.getInt();
+        boolean hasTwo = buffer.getInt() != 0;
+        int oddCount = buffer.getInt();
+        int lowWidth = buffer.getInt();
+        long[] lowBits = new long[buffer.getInt()];
+        long[] highBits = new long[buffer.getInt()];
+        int[] samples = new int[buffer.getInt()];
+        buffer.asLongBuffer().get(lowBits);
+        buffer.position(buffer.position() + 8 * lowBits.length);
+        buffer.asLongBuffer().get(highBits);
+        buffer.position(buffer.position() + 8 * highBits.length);
+        buffer.asIntBuffer().get(samples);
+        buffer.position(buffer.position() + 4 * samples.length);
+        return new EliasFanoPrimeList(base, hasTwo, oddCount, lowWidth, lowBits, highBits, samples);
+    }
+
+    /**
+     * Write the compressed form, little endian: a 32 byte header followed by lowBits, highBits and samples as they are
+     * held, so readFrom(..) only has to copy them back.
+     * @param channel
+     * @throws IOException
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(FILE_MAGIC).putInt(base).putInt(hasTwo ? 1 : 0).putInt(oddCount).putInt(lowWidth)
+                .putInt(lowBits.length).putInt(highBits.length).putInt(samples.length);
+        for (long[] bits : new long[][]{lowBits, highBits}) {
+            for (long word : bits) {
+                if (buffer.remaining() < 8)
+                    drain(buffer, channel);
+                buffer.putLong(word);
+            }
+        }
+        for (int sample : samples) {
+            if (buffer.remaining() < 4)
+                drain(buffer, channel);
+            buffer.putInt(sample);
+        }
+        drain(buffer, channel);
+    }
+
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @param index
+     * @return the prime at index, without boxing
+     */
+    public int getInt(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        if (hasTwo) {
+            if (index == 0)
+                return 2;
+            index--;
+        }
+        return decode(index, select(index));
+    }
+
+    /**
+     * @param value
+     * @return number of primes <= value, by binary search over getInt(..)
+     */
+    public int countUpTo(int value) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getInt(mid) <= value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @param size
+     * @return the first size primes as a view sharing this list's compressed arrays, nothing is copied
+     */
+    public EliasFanoPrimeList headList(int size) {
+        if (size < 0 || size > size())
+            throw new IndexOutOfBoundsException("Size " + size + " out of bounds for length " + size());
+        if (size == size())
+            return this;
+        boolean headHasTwo = hasTwo && size > 0;
+        return new EliasFanoPrimeList(base, headHasTwo, size - (headHasTwo ? 1 : 0), lowWidth, lowBits, highBits, samples);
+    }
+
+    /**
+     * @return the odd value stored as 0, 1 unless encoded with a base
+     */
+    public int base() {
+        return base;
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public int size() {
+        return oddCount + (hasTwo ? 1 : 0);
+    }
+
+    /**
+     * @return approximate heap used by the compressed form, including the shared arrays of a headList(..) view
+     */
+    public long sizeInBytes() {
+        return 8L * (lowBits.length + highBits.length) + 4L * samples.length + 64;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new Cursor();
+    }
+
+    /**
+     * call action with every prime in ascending order, without boxing
+     * @param action
+     */
+    public void forEachInt(IntConsumer action) {
+        Cursor cursor = new Cursor();
+        while (cursor.hasNext()) {
+            action.accept(cursor.nextInt());
+        }
+    }
+
+    /**
+     * @return the primes decompressed into an int[]
+     */
+    public int[] toIntArray() {
+        int[] primes = new int[size()];
+        Cursor cursor = new Cursor();
+        for (int i = 0; i < primes.length; i++) {
+            primes[i] = cursor.nextInt();
+        }
+        return primes;
+    }
+
+    /**
+     * @param j
+     * @return position in highBits of the j-th set bit
+     */
+    private int select(int j) {
+        int sample = j >>> SAMPLE_SHIFT;
+        int position = samples[sample];
+        int remaining = j - (sample << SAMPLE_SHIFT);
+        int word = position >>> 6;
+        long bits = highBits[word] & (-1L << position);
+        int ones;
+        while (remaining >= (ones = Long.bitCount(bits))) {
+            remaining -= ones;
+            bits = highBits[++word];
+        }
+        for (; remaining > 0; remaining--) {
+            bits &= bits - 1;
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @param j index of the odd prime
+     * @param position position of its set bit in highBits
+     * @return the j-th odd prime
+     */
+    private int decode(int j, int position) {
+        int low = 0;
+        if (lowWidth > 0) {
+            long bit = (long) j * lowWidth;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            long value = lowBits[word] >>> shift;
+            if (shift + lowWidth > 64)
+                value |= lowBits[word + 1] << (64 - shift);
+            low = (int) (value & ((1L << lowWidth) - 1));
+        }
+        return ((((position - j) << lowWidth) | low) << 1) + base;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        //views of the same compressed arrays only differ in size
+        if (o instanceof EliasFanoPrimeList other && highBits == other.highBits && lowBits == other.lowBits)
+            return hasTwo == other.hasTwo && oddCount == other.oddCount;
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        //same as List.hashCode() as Integer.hashCode() is the value itself
+        int hashCode = 1;
+        Cursor cursor = new Cursor();
+        while (cursor.hasNext()) {
+            hashCode = 31 * hashCode + cursor.nextInt();
+        }
+        return hashCode;
+    }
+
+    /**
+     * Sequential decoder, walks the set bits of highBits in order rather than selecting each one
+     */
+    private final class Cursor implements PrimitiveIterator.OfInt {
+
+        private int index;
+        private int j;
+        private int word = -1;
+        private long bits;
+
+        @Override
+        public boolean hasNext() {
+            return index < size();
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            if (index++ == 0 && hasTwo)
+                return 2;
+            while (bits == 0) {
+                bits = highBits[++word];
+            }
+            int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            return decode(j++, position);
+        }
+    }
+
+    /**
+     * Writes the primes as a JSON array of numbers, decoding them one at a time from the compressed form
+     */
+    public static final class Serializer extends StdSerializer<EliasFanoPrimeList> {
+
+        public Serializer() {
+            super(EliasFanoPrimeList.class);
+        }
+
+        @Override
+        public void serialize(EliasFanoPrimeList value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray(value, value.size());
+            PrimitiveIterator.OfInt cursor = value.iterator();
+            while (cursor.hasNext()) {
+                generator.writeNumber(cursor.nextInt());
+            }
+            generator.writeEndArray();
+        }
+    }
+}
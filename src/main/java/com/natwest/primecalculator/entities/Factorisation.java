@@ -0,0 +1,7 @@
+package com.natwest.primecalculator.entities;
+
+/**
+ * Immutable Entity class for holding the prime factors of n with multiplicity, in ascending order
+ */
+public record Factorisation(long n, long[] factors) {
+}
@@ -0,0 +1,8 @@
+package com.natwest.primecalculator.entities;
+
+/**
+ * Immutable Entity class for holding the result of a long (past Integer.MAX_VALUE) limit. The primes are produced
+ * lazily, segment by segment, as they are iterated.
+ */
+public record LargePrimeRange(long initial, Iterable<Long> primes) {
+}
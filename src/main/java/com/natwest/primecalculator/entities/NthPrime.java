@@ -0,0 +1,7 @@
+package com.natwest.primecalculator.entities;
+
+/**
+ * Immutable Entity class for holding the n-th prime (1 based, the 1st prime being 2)
+ */
+public record NthPrime(long n, long prime) {
+}
@@ -0,0 +1,7 @@
+package com.natwest.primecalculator.entities;
+
+/**
+ * Immutable Entity class for holding whether n is a prime
+ */
+public record Primality(long n, boolean prime) {
+}
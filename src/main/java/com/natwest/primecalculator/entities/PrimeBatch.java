@@ -0,0 +1,10 @@
+package com.natwest.primecalculator.entities;
+
+import com.natwest.primecalculator.enums.BatchOperationEnum;
+
+/**
+ * Immutable Entity class for holding the per element results of a batch, in the same order as the values sent.
+ * prime is filled in for IS_PRIME, primes for NEXT_PRIME and PREVIOUS_PRIME (0 where there is no such prime).
+ */
+public record PrimeBatch(BatchOperationEnum operation, boolean[] prime, long[] primes) {
+}
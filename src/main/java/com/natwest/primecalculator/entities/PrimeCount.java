@@ -0,0 +1,10 @@
+package com.natwest.primecalculator.entities;
+
+import java.math.BigInteger;
+
+/**
+ * Immutable Entity class for holding the number of primes up to and including a limit, and optionally their sum.
+ * sum is null when it wasn't asked for.
+ */
+public record PrimeCount(long initial, long count, BigInteger sum) {
+}
@@ -0,0 +1,169 @@
+package com.natwest.primecalculator.entities;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable, primitive int[] backed list of primes in ascending order, used as the primes of a PrimeRange.
+ *
+ * A List<Integer> of boxed primes costs a 16 byte Integer plus a 4 to 8 byte reference per prime, here it is 4 bytes.
+ * It is still a List<Integer> so callers and equals(..) work as before, but getInt(..) and forEachInt(..) read the ints
+ * without boxing, and the Serializer writes them straight to the JSON output without allocating anything per prime.
+ */
+@JsonSerialize(using = PrimeList.Serializer.class)
+public final class PrimeList extends AbstractList<Integer> implements RandomAccess {
+
+    private static final PrimeList EMPTY = new PrimeList(new int[0]);
+
+    /**
+     * the primes in ascending order
+     */
+    private final int[] primes;
+
+    private PrimeList(int[] primes) {
+        this.primes = primes;
+    }
+
+    /**
+     * @param primes in ascending order, the list takes ownership and the array must not be changed afterwards
+     * @return PrimeList
+     */
+    public static PrimeList of(int[] primes) {
+        return primes.length == 0 ? EMPTY : new PrimeList(primes);
+    }
+
+    /**
+     * @param index
+     * @return the prime at index, without boxing
+     */
+    public int getInt(int index) {
+        return primes[index];
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public int size() {
+        return primes.length;
+    }
+
+    /**
+     * call action with every prime in ascending order, without boxing
+     * @param action
+     */
+    public void forEachInt(IntConsumer action) {
+        for (int prime : primes) {
+            action.accept(prime);
+        }
+    }
+
+    /**
+     * @param value
+     * @return number of primes <= value, by binary search
+     */
+    public int countUpTo(int value) {
+        int index = Arrays.binarySearch(primes, value);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * @param size
+     * @return the first size primes, copied
+     */
+    public PrimeList headList(int size) {
+        return size == primes.length ? this : of(Arrays.copyOf(primes, size));
+    }
+
+    /**
+     * @return a copy of the primes
+     */
+    public int[] toIntArray() {
+        return primes.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof PrimeList other)
+            return Arrays.equals(primes, other.primes);
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        //same as List.hashCode() as Integer.hashCode() is the value itself
+        int hashCode = 1;
+        for (int prime : primes) {
+            hashCode = 31 * hashCode + prime;
+        }
+        return hashCode;
+    }
+
+    /**
+     * Collects primes into a presized int[] with no boxing. Use it as the IntConsumer of the sieves' forEachPrime(..).
+     */
+    public static final class Builder implements IntConsumer {
+
+        private int[] primes;
+        private int size;
+
+        /**
+         * constructor
+         * @param expectedSize e.g. an upper bound on the number of primes, the array grows if it is exceeded
+         */
+        public Builder(int expectedSize) {
+            this.primes = new int[Math.max(expectedSize, 8)];
+        }
+
+        /**
+         * add the next prime, primes must be added in ascending order
+         * @param prime
+         */
+        public void add(int prime) {
+            if (size == primes.length)
+                primes = Arrays.copyOf(primes, primes.length + (primes.length >> 1));
+            primes[size++] = prime;
+        }
+
+        @Override
+        public void accept(int prime) {
+            add(prime);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the list, trimmed to size so a cached result holds no spare capacity
+         */
+        public PrimeList build() {
+            return size == 0 ? EMPTY : new PrimeList(size == primes.length ? primes : Arrays.copyOf(primes, size));
+        }
+    }
+
+    /**
+     * Writes the primes as a JSON array of numbers straight from the int[]
+     */
+    public static final class Serializer extends StdSerializer<PrimeList> {
+
+        public Serializer() {
+            super(PrimeList.class);
+        }
+
+        @Override
+        public void serialize(PrimeList value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeArray(value.primes, 0, value.primes.length);
+        }
+    }
+}
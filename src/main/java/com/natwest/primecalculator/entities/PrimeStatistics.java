@@ -0,0 +1,12 @@
+package com.natwest.primecalculator.entities;
+
+import java.util.Map;
+
+/**
+ * Immutable Entity class for holding the gap and k-tuple statistics of the primes within [from, to]. maxGapStart is
+ * the prime the first largest gap starts at (-1 with fewer than 2 primes) and gaps holds the number of gaps between
+ * consecutive primes by gap length.
+ */
+public record PrimeStatistics(long from, long to, long count, long maxGap, long maxGapStart, long twins, long cousins,
+                              long sexy, long triplets, long quadruplets, Map<Integer, Long> gaps) {
+}
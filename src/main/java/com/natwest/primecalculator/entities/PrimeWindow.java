@@ -0,0 +1,7 @@
+package com.natwest.primecalculator.entities;
+
+/**
+ * Immutable Entity class for holding the primes within a window [from, to], in ascending order.
+ */
+public record PrimeWindow(long from, long to, long[] primes) {
+}
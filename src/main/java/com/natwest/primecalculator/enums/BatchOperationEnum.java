@@ -0,0 +1,10 @@
+package com.natwest.primecalculator.enums;
+
+/**
+ * Enum for the operations supported by the batch endpoint
+ */
+public enum BatchOperationEnum {
+    IS_PRIME,
+    NEXT_PRIME,
+    PREVIOUS_PRIME
+}
@@ -8,6 +8,12 @@ public enum SieveAndVersionEnum {
     ERATOSTHENESV2,
     ERATOSTHENESV3,
     ERATOSTHENESV4,
+    ERATOSTHENESV5,
+    ERATOSTHENESV6,
+    ERATOSTHENESV7,
     ATKINV1,
-    SUNDARAMV1;
+    ATKINV2,
+    SUNDARAMV1,
+    SUNDARAMV2,
+    EULERV1;
 }
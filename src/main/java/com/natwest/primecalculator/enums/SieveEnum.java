@@ -6,5 +6,6 @@ package com.natwest.primecalculator.enums;
 public enum SieveEnum {
     ERATOSTHENES,
     ATKIN,
-    SUNDARAM;
+    SUNDARAM,
+    EULER;
 }
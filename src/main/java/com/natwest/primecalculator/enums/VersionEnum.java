@@ -4,5 +4,8 @@ public enum VersionEnum {
     V1,
     V2,
     V3,
-    V4
+    V4,
+    V5,
+    V6,
+    V7
 }
@@ -1,5 +1,7 @@
 package com.natwest.primecalculator.forkjoin;
 
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
+
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RecursiveAction;
 
@@ -18,9 +20,9 @@ public class EratosthenesRecursiveAction extends RecursiveAction {
      */
     private int high;
     /**
-     * array with the values to search
+     * bitmap with the values to search
      */
-    private boolean[] array;
+    private OddPrimeBitmap bitmap;
     /**
      * Concurrent Map to store the results
      */
@@ -30,13 +32,13 @@ public class EratosthenesRecursiveAction extends RecursiveAction {
      * constructor
      * @param low
      * @param high
-     * @param array
+     * @param bitmap
      * @param result
      */
-    public EratosthenesRecursiveAction(int low, int high, boolean[] array, ConcurrentMap<Integer, Integer> result) {
+    public EratosthenesRecursiveAction(int low, int high, OddPrimeBitmap bitmap, ConcurrentMap<Integer, Integer> result) {
         this.low = low;
         this.high = high;
-        this.array = array;
+        this.bitmap = bitmap;
         this.result = result;
     }
 
@@ -47,15 +49,11 @@ public class EratosthenesRecursiveAction extends RecursiveAction {
     protected void compute() {
         //divide and conquer. in chunks of 1000
         if(high - low <= 1000) {
-            for(int i = low; i < high; ++i){
-                if(array[i]){
-                    result.put(i, i);
-                }
-            }
+            bitmap.forEachPrime(low, high - 1, i -> result.put(i, i));
         }else{
             int mid = low + (high - low) / 2;
-            EratosthenesRecursiveAction left  = new EratosthenesRecursiveAction(low, mid, array, result);
-            EratosthenesRecursiveAction right = new EratosthenesRecursiveAction(mid, high, array, result);
+            EratosthenesRecursiveAction left  = new EratosthenesRecursiveAction(low, mid, bitmap, result);
+            EratosthenesRecursiveAction right = new EratosthenesRecursiveAction(mid, high, bitmap, result);
             invokeAll(left, right);
         }
     }
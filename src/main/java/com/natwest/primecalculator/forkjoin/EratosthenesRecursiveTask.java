@@ -1,14 +1,15 @@
 package com.natwest.primecalculator.forkjoin;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
+
+import java.util.Arrays;
 import java.util.concurrent.RecursiveTask;
 
 /**
- * Seive of Eratosthenes RecursiveTask class for acquiring all result primes. It will return a List of discovered primes.
+ * Seive of Eratosthenes RecursiveTask class for acquiring all result primes. It will return an int[] of discovered primes.
  * This will be used with ForkJoin for one of the concurrent experiments for Seive of Eratosthenes.
  */
-public class EratosthenesRecursiveTask extends RecursiveTask<List<Integer>> {
+public class EratosthenesRecursiveTask extends RecursiveTask<int[]> {
 
     /**
      * lower index to start from
@@ -19,47 +20,45 @@ public class EratosthenesRecursiveTask extends RecursiveTask<List<Integer>> {
      */
     private int high;
     /**
-     * array with the values to search
+     * bitmap with the values to search
      */
-    private boolean[] array;
+    private OddPrimeBitmap bitmap;
 
     /**
      * constructor
      * @param low
      * @param high
-     * @param array
+     * @param bitmap
      */
-    public EratosthenesRecursiveTask(int low, int high, boolean[] array) {
+    public EratosthenesRecursiveTask(int low, int high, OddPrimeBitmap bitmap) {
         this.low = low;
         this.high = high;
-        this.array = array;
+        this.bitmap = bitmap;
     }
 
     /**
      * compute implementation. divide and conquer.
      */
     @Override
-    protected List<Integer> compute() {
+    protected int[] compute() {
         //divide and conquer. in chunks of 1000
         if(high - low <= 1000) {
-            List<Integer> primes = new ArrayList<>();
-
-            for(int i = low; i < high; ++i){
-                if(array[i]){
-                    primes.add(i);
-                }
-            }
-            return primes;
+            //at most every odd value and 2 can be a prime
+            int[] primes = new int[(high - low) / 2 + 2];
+            int[] size = {0};
+            bitmap.forEachPrime(low, high - 1, prime -> primes[size[0]++] = prime);
+            return Arrays.copyOf(primes, size[0]);
         }else{
             int mid = low + (high - low) / 2;
-            EratosthenesRecursiveTask left  = new EratosthenesRecursiveTask(low, mid, array);
-            EratosthenesRecursiveTask right = new EratosthenesRecursiveTask(mid, high, array);
+            EratosthenesRecursiveTask left  = new EratosthenesRecursiveTask(low, mid, bitmap);
+            EratosthenesRecursiveTask right = new EratosthenesRecursiveTask(mid, high, bitmap);
             left.fork();
-            List<Integer> rightResult = right.compute();
-            List<Integer> leftResult  = left.join();
+            int[] rightResult = right.compute();
+            int[] leftResult  = left.join();
 
-            leftResult.addAll(rightResult);
-            return leftResult;
+            int[] primes = Arrays.copyOf(leftResult, leftResult.length + rightResult.length);
+            System.arraycopy(rightResult, 0, primes, leftResult.length, rightResult.length);
+            return primes;
         }
     }
 }
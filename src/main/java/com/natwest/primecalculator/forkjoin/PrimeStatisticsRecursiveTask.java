@@ -0,0 +1,95 @@
+package com.natwest.primecalculator.forkjoin;
+
+import com.natwest.primecalculator.sieve.PrimeGapStatistics;
+import com.natwest.primecalculator.sieve.SegmentSieve;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * RecursiveTask class for working out the PrimeGapStatistics of a range in parallel with any SegmentSieve. The range
+ * [from, to] is split into segments in the same way as SegmentRecursiveAction, but rather than keeping the primes of
+ * each segment every leaf task feeds them straight into its own PrimeGapStatistics, and the partial statistics are
+ * merged back in order on the way up. No prime is ever stored.
+ */
+public class PrimeStatisticsRecursiveTask extends RecursiveTask<PrimeGapStatistics> {
+
+    /**
+     * number of segments a single task sieves before it stops splitting
+     */
+    private static final long SEGMENTS_PER_TASK = 8;
+
+    /**
+     * first segment index
+     */
+    private long low;
+    /**
+     * highest segment index (exclusive)
+     */
+    private long high;
+    /**
+     * lowest value (inclusive) of the whole range, segment 0 starts here
+     */
+    private long from;
+    /**
+     * highest value (inclusive) of the whole range
+     */
+    private long to;
+    /**
+     * sieve used for each run of segments, must be safe to call from several threads at once
+     */
+    private SegmentSieve sieve;
+
+    /**
+     * constructor
+     * @param low
+     * @param high
+     * @param from
+     * @param to
+     * @param sieve
+     */
+    public PrimeStatisticsRecursiveTask(long low, long high, long from, long to, SegmentSieve sieve) {
+        this.low = low;
+        this.high = high;
+        this.from = from;
+        this.to = to;
+        this.sieve = sieve;
+    }
+
+    /**
+     * Work out the statistics of [from, to] in parallel on the ForkJoin common pool.
+     * @param from inclusive
+     * @param to inclusive
+     * @param sieve
+     * @return PrimeGapStatistics
+     */
+    public static PrimeGapStatistics invoke(long from, long to, SegmentSieve sieve) {
+        long segmentCount = (to - from) / SegmentRecursiveAction.SEGMENT_SPAN + 1;
+        return ForkJoinPool.commonPool().invoke(new PrimeStatisticsRecursiveTask(0, segmentCount, from, to, sieve));
+    }
+
+    /**
+     * compute implementation. divide and conquer.
+     * @return PrimeGapStatistics of segments [low, high)
+     */
+    @Override
+    protected PrimeGapStatistics compute() {
+        //divide and conquer. in runs of SEGMENTS_PER_TASK segments
+        if(high - low <= SEGMENTS_PER_TASK) {
+            long runFrom = from + low * SegmentRecursiveAction.SEGMENT_SPAN;
+            long runTo = Math.min(to, from + high * SegmentRecursiveAction.SEGMENT_SPAN - 1);
+            PrimeGapStatistics statistics = new PrimeGapStatistics(runFrom, runTo);
+            sieve.forEachPrime(runFrom, runTo, statistics::accept);
+            return statistics;
+        }else{
+            long mid = low + (high - low) / 2;
+            PrimeStatisticsRecursiveTask left  = new PrimeStatisticsRecursiveTask(low, mid, from, to, sieve);
+            PrimeStatisticsRecursiveTask right = new PrimeStatisticsRecursiveTask(mid, high, from, to, sieve);
+            left.fork();
+            PrimeGapStatistics rightResult = right.compute();
+            PrimeGapStatistics leftResult  = left.join();
+
+            return leftResult.merge(rightResult);
+        }
+    }
+}
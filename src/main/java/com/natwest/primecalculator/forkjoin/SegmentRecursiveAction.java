@@ -0,0 +1,131 @@
+package com.natwest.primecalculator.forkjoin;
+
+import com.natwest.primecalculator.sieve.SegmentSieve;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * RecursiveAction class for sieving a range in parallel with any SegmentSieve (Eratosthenes, Atkin). The range
+ * [from, to] is split into segments of SegmentedSieve.SEGMENT_SIZE odd numbers and every leaf task sieves its own run
+ * of segments into its own segment buffer, so workers never write to a shared array and there is no false sharing
+ * between them. The primes of segment k are written to result[k] so the caller can merge them back in order.
+ *
+ * Primes are stored relative to from (prime - from) so the results fit in an int[] per segment even when the range
+ * is past Integer.MAX_VALUE, as long as the range itself is narrower than that.
+ */
+public class SegmentRecursiveAction extends RecursiveAction {
+
+    /**
+     * numbers covered by one segment (odd and even)
+     */
+    public static final long SEGMENT_SPAN = 2L * SegmentedSieve.SEGMENT_SIZE;
+
+    /**
+     * number of segments a single task sieves before it stops splitting
+     */
+    private static final int SEGMENTS_PER_TASK = 2;
+
+    /**
+     * first segment index
+     */
+    private int low;
+    /**
+     * highest segment index (exclusive)
+     */
+    private int high;
+    /**
+     * lowest value (inclusive) of the whole range, segment 0 starts here
+     */
+    private long from;
+    /**
+     * highest value (inclusive) of the whole range
+     */
+    private long to;
+    /**
+     * sieve used for each segment, must be safe to call from several threads at once
+     */
+    private SegmentSieve sieve;
+    /**
+     * primes found in each segment relative to from, indexed by segment
+     */
+    private int[][] result;
+
+    /**
+     * constructor
+     * @param low
+     * @param high
+     * @param from
+     * @param to
+     * @param sieve
+     * @param result
+     */
+    public SegmentRecursiveAction(int low, int high, long from, long to, SegmentSieve sieve, int[][] result) {
+        this.low = low;
+        this.high = high;
+        this.from = from;
+        this.to = to;
+        this.sieve = sieve;
+        this.result = result;
+    }
+
+    /**
+     * Sieve [from, to] in parallel on the ForkJoin common pool.
+     * @param from inclusive
+     * @param to inclusive, to - from must be < Integer.MAX_VALUE
+     * @param sieve
+     * @return the primes of each segment in order, relative to from
+     */
+    public static int[][] invoke(long from, long to, SegmentSieve sieve) {
+        int segmentCount = (int) ((to - from) / SEGMENT_SPAN) + 1;
+        int[][] segmentPrimes = new int[segmentCount][];
+        ForkJoinPool.commonPool().invoke(new SegmentRecursiveAction(0, segmentCount, from, to, sieve, segmentPrimes));
+        return segmentPrimes;
+    }
+
+    /**
+     * Merge the per-segment results of invoke(..) back into one ascending array of primes
+     * @param from the from passed to invoke(..)
+     * @param segmentPrimes
+     * @return long[]
+     */
+    public static long[] merge(long from, int[][] segmentPrimes) {
+        int total = 0;
+        for (int[] segment : segmentPrimes) {
+            total += segment.length;
+        }
+        long[] primes = new long[total];
+        int i = 0;
+        for (int[] segment : segmentPrimes) {
+            for (int prime : segment) {
+                primes[i++] = from + prime;
+            }
+        }
+        return primes;
+    }
+
+    /**
+     * compute implementation. divide and conquer.
+     */
+    @Override
+    protected void compute() {
+        //divide and conquer. in runs of SEGMENTS_PER_TASK segments
+        if(high - low <= SEGMENTS_PER_TASK) {
+            for (int k = low; k < high; k++) {
+                long segmentFrom = from + k * SEGMENT_SPAN;
+                long segmentTo = Math.min(to, segmentFrom + SEGMENT_SPAN - 1);
+                int[] primes = new int[SegmentedSieve.maxPrimesInRange(segmentFrom, segmentTo)];
+                int[] count = {0};
+                sieve.forEachPrime(segmentFrom, segmentTo, prime -> primes[count[0]++] = (int) (prime - from));
+                result[k] = Arrays.copyOf(primes, count[0]);
+            }
+        }else{
+            int mid = low + (high - low) / 2;
+            SegmentRecursiveAction left  = new SegmentRecursiveAction(low, mid, from, to, sieve, result);
+            SegmentRecursiveAction right = new SegmentRecursiveAction(mid, high, from, to, sieve, result);
+            invokeAll(left, right);
+        }
+    }
+}
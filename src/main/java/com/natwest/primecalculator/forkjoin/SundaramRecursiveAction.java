@@ -0,0 +1,73 @@
+package com.natwest.primecalculator.forkjoin;
+
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Seive of Sundaram RecursiveAction class for marking all the i + j + 2ij indexes in parallel. Each task owns a
+ * disjoint range of indexes of the marked bitmap, aligned to 512 bits (a 64 byte cache line), and runs the outer i loop
+ * only for the indexes within its own range. Tasks therefore never write to the same word or cache line.
+ */
+public class SundaramRecursiveAction extends RecursiveAction {
+
+    /**
+     * split on cache line boundaries, 512 bits = 8 longs = 64 bytes
+     */
+    private static final int ALIGNMENT = 512;
+    /**
+     * number of indexes a single task marks before it stops splitting
+     */
+    private static final int INDEXES_PER_TASK = 1 << 18;
+
+    /**
+     * lowest index to mark
+     */
+    private long low;
+    /**
+     * highest index to mark (exclusive)
+     */
+    private long high;
+    /**
+     * Sundaram's marked array
+     */
+    private OddPrimeBitmap marked;
+
+    /**
+     * constructor
+     * @param low
+     * @param high
+     * @param marked
+     */
+    public SundaramRecursiveAction(long low, long high, OddPrimeBitmap marked) {
+        this.low = low;
+        this.high = high;
+        this.marked = marked;
+    }
+
+    /**
+     * compute implementation. divide and conquer.
+     */
+    @Override
+    protected void compute() {
+        //divide and conquer. in ranges of INDEXES_PER_TASK indexes
+        if(high - low <= INDEXES_PER_TASK) {
+            // for a given i, i + j + 2ij = i + j(2i + 1) so the indexes to mark are every (2i + 1)th index starting
+            // from j = i i.e. 2i(i + 1). Stop once that first index is past this task's range.
+            for (long i = 1; 2 * i * (i + 1) < high; i++) {
+                long step = 2 * i + 1;
+                long index = 2 * i * (i + 1);
+                if (index < low)
+                    index += (low - index + step - 1) / step * step;
+                for (; index < high; index += step) {
+                    marked.markIndex(index);
+                }
+            }
+        }else{
+            long mid = (low + (high - low) / 2) / ALIGNMENT * ALIGNMENT;
+            SundaramRecursiveAction left  = new SundaramRecursiveAction(low, mid, marked);
+            SundaramRecursiveAction right = new SundaramRecursiveAction(mid, high, marked);
+            invokeAll(left, right);
+        }
+    }
+}
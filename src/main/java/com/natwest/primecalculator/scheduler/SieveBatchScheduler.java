@@ -0,0 +1,200 @@
+package com.natwest.primecalculator.scheduler;
+
+import com.natwest.primecalculator.cache.PrimeStore;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.service.SieveService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules the sieving of prime lists the PrimeStore doesn't hold yet, so that requests arriving together share one
+ * sieve pass.
+ *
+ *     single flight   a limit covered by a computation already running, the same limit or a lower one, waits on it
+ *     micro batching  any other limit joins the pending batch. The first request opens it, batchWindow later it is
+ *                     closed and sieved once up to the largest limit asked for, every waiter gets that one result
+ *
+ * A burst of N different limits within the window is therefore one sieve rather than N, at the cost of at most
+ * batchWindow added latency, 0 turns batching off and leaves just single flight. Sieving runs on its own threads so a
+ * waiter can give up without cancelling the work, its result still lands in the store for the next request. The size
+ * of every batch (primecalculator.sieve.batch.size) and how long each request waited for its batch to close
+ * (primecalculator.sieve.batch.wait) are published to /actuator/metrics.
+ */
+@Component
+@Slf4j
+public class SieveBatchScheduler {
+
+    /**
+     * how long a batch stays open for more requests, in milliseconds
+     */
+    private final long batchWindowMillis;
+
+    private final PrimeStore primeStore;
+
+    /**
+     * computations running, by the limit they sieve up to
+     */
+    private final ConcurrentSkipListMap<Integer, CompletableFuture<PrimeRange>> inFlight = new ConcurrentSkipListMap<>();
+
+    /**
+     * batch still gathering requests, null if none. Guarded by this.
+     */
+    private Batch pending;
+
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private final ExecutorService sieveExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "prime-sieve-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ScheduledExecutorService batchCloser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "prime-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * constructor
+     * @param primeStore
+     * @param meterRegistry
+     * @param batchWindowMillis how long a batch stays open for more requests, 0 for no batching
+     */
+    public SieveBatchScheduler(PrimeStore primeStore, MeterRegistry meterRegistry,
+                               @Value("${primecalculator.primes.batch-window:5}") long batchWindowMillis) {
+        this.primeStore = primeStore;
+        this.batchWindowMillis = batchWindowMillis;
+        this.batchSize = DistributionSummary.builder("primecalculator.sieve.batch.size")
+                .description("Requests served by one sieve pass")
+                .register(meterRegistry);
+        this.batchWait = Timer.builder("primecalculator.sieve.batch.wait")
+                .description("Time a request waited for its batch to close before sieving started")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param sieveService used if the store is still empty
+     * @param upToAndIncluding
+     * @return the result of the computation covering upToAndIncluding, its limit may be higher. Cancelling it has no
+     * effect on the computation.
+     */
+    public CompletableFuture<PrimeRange> schedule(SieveService sieveService, int upToAndIncluding) {
+        Map.Entry<Integer, CompletableFuture<PrimeRange>> covering = inFlight.ceilingEntry(upToAndIncluding);
+        if (covering != null)
+            return covering.getValue().copy();
+
+        Batch batch;
+        boolean opened = false;
+        synchronized (this) {
+            if (pending == null) {
+                pending = new Batch(sieveService);
+                opened = true;
+            }
+            batch = pending;
+            batch.add(upToAndIncluding);
+        }
+        if (opened) {
+            if (batchWindowMillis > 0)
+                batchCloser.schedule(() -> close(batch), batchWindowMillis, TimeUnit.MILLISECONDS);
+            else
+                close(batch);
+        }
+        return batch.result.copy();
+    }
+
+    /**
+     * Stop batch gathering requests and sieve it up to its largest limit
+     * @param batch
+     */
+    private void close(Batch batch) {
+        synchronized (this) {
+            //registered before the batch stops gathering, so a request arriving now either joins or finds it running
+            inFlight.merge(batch.maxLimit, batch.result, (running, closing) -> running);
+            pending = null;
+        }
+        long closedAt = System.nanoTime();
+        for (long requestedAt : batch.requestedAt) {
+            batchWait.record(closedAt - requestedAt, TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.requestedAt.size());
+        log.debug("Sieve batch of {} requests up to {}", batch.requestedAt.size(), batch.maxLimit);
+
+        sieveExecutor.execute(() -> {
+            PrimeRange primeRange = null;
+            Throwable failure = null;
+            try {
+                primeRange = computePrimes(batch.sieveService, batch.maxLimit);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            //unregistered before any waiter wakes up, so a retry after a failure sieves again. After a success the
+            //result is already in the store.
+            inFlight.remove(batch.maxLimit, batch.result);
+            if (failure == null)
+                batch.result.complete(primeRange);
+            else
+                batch.result.completeExceptionally(failure);
+        });
+    }
+
+    /**
+     * Past the store's limit it is grown by sieving just the new range, only the first fill uses the requested sieve
+     * @param sieveService
+     * @param upToAndIncluding
+     * @return the stored result up to upToAndIncluding
+     */
+    private PrimeRange computePrimes(SieveService sieveService, int upToAndIncluding) {
+        final PrimeRange extended = primeStore.extendTo(upToAndIncluding);
+        if (extended != null)
+            return extended;
+        final PrimeRange sieved = primeStore.put(sieveService.getPrimeRange(upToAndIncluding));
+        final PrimeRange stored = primeStore.get(upToAndIncluding);
+        return stored != null ? stored : sieved;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchCloser.shutdownNow();
+        sieveExecutor.shutdownNow();
+    }
+
+    /**
+     * requests gathered for one sieve pass
+     */
+    private static final class Batch {
+
+        private final SieveService sieveService;
+        private final CompletableFuture<PrimeRange> result = new CompletableFuture<>();
+        private final List<Long> requestedAt = new ArrayList<>();
+        private int maxLimit = Integer.MIN_VALUE;
+
+        private Batch(SieveService sieveService) {
+            this.sieveService = sieveService;
+        }
+
+        private void add(int limit) {
+            maxLimit = Math.max(maxLimit, limit);
+            requestedAt.add(System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.natwest.primecalculator.service;
+
+public interface FactorisationService {
+
+    /**
+     * get the prime factors of n with multiplicity, in ascending order, e.g. 360 => [2, 2, 2, 3, 3, 5]
+     * @param n >= 1, 1 has no prime factors
+     * @return long[]
+     */
+    long[] factorise(final long n);
+}
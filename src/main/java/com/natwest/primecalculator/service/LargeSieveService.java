@@ -0,0 +1,19 @@
+package com.natwest.primecalculator.service;
+
+import com.natwest.primecalculator.entities.LargePrimeRange;
+
+public interface LargeSieveService {
+
+    /**
+     * get the prime range for a limit that may be past Integer.MAX_VALUE
+     * @param limit
+     * @return LargePrimeRange
+     */
+    LargePrimeRange getPrimeRange(final long limit);
+
+    /**
+     * highest limit supported by this service
+     * @return long
+     */
+    long getMaxLimit();
+}
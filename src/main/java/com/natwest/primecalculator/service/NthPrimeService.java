@@ -0,0 +1,19 @@
+package com.natwest.primecalculator.service;
+
+import com.natwest.primecalculator.entities.NthPrime;
+
+public interface NthPrimeService {
+
+    /**
+     * get the n-th prime, 1 based
+     * @param n
+     * @return NthPrime
+     */
+    NthPrime getNthPrime(final long n);
+
+    /**
+     * highest n supported by this service
+     * @return long
+     */
+    long getMaxN();
+}
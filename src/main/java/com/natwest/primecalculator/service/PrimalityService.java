@@ -0,0 +1,23 @@
+package com.natwest.primecalculator.service;
+
+public interface PrimalityService {
+
+    /**
+     * check whether n is a prime without sieving up to it
+     * @param n any long, anything below 2 is not a prime
+     * @return boolean
+     */
+    boolean isPrime(final long n);
+
+    /**
+     * @param n
+     * @return the smallest prime > n, or 0 if there is none below 2^63
+     */
+    long nextPrime(final long n);
+
+    /**
+     * @param n
+     * @return the largest prime < n, or 0 if n <= 2
+     */
+    long previousPrime(final long n);
+}
@@ -0,0 +1,20 @@
+package com.natwest.primecalculator.service;
+
+import com.natwest.primecalculator.entities.PrimeCount;
+
+public interface PrimeCountService {
+
+    /**
+     * get the number of primes up to and including limit without listing them
+     * @param limit
+     * @param includeSum also work out the sum of the primes
+     * @return PrimeCount
+     */
+    PrimeCount getPrimeCount(final long limit, final boolean includeSum);
+
+    /**
+     * highest limit supported by this service
+     * @return long
+     */
+    long getMaxLimit();
+}
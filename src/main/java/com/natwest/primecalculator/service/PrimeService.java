@@ -1,8 +1,18 @@
 package com.natwest.primecalculator.service;
 
+import com.natwest.primecalculator.entities.Factorisation;
+import com.natwest.primecalculator.entities.LargePrimeRange;
+import com.natwest.primecalculator.entities.NthPrime;
+import com.natwest.primecalculator.entities.Primality;
+import com.natwest.primecalculator.entities.PrimeBatch;
+import com.natwest.primecalculator.entities.PrimeCount;
 import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeStatistics;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import com.natwest.primecalculator.enums.BatchOperationEnum;
 import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * PrimeService
@@ -17,4 +27,89 @@ public interface PrimeService {
      * @return PrimeRange
      */
     public PrimeRange getPrimes(SieveEnum sieve, VersionEnum version, Integer upToAndIncluding);
+
+    /**
+     * Get Primes for a limit that may be past Integer.MAX_VALUE. The primes are produced lazily, segment by segment.
+     * @param upToAndIncluding
+     * @return LargePrimeRange
+     */
+    public LargePrimeRange getLargePrimes(Long upToAndIncluding);
+
+    /**
+     * Get the primes up to and including the supplied limit as a JSON body that is written while they are sieved, so
+     * memory stays flat and the first bytes go out straight away
+     * @param upToAndIncluding
+     * @return StreamingResponseBody
+     */
+    public StreamingResponseBody getPrimeStream(Long upToAndIncluding);
+
+    /**
+     * Get the number of primes up to and including the supplied limit, and optionally their sum, without listing them
+     * @param upToAndIncluding
+     * @param includeSum
+     * @return PrimeCount
+     */
+    public PrimeCount getPrimeCount(Long upToAndIncluding, boolean includeSum);
+
+    /**
+     * Get the n-th prime (1 based) without sieving all the primes below it
+     * @param n
+     * @return NthPrime
+     */
+    public NthPrime getNthPrime(Long n);
+
+    /**
+     * Check whether n is a prime without sieving up to it
+     * @param n
+     * @return Primality
+     */
+    public Primality isPrime(Long n);
+
+    /**
+     * Run one of isPrime, nextPrime or previousPrime for every value, in parallel chunks
+     * @param operation
+     * @param values
+     * @return PrimeBatch with one result per value, in the same order
+     */
+    public PrimeBatch getPrimeBatch(BatchOperationEnum operation, long[] values);
+
+    /**
+     * Get the primes within [from, to] using the supplied Sieve and version, if that version can sieve a window on its
+     * own without sieving from 2
+     * @param sieve
+     * @param version
+     * @param from inclusive
+     * @param to inclusive
+     * @return PrimeWindow
+     */
+    public PrimeWindow getPrimesInRange(SieveEnum sieve, VersionEnum version, Long from, Long to);
+
+    /**
+     * Get the prime factors of n with multiplicity, in ascending order
+     * @param n >= 1
+     * @return Factorisation
+     */
+    public Factorisation getFactors(Long n);
+
+    /**
+     * Factorise every value, in parallel chunks
+     * @param values each >= 1
+     * @return Factorisation[] with one result per value, in the same order
+     */
+    public Factorisation[] getFactorBatch(long[] values);
+
+    /**
+     * Get the gap and k-tuple statistics of the primes up to and including the supplied limit without listing them
+     * @param upToAndIncluding
+     * @return PrimeStatistics
+     */
+    public PrimeStatistics getPrimeStatistics(Long upToAndIncluding);
+
+    /**
+     * Get the gap and k-tuple statistics of the primes within [from, to] without listing them
+     * @param from inclusive
+     * @param to inclusive
+     * @return PrimeStatistics
+     */
+    public PrimeStatistics getPrimeStatistics(Long from, Long to);
 }
@@ -0,0 +1,20 @@
+package com.natwest.primecalculator.service;
+
+import com.natwest.primecalculator.entities.PrimeStatistics;
+
+public interface PrimeStatisticsService {
+
+    /**
+     * get the gap and k-tuple statistics of the primes within [from, to] without listing them
+     * @param from inclusive
+     * @param to inclusive
+     * @return PrimeStatistics
+     */
+    PrimeStatistics getPrimeStatistics(final long from, final long to);
+
+    /**
+     * widest range (to - from + 1) supported by this service
+     * @return long
+     */
+    long getMaxWidth();
+}
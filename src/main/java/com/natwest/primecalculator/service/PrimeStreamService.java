@@ -0,0 +1,22 @@
+package com.natwest.primecalculator.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface PrimeStreamService {
+
+    /**
+     * write the primes up to and including limit to out as the JSON of a PrimeRange, i.e.
+     * {"initial":limit,"primes":[2,3,5,...]}, segment by segment as they are sieved
+     * @param limit
+     * @param out
+     * @throws IOException if writing to out fails, e.g. the client went away
+     */
+    void writePrimes(final long limit, OutputStream out) throws IOException;
+
+    /**
+     * highest limit supported by this service
+     * @return long
+     */
+    long getMaxLimit();
+}
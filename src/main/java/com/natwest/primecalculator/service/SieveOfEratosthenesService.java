@@ -1,32 +1,31 @@
 package com.natwest.primecalculator.service;
 
-import java.util.Arrays;
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
 
 
 public interface SieveOfEratosthenesService extends SieveService {
 
     /**
      * Helper method to reduce code duplication for my various versions of sieve of eratosthenes.
-     * @param limit
-     * @return boolean[]
+     *
+     * The sieve is held in a bit-packed, odd-only OddPrimeBitmap (1 bit per odd number) rather than a boolean[] of
+     * size limit + 1. Even numbers are never stored so only odd multiples of each odd prime need crossing off.
+     * @param limit must be >= 1
+     * @return OddPrimeBitmap
      */
-    default boolean[] performEratosthenesMainLogic(int limit) {
-        //create array of booleans "isPrimeArray[0..limit]" with all entries set to true.
-        // isPrimeArray[i] will eventually be set to false if its not a prime
-        boolean[] isPrimeArray = new boolean[limit + 1];
-        Arrays.fill(isPrimeArray, true);
+    default OddPrimeBitmap performEratosthenesMainLogic(int limit) {
+        //all odd entries start off as prime candidates. isPrime(i) will eventually be false if its not a prime
+        OddPrimeBitmap isPrimeBitmap = new OddPrimeBitmap(limit);
 
-        //starting from 2, iterate up until a^2, is greater than 'limit'.
-        for (int a = 2; a * a <= limit; a++) {
-            // If isPrimeArray[a] is true, then it is a prime
-            if (isPrimeArray[a]) {
-                // Update all multiples of a >= a^2 and <= 'limit', to false as
+        //starting from 3, iterate over the odd numbers up until a^2, is greater than 'limit'.
+        for (int a = 3; (long) a * a <= limit; a += 2) {
+            // If a is still a candidate, then it is a prime
+            if (isPrimeBitmap.isPrime(a)) {
+                // Cross off all odd multiples of a >= a^2 and <= 'limit' as
                 // they cant be primes (they can be divided by a).
-                for (int i = a * a; i <= limit; i += a) {
-                    isPrimeArray[i] = false;
-                }
+                isPrimeBitmap.crossOffMultiples(a);
             }
         }
-        return isPrimeArray;
+        return isPrimeBitmap;
     }
 }
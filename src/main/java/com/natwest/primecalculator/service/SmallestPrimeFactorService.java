@@ -0,0 +1,14 @@
+package com.natwest.primecalculator.service;
+
+import com.natwest.primecalculator.sieve.SmallestPrimeFactorTable;
+
+public interface SmallestPrimeFactorService {
+
+    /**
+     * get a smallest prime factor table covering at least 2..limit. The table is kept once built, so later calls for
+     * the same or a lower limit don't sieve again.
+     * @param limit
+     * @return SmallestPrimeFactorTable with limit() >= limit
+     */
+    SmallestPrimeFactorTable getSmallestPrimeFactorTable(final int limit);
+}
@@ -0,0 +1,18 @@
+package com.natwest.primecalculator.service;
+
+import com.natwest.primecalculator.entities.PrimeWindow;
+
+/**
+ * A SieveService that can sieve any window [from, to] on its own, using only the base primes up to sqrt(to), without
+ * sieving everything from 2. Cost and memory scale with the width of the window rather than with to.
+ */
+public interface WindowSieveService extends SieveService {
+
+    /**
+     * get the primes within [from, to] based on the sieve implementation
+     * @param from inclusive
+     * @param to inclusive
+     * @return PrimeWindow
+     */
+    PrimeWindow getPrimeWindow(final long from, final long to);
+}
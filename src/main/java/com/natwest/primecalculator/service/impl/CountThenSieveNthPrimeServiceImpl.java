@@ -0,0 +1,57 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.NthPrime;
+import com.natwest.primecalculator.service.NthPrimeService;
+import com.natwest.primecalculator.sieve.NthPrimeSearch;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * NthPrimeService implementation that estimates p(n), counts the primes up to the estimate and then sieves only the
+ * short window left
+ */
+@Service
+@Slf4j
+public class CountThenSieveNthPrimeServiceImpl implements NthPrimeService {
+
+    /**
+     * pi(10^13), so the n-th prime never goes past the limit supported by LucyPrimeCountServiceImpl
+     */
+    public static final long MAX_N = 346_065_536_839L;
+
+    @Override
+    public long getMaxN() {
+        return MAX_N;
+    }
+
+    /**
+     * Get the n-th prime without sieving everything below it.
+     *
+     * p(n) is estimated with the inverse logarithmic integral, which is accurate to about sqrt(p(n)) numbers, the
+     * primes up to that estimate are counted with PrimeCounter (Lucy Hedgehog) and then only the window between the
+     * estimate and p(n) is sieved with SegmentedSieve, forwards or backwards depending on which side of p(n) the
+     * estimate landed. Small n are sieved from 2.
+     *
+     * For the implementation see NthPrimeSearch.nthPrime(..).
+     *
+     * @param n
+     * @return NthPrime
+     */
+    @Cacheable("NthPrime")
+    @Override
+    public NthPrime getNthPrime(long n) {
+        log.info("Nth prime: Working out prime number {} for the 1st time", n);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+
+        long prime = NthPrimeSearch.nthPrime(n);
+
+        watch.stop();
+        log.info("Completed getNthPrime for {}. Time Taken(Nano seconds): {}, Prime: {}", n, watch.getNanoTime(), prime);
+
+        return new NthPrime(n, prime);
+    }
+}
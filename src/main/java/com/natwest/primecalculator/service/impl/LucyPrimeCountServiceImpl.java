@@ -0,0 +1,57 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.PrimeCount;
+import com.natwest.primecalculator.service.PrimeCountService;
+import com.natwest.primecalculator.sieve.PrimeCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * PrimeCountService implementation using the Lucy Hedgehog prime counting algorithm
+ */
+@Service
+@Slf4j
+public class LucyPrimeCountServiceImpl implements PrimeCountService {
+
+    /**
+     * 10^13. Takes a few seconds and about 60MB of tables (O(sqrt(limit))).
+     */
+    public static final long MAX_LIMIT = 10_000_000_000_000L;
+
+    @Override
+    public long getMaxLimit() {
+        return MAX_LIMIT;
+    }
+
+    /**
+     * Get the number of primes up to and including limit, and optionally their sum, without sieving or listing them.
+     *
+     * Callers that only need the count would otherwise pull the whole PrimeRange (millions of integers) and take its
+     * size. Here only the values S(n / i) of the Lucy Hedgehog recurrence are worked out, which is O(limit^(3/4)) time
+     * and O(sqrt(limit)) memory whatever the sieve. The sum of the primes is held as a 128 bit integer internally
+     * as it passes Long.MAX_VALUE from about 10^10.
+     *
+     * For the implementation see PrimeCounter.count(..).
+     *
+     * @param limit
+     * @param includeSum
+     * @return PrimeCount
+     */
+    @Cacheable("PrimeCount")
+    @Override
+    public PrimeCount getPrimeCount(long limit, boolean includeSum) {
+        log.info("Prime count: Working out pi({}) for the 1st time", limit);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+
+        PrimeCounter counter = PrimeCounter.count(limit, includeSum);
+
+        watch.stop();
+        log.info("Completed getPrimeCount for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), counter.count());
+
+        return new PrimeCount(limit, counter.count(), counter.sum());
+    }
+}
@@ -0,0 +1,97 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.PrimalityService;
+import com.natwest.primecalculator.service.SieveOfEratosthenesService;
+import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.sieve.MillerRabin;
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
+import com.natwest.primecalculator.sieve.PrimeSearch;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * PrimalityService implementation answering from a sieve bitmap held in memory for small n and deterministic
+ * Miller-Rabin (plus a small windowed search for next/previous prime) for everything above it
+ */
+@Service
+@Slf4j
+public class MillerRabinPrimalityServiceImpl implements PrimalityService {
+
+    /**
+     * odd-only bitmap of everything up to primecalculator.primality.bitmap-limit, shared read only by all callers
+     */
+    private final OddPrimeBitmap bitmap;
+
+    /**
+     * constructor. The bitmap is sieved once, up front, with the Sieve Of Eratosthenes version 1 main logic.
+     * @param beansMappedBySieveKey
+     * @param bitmapLimit
+     */
+    public MillerRabinPrimalityServiceImpl(@NonNull Map<SieveKey, SieveService> beansMappedBySieveKey,
+                                           @Value("${primecalculator.primality.bitmap-limit:16777216}") int bitmapLimit) {
+        StopWatch watch = new StopWatch();
+        watch.start();
+        SieveOfEratosthenesService eratosthenes = (SieveOfEratosthenesService) beansMappedBySieveKey
+                .get(new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1));
+        this.bitmap = eratosthenes.performEratosthenesMainLogic(Math.max(1, bitmapLimit));
+        watch.stop();
+        log.info("Primality bitmap sieved up to {}. Time Taken(Nano seconds): {}", bitmap.limit(), watch.getNanoTime());
+    }
+
+    /**
+     * Check whether n is a prime.
+     *
+     * n up to the bitmap limit is a single bit lookup, O(1). Above that deterministic Miller-Rabin is used, which needs
+     * at most 7 modular exponentiations (done with Montgomery multiplication) and so a few hundred nanoseconds, rather
+     * than sieving everything up to n. Neither is worth caching.
+     *
+     * For the implementation see MillerRabin.isPrime(..).
+     *
+     * @param n
+     * @return boolean
+     */
+    @Override
+    public boolean isPrime(long n) {
+        if (n <= bitmap.limit())
+            return n >= 2 && bitmap.isPrime((int) n);
+        return MillerRabin.isPrime(n);
+    }
+
+    /**
+     * Find the smallest prime > n. Within the bitmap this is a scan for the next clear bit, above it a window after n is
+     * crossed off with the small primes and the survivors are checked with Miller-Rabin. See PrimeSearch.nextPrime(..).
+     * @param n
+     * @return long
+     */
+    @Override
+    public long nextPrime(long n) {
+        if (n < bitmap.limit()) {
+            int prime = bitmap.nextPrime((int) Math.max(n, 0));
+            if (prime != -1)
+                return prime;
+        }
+        return PrimeSearch.nextPrime(n);
+    }
+
+    /**
+     * Find the largest prime < n, the same way as nextPrime(..) but searching down. See PrimeSearch.previousPrime(..).
+     * @param n
+     * @return long
+     */
+    @Override
+    public long previousPrime(long n) {
+        if (n <= bitmap.limit()) {
+            int prime = bitmap.previousPrime((int) n);
+            return prime == -1 ? 0 : prime;
+        }
+        return PrimeSearch.previousPrime(n);
+    }
+}
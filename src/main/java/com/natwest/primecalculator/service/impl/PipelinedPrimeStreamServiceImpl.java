@@ -0,0 +1,157 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.service.PrimeStreamService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PrimeStreamService implementation writing the primes while the next segment is being sieved
+ */
+@Service
+@Slf4j
+public class PipelinedPrimeStreamServiceImpl implements PrimeStreamService {
+
+    /**
+     * same as the large sieve, keeps the base primes (up to 2^24) small and well inside int range
+     */
+    public static final long MAX_LIMIT = SegmentedLargeSieveServiceImpl.MAX_LIMIT;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    /**
+     * sieves the segment after the one being written, one daemon thread per stream in progress
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "prime-stream-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public long getMaxLimit() {
+        return MAX_LIMIT;
+    }
+
+    /**
+     * Write the primes up to and including limit as JSON with a Segmented Sieve Of Eratosthenes, overlapping the
+     * sieving of segment k + 1 with the writing of segment k.
+     *
+     * Two chunks are used in turn. A task on the executor crosses off the next segment and formats its primes as ASCII
+     * straight into one chunk, while the calling thread writes the other chunk to out. Once the write is done the
+     * calling thread waits for the task, hands it the chunk it just wrote and writes the one just filled:
+     *
+     *     executor  | sieve 0 -> A | sieve 1 -> B | sieve 2 -> A | sieve 3 -> B |
+     *     caller    |              |   write A    |   write B    |   write A    | write B
+     *
+     * Memory is the base primes up to sqrt(limit), one segment bitmap and the two chunks (at most about 1.3MB each),
+     * whatever the limit. Nothing is kept once the stream ends and the result isn't cached. If out fails, e.g. the
+     * client went away, the task in flight is cancelled.
+     *
+     * @param limit
+     * @param out
+     * @throws IOException
+     */
+    @Override
+    public void writePrimes(long limit, OutputStream out) throws IOException {
+        log.info("Pipelined prime stream: writing primes for {}", limit);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+
+        out.write(("{\"initial\":" + limit + ",\"primes\":[").getBytes(StandardCharsets.US_ASCII));
+        //value less than 2 always returns empty list of primes
+        if(limit >= 2) {
+            //the cursor only sieves odd numbers, every other prime is written with a leading comma
+            out.write('2');
+            SegmentedSieve.Cursor cursor = new SegmentedSieve.Cursor(3, limit, SegmentedSieve.basePrimes((int) SegmentedSieve.isqrt(limit)));
+            int capacity = SegmentedSieve.maxPrimesInRange(0, 2L * SegmentedSieve.SEGMENT_SIZE) * (Long.toString(limit).length() + 1);
+            Chunk[] chunks = {new Chunk(capacity), new Chunk(capacity)};
+
+            int filling = 0;
+            Future<Chunk> next = cursor.hasNextSegment() ? executor.submit(() -> chunks[0].fill(cursor)) : null;
+            try {
+                while (next != null) {
+                    Chunk chunk = await(next);
+                    Chunk other = chunks[filling ^= 1];
+                    next = cursor.hasNextSegment() ? executor.submit(() -> other.fill(cursor)) : null;
+                    out.write(chunk.bytes, 0, chunk.length);
+                }
+            } finally {
+                if (next != null)
+                    next.cancel(true);
+            }
+        }
+        out.write("]}".getBytes(StandardCharsets.US_ASCII));
+
+        watch.stop();
+        log.info("Completed writePrimes for {}. Time Taken(Nano seconds): {}", limit, watch.getNanoTime());
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sieving the next segment");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The primes of one segment formatted as ASCII, each one preceded by a comma
+     */
+    private static final class Chunk {
+
+        private final byte[] bytes;
+        private int length;
+
+        private Chunk(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        /**
+         * cross off the next segment of cursor into this chunk
+         * @param cursor
+         * @return this
+         */
+        private Chunk fill(SegmentedSieve.Cursor cursor) {
+            length = 0;
+            cursor.nextSegment(this::append);
+            return this;
+        }
+
+        private void append(long prime) {
+            bytes[length++] = ',';
+            int digits = 1;
+            for (long rest = prime / 10; rest != 0; rest /= 10) {
+                digits++;
+            }
+            length += digits;
+            for (int i = length - 1; i >= length - digits; i--) {
+                bytes[i] = (byte) ('0' + prime % 10);
+                prime /= 10;
+            }
+        }
+    }
+}
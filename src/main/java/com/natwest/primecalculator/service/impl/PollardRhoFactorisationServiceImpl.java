@@ -0,0 +1,150 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.service.FactorisationService;
+import com.natwest.primecalculator.service.SmallestPrimeFactorService;
+import com.natwest.primecalculator.sieve.MillerRabin;
+import com.natwest.primecalculator.sieve.PollardRho;
+import com.natwest.primecalculator.sieve.SmallestPrimeFactorTable;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+/**
+ * FactorisationService implementation walking the cached smallest prime factor table for small n, trial dividing by
+ * the table's primes, then splitting what is left with Miller-Rabin and Brent's Pollard rho
+ */
+@Service
+@Slf4j
+public class PollardRhoFactorisationServiceImpl implements FactorisationService {
+
+    /**
+     * primes below this are tried by trial division before Pollard rho is used
+     */
+    private static final int TRIAL_DIVISION_LIMIT = 1 << 16;
+
+    /**
+     * smallest prime factor table of everything up to primecalculator.factors.table-limit, shared with the Euler sieve
+     */
+    private final SmallestPrimeFactorTable table;
+    /**
+     * odd primes used for trial division, taken from the table
+     */
+    private final int[] trialPrimes;
+    /**
+     * inverse[k] = trialPrimes[k]^-1 mod 2^64
+     */
+    private final long[] inverse;
+    /**
+     * maxQuotient[k] = (2^64 - 1) / trialPrimes[k], unsigned
+     */
+    private final long[] maxQuotient;
+    /**
+     * every prime below this has been tried by trial division, so a cofactor below its square is a prime
+     */
+    private final long trialBound;
+
+    /**
+     * constructor. The table is built once, up front, by the Sieve Of Euler (or reused if it already covers the limit).
+     * @param smallestPrimeFactorService
+     * @param tableLimit
+     */
+    public PollardRhoFactorisationServiceImpl(@NonNull SmallestPrimeFactorService smallestPrimeFactorService,
+                                              @Value("${primecalculator.factors.table-limit:16777216}") int tableLimit) {
+        StopWatch watch = new StopWatch();
+        watch.start();
+        this.table = smallestPrimeFactorService.getSmallestPrimeFactorTable(Math.max(2, tableLimit));
+        watch.stop();
+        log.info("Smallest prime factor table ready up to {}. Time Taken(Nano seconds): {}", table.limit(), watch.getNanoTime());
+
+        int[] primes = table.primes();
+        int count = 1;
+        while (count < primes.length && primes[count] < TRIAL_DIVISION_LIMIT) {
+            count++;
+        }
+        this.trialPrimes = Arrays.copyOfRange(primes, 1, count);
+        this.trialBound = Math.min(TRIAL_DIVISION_LIMIT, table.limit() + 1L);
+        this.inverse = new long[trialPrimes.length];
+        this.maxQuotient = new long[trialPrimes.length];
+        for (int k = 0; k < trialPrimes.length; k++) {
+            long p = trialPrimes[k];
+            //Newton's iteration doubles the number of correct low bits each step, p is its own inverse mod 8
+            long x = p;
+            for (int i = 0; i < 5; i++) {
+                x *= 2 - p * x;
+            }
+            inverse[k] = x;
+            maxQuotient[k] = Long.divideUnsigned(-1L, p);
+        }
+    }
+
+    /**
+     * Factorise n.
+     *
+     * n up to the table limit is walked through the smallest prime factor table, O(log n) with no division. Above it
+     * the powers of 2 are shifted out and the odd primes below 2^16 are tried, each with a multiply by its inverse
+     * mod 2^64 rather than a division (n is divisible by p exactly when n * p^-1 mod 2^64 <= (2^64 - 1) / p, and the
+     * product is then the quotient). As soon as the cofactor fits in the table the rest comes from there. A cofactor
+     * still above the table has no factor below 2^16, so it is either a prime (below 2^32, or passing Miller-Rabin) or
+     * made of at most three large primes, which Brent's Pollard rho splits in about n^(1/4) steps. See
+     * PollardRho.findFactor(..).
+     *
+     * Nothing is cached, even the worst case is a few milliseconds.
+     *
+     * @param n >= 1
+     * @return long[]
+     */
+    @Override
+    public long[] factorise(long n) {
+        if (n < 1)
+            throw new IllegalArgumentException("n must be >= 1 but was " + n);
+
+        long[] factors = new long[Long.SIZE];
+        int count = 0;
+
+        int twos = Long.numberOfTrailingZeros(n);
+        for (; count < twos; count++) {
+            factors[count] = 2;
+        }
+        n >>= twos;
+
+        for (int k = 0; k < trialPrimes.length && n > table.limit(); k++) {
+            long p = trialPrimes[k];
+            if (p * p > n)
+                break;
+            for (long q = n * inverse[k]; Long.compareUnsigned(q, maxQuotient[k]) <= 0; q = n * inverse[k]) {
+                factors[count++] = p;
+                n = q;
+            }
+        }
+
+        count = split(n, factors, count);
+        Arrays.sort(factors, 0, count);
+        return Arrays.copyOf(factors, count);
+    }
+
+    /**
+     * add the prime factors of n, which has no factor below the trial bound unless it is within the table
+     * @return the new count
+     */
+    private int split(long n, long[] factors, int count) {
+        if (n == 1)
+            return count;
+        if (n <= table.limit()) {
+            for (int factor : table.factorise((int) n)) {
+                factors[count++] = factor;
+            }
+            return count;
+        }
+        if (n / trialBound < trialBound || MillerRabin.isPrime(n)) {
+            factors[count++] = n;
+            return count;
+        }
+        long factor = PollardRho.findFactor(n);
+        count = split(factor, factors, count);
+        return split(n / factor, factors, count);
+    }
+}
@@ -1,23 +1,50 @@
 package com.natwest.primecalculator.service.impl;
 
+import com.natwest.primecalculator.cache.PrimeStore;
+import com.natwest.primecalculator.entities.Factorisation;
+import com.natwest.primecalculator.entities.LargePrimeRange;
+import com.natwest.primecalculator.entities.NthPrime;
+import com.natwest.primecalculator.entities.Primality;
+import com.natwest.primecalculator.entities.PrimeBatch;
+import com.natwest.primecalculator.entities.PrimeCount;
 import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeStatistics;
+import com.natwest.primecalculator.entities.PrimeWindow;
 import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.BatchOperationEnum;
 import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.scheduler.SieveBatchScheduler;
+import com.natwest.primecalculator.service.FactorisationService;
+import com.natwest.primecalculator.service.LargeSieveService;
+import com.natwest.primecalculator.service.NthPrimeService;
+import com.natwest.primecalculator.service.PrimalityService;
+import com.natwest.primecalculator.service.PrimeCountService;
 import com.natwest.primecalculator.service.PrimeService;
+import com.natwest.primecalculator.service.PrimeStatisticsService;
+import com.natwest.primecalculator.service.PrimeStreamService;
 import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.service.WindowSieveService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.IntStream;
 
 /**
- * PrimeService implementation. We also specify our various caches here. We use the default in memory cache of
- * ConcurrentHashMap
+ * PrimeService implementation. We also specify our various caches here. Prime lists from every sieve share one
+ * PrimeStore, the other results are held by the memory bounded WeightedCacheManager
  */
 @Slf4j
 @Service
@@ -25,20 +52,241 @@ public class PrimeServiceImpl implements PrimeService {
 
     private Map<SieveKey, SieveService> beansMappedBySieveKey;
 
+    private PrimeStore primeStore;
+
+    private SieveBatchScheduler sieveBatchScheduler;
+
+    private LargeSieveService largeSieveService;
+
+    private PrimeCountService primeCountService;
+
+    private NthPrimeService nthPrimeService;
+
+    private PrimalityService primalityService;
+
+    private FactorisationService factorisationService;
+
+    private PrimeStatisticsService primeStatisticsService;
+
+    private PrimeStreamService primeStreamService;
+
+    /**
+     * widest window (to - from + 1) a range query may ask for
+     */
+    private long maxWindowWidth;
+
+    /**
+     * most values accepted in one batch
+     */
+    private int maxBatchSize;
+
+    /**
+     * number of values each parallel task of a batch works through
+     */
+    private static final int BATCH_CHUNK_SIZE = 4096;
+
+    /**
+     * longest a request waits for the primes to be worked out, in milliseconds
+     */
+    private long waitTimeoutMillis;
+
+
     @Autowired
-    public PrimeServiceImpl(@NonNull Map<SieveKey, SieveService> beansMappedBySieveKey) {
+    public PrimeServiceImpl(@NonNull Map<SieveKey, SieveService> beansMappedBySieveKey,
+                            @NonNull PrimeStore primeStore,
+                            @NonNull SieveBatchScheduler sieveBatchScheduler,
+                            @NonNull LargeSieveService largeSieveService,
+                            @NonNull PrimeCountService primeCountService,
+                            @NonNull NthPrimeService nthPrimeService,
+                            @NonNull PrimalityService primalityService,
+                            @NonNull FactorisationService factorisationService,
+                            @NonNull PrimeStatisticsService primeStatisticsService,
+                            @NonNull PrimeStreamService primeStreamService,
+                            @Value("${primecalculator.window.max-width:100000000}") long maxWindowWidth,
+                            @Value("${primecalculator.batch.max-size:1000000}") int maxBatchSize,
+                            @Value("${primecalculator.primes.wait-timeout:600000}") long waitTimeoutMillis) {
         this.beansMappedBySieveKey = beansMappedBySieveKey;
+        this.primeStore = primeStore;
+        this.sieveBatchScheduler = sieveBatchScheduler;
+        this.largeSieveService = largeSieveService;
+        this.primeCountService = primeCountService;
+        this.nthPrimeService = nthPrimeService;
+        this.primalityService = primalityService;
+        this.factorisationService = factorisationService;
+        this.primeStatisticsService = primeStatisticsService;
+        this.primeStreamService = primeStreamService;
+        this.maxWindowWidth = maxWindowWidth;
+        this.maxBatchSize = maxBatchSize;
+        this.waitTimeoutMillis = waitTimeoutMillis;
     }
 
     @Override
     public PrimeRange getPrimes(SieveEnum sieve, VersionEnum version, Integer upToAndIncluding) {
         final SieveService sieveService = beansMappedBySieveKey.get(new SieveKey(sieve, version));
 
-        if(sieveService != null)
-            return sieveService.getPrimeRange(upToAndIncluding);
-        else{
+        if(sieveService != null) {
+            //any limit up to the largest one worked out so far, by any sieve, is sliced from the shared store
+            final PrimeRange stored = primeStore.get(upToAndIncluding);
+            if(stored != null)
+                return stored;
+            return awaitPrimes(sieveService, upToAndIncluding);
+        }else{
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Sieve algorithm %s doesn't have supplied version %s implementation", sieve, version));
+        }
+    }
+
+    /**
+     * Wait for the SieveBatchScheduler to work out the primes. It runs the sieve on its own thread so any waiter,
+     * including the request that caused it, can time out or be interrupted without cancelling it, the result still lands
+     * in the store for the next request.
+     * @param sieveService used if the store is still empty
+     * @param upToAndIncluding
+     * @return PrimeRange
+     */
+    private PrimeRange awaitPrimes(SieveService sieveService, int upToAndIncluding) {
+        final CompletableFuture<PrimeRange> computation = sieveBatchScheduler.schedule(sieveService, upToAndIncluding);
+        try {
+            return PrimeStore.slice(computation.get(waitTimeoutMillis, TimeUnit.MILLISECONDS), upToAndIncluding);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, String.format("Timed out after %d ms waiting for the primes up to %d, they are still being worked out, try again shortly", waitTimeoutMillis, upToAndIncluding));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, String.format("Interrupted waiting for the primes up to %d", upToAndIncluding));
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if(e.getCause() instanceof Error error)
+                throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public LargePrimeRange getLargePrimes(Long upToAndIncluding) {
+        if(upToAndIncluding > largeSieveService.getMaxLimit()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Limit %d is above the supported maximum of %d", upToAndIncluding, largeSieveService.getMaxLimit()));
+        }
+        return largeSieveService.getPrimeRange(upToAndIncluding);
+    }
+
+    @Override
+    public StreamingResponseBody getPrimeStream(Long upToAndIncluding) {
+        if(upToAndIncluding > primeStreamService.getMaxLimit()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Limit %d is above the supported maximum of %d", upToAndIncluding, primeStreamService.getMaxLimit()));
+        }
+        return out -> primeStreamService.writePrimes(upToAndIncluding, out);
+    }
+
+    @Override
+    public PrimeCount getPrimeCount(Long upToAndIncluding, boolean includeSum) {
+        if(upToAndIncluding > primeCountService.getMaxLimit()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Limit %d is above the supported maximum of %d", upToAndIncluding, primeCountService.getMaxLimit()));
+        }
+        return primeCountService.getPrimeCount(upToAndIncluding, includeSum);
+    }
+
+    @Override
+    public NthPrime getNthPrime(Long n) {
+        if(n < 1 || n > nthPrimeService.getMaxN()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("n %d must be between 1 and %d", n, nthPrimeService.getMaxN()));
+        }
+        return nthPrimeService.getNthPrime(n);
+    }
+
+    @Override
+    public Primality isPrime(Long n) {
+        return new Primality(n, primalityService.isPrime(n));
+    }
+
+    @Override
+    public PrimeBatch getPrimeBatch(BatchOperationEnum operation, long[] values) {
+        if(values.length > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Batch of %d values is above the supported maximum of %d", values.length, maxBatchSize));
+        }
+
+        //split the batch into chunks worked through in parallel on the ForkJoin common pool
+        int chunks = (values.length + BATCH_CHUNK_SIZE - 1) / BATCH_CHUNK_SIZE;
+        if(operation == BatchOperationEnum.IS_PRIME) {
+            boolean[] prime = new boolean[values.length];
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                for (int i = chunk * BATCH_CHUNK_SIZE; i < Math.min(values.length, (chunk + 1) * BATCH_CHUNK_SIZE); i++) {
+                    prime[i] = primalityService.isPrime(values[i]);
+                }
+            });
+            return new PrimeBatch(operation, prime, null);
+        }
+
+        LongUnaryOperator search = operation == BatchOperationEnum.NEXT_PRIME ? primalityService::nextPrime : primalityService::previousPrime;
+        long[] primes = new long[values.length];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            for (int i = chunk * BATCH_CHUNK_SIZE; i < Math.min(values.length, (chunk + 1) * BATCH_CHUNK_SIZE); i++) {
+                primes[i] = search.applyAsLong(values[i]);
+            }
+        });
+        return new PrimeBatch(operation, null, primes);
+    }
+
+    @Override
+    public PrimeWindow getPrimesInRange(SieveEnum sieve, VersionEnum version, Long from, Long to) {
+        final SieveService sieveService = beansMappedBySieveKey.get(new SieveKey(sieve, version));
+
+        if(sieveService == null)
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Sieve algorithm %s doesn't have supplied version %s implementation", sieve, version));
+        if(!(sieveService instanceof WindowSieveService windowSieveService))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Sieve algorithm %s version %s doesn't support range queries", sieve, version));
+        if(from < 0 || from > to)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Range [%d, %d] is invalid, from must be >= 0 and <= to", from, to));
+        if(to > largeSieveService.getMaxLimit())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Limit %d is above the supported maximum of %d", to, largeSieveService.getMaxLimit()));
+        if(to - from + 1 > maxWindowWidth)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Range [%d, %d] is wider than the supported maximum of %d", from, to, maxWindowWidth));
+
+        return windowSieveService.getPrimeWindow(from, to);
+    }
+
+    @Override
+    public Factorisation getFactors(Long n) {
+        if(n < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("n %d must be >= 1 to be factorised", n));
+        }
+        return new Factorisation(n, factorisationService.factorise(n));
+    }
+
+    @Override
+    public Factorisation[] getFactorBatch(long[] values) {
+        if(values.length > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Batch of %d values is above the supported maximum of %d", values.length, maxBatchSize));
         }
+        for (long n : values) {
+            if(n < 1)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("n %d must be >= 1 to be factorised", n));
+        }
+
+        //split the batch into chunks worked through in parallel on the ForkJoin common pool
+        int chunks = (values.length + BATCH_CHUNK_SIZE - 1) / BATCH_CHUNK_SIZE;
+        Factorisation[] factorisations = new Factorisation[values.length];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            for (int i = chunk * BATCH_CHUNK_SIZE; i < Math.min(values.length, (chunk + 1) * BATCH_CHUNK_SIZE); i++) {
+                factorisations[i] = new Factorisation(values[i], factorisationService.factorise(values[i]));
+            }
+        });
+        return factorisations;
+    }
+
+    @Override
+    public PrimeStatistics getPrimeStatistics(Long upToAndIncluding) {
+        return getPrimeStatistics(0L, Math.max(0, upToAndIncluding));
     }
 
+    @Override
+    public PrimeStatistics getPrimeStatistics(Long from, Long to) {
+        if(from < 0 || from > to)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Range [%d, %d] is invalid, from must be >= 0 and <= to", from, to));
+        if(to > largeSieveService.getMaxLimit())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Limit %d is above the supported maximum of %d", to, largeSieveService.getMaxLimit()));
+        if(to - from + 1 > primeStatisticsService.getMaxWidth())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Range [%d, %d] is wider than the supported maximum of %d", from, to, primeStatisticsService.getMaxWidth()));
+
+        return primeStatisticsService.getPrimeStatistics(from, to);
+    }
 }
@@ -0,0 +1,50 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.LargePrimeRange;
+import com.natwest.primecalculator.service.LargeSieveService;
+import com.natwest.primecalculator.sieve.SegmentedPrimeSequence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * LargeSieveService implementation for limits past Integer.MAX_VALUE
+ */
+@Service
+@Slf4j
+public class SegmentedLargeSieveServiceImpl implements LargeSieveService {
+
+    /**
+     * 2^48. Keeps the base primes (up to 2^24) small and well inside int range.
+     */
+    public static final long MAX_LIMIT = 1L << 48;
+
+    @Override
+    public long getMaxLimit() {
+        return MAX_LIMIT;
+    }
+
+    /**
+     * Get Prime Range(Inclusive) for a long limit using a Segmented Sieve Of Eratosthenes over chunked bitmaps.
+     *
+     * Every other engine allocates an array indexed by value, which caps them at 2^31 - 1. Here nothing is allocated
+     * up front: the returned range holds a lazy SegmentedPrimeSequence which, when iterated (e.g. while the response is
+     * being written), sieves one 32KB bitmap chunk at a time using the base primes up to sqrt(limit). Memory stays at
+     * O(sqrt(limit) + chunk) whatever the limit, e.g. about 200KB of base primes at 2^36. As the result costs
+     * nothing to create and would be huge to hold it isn't cached.
+     *
+     * @param limit
+     * @return LargePrimeRange
+     */
+    @Override
+    public LargePrimeRange getPrimeRange(long limit) {
+        log.info("Segmented large sieve: creating lazy prime range for {}", limit);
+
+        //value less than 2 always returns empty list of primes
+        if(limit < 2)
+            return new LargePrimeRange(limit, List.of());
+
+        return new LargePrimeRange(limit, new SegmentedPrimeSequence(2, limit));
+    }
+}
@@ -0,0 +1,65 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.PrimeStatistics;
+import com.natwest.primecalculator.forkjoin.PrimeStatisticsRecursiveTask;
+import com.natwest.primecalculator.service.PrimeStatisticsService;
+import com.natwest.primecalculator.sieve.PrimeGapStatistics;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * PrimeStatisticsService implementation feeding the primes of a parallel segmented sieve straight into mergeable
+ * gap and k-tuple statistics
+ */
+@Service
+@Slf4j
+public class SegmentedPrimeStatisticsServiceImpl implements PrimeStatisticsService {
+
+    /**
+     * 10^10, i.e. about 455 million primes. Takes several seconds per core.
+     */
+    public static final long MAX_WIDTH = 10_000_000_000L;
+
+    @Override
+    public long getMaxWidth() {
+        return MAX_WIDTH;
+    }
+
+    /**
+     * Get the gap and k-tuple statistics of the primes within [from, to] in a single streaming pass.
+     *
+     * Working these out from a PrimeRange means listing (and downloading) every prime first. Here [from, to] is split
+     * into runs of cache sized segments sieved in parallel on the ForkJoin common pool with the base primes up to
+     * sqrt(to), and each prime is passed to the run's PrimeGapStatistics the moment its segment is scanned, so only
+     * one segment bitmap per worker is ever held. The partial statistics are merged in order on the way back up the
+     * task tree: each one keeps its first and last primes and the primes within 8 of either end, which is enough to
+     * add the gap and any twins, cousins, sexy pairs, triplets or quadruplets crossing the boundary. See
+     * PrimeGapStatistics.merge(..).
+     *
+     * @param from
+     * @param to
+     * @return PrimeStatistics
+     */
+    @Cacheable("PrimeStatistics")
+    @Override
+    public PrimeStatistics getPrimeStatistics(long from, long to) {
+        log.info("Prime statistics: Working out statistics for [{}, {}] for the 1st time", from, to);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+
+        int[] basePrimes = SegmentedSieve.basePrimes((int) SegmentedSieve.isqrt(to));
+        PrimeGapStatistics statistics = PrimeStatisticsRecursiveTask.invoke(from, to,
+                (low, high, action) -> SegmentedSieve.forEachPrime(low, high, basePrimes, action));
+
+        watch.stop();
+        log.info("Completed getPrimeStatistics for [{}, {}]. Time Taken(Nano seconds): {}, Number of Primes: {}", from, to, watch.getNanoTime(), statistics.count());
+
+        return new PrimeStatistics(from, to, statistics.count(), statistics.maxGap(), statistics.maxGapStart(),
+                statistics.twins(), statistics.cousins(), statistics.sexy(), statistics.triplets(),
+                statistics.quadruplets(), statistics.gaps());
+    }
+}
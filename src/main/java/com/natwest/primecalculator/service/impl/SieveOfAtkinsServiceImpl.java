@@ -1,17 +1,17 @@
 package com.natwest.primecalculator.service.impl;
 
+import com.natwest.primecalculator.entities.PrimeList;
 import com.natwest.primecalculator.entities.PrimeRange;
 import com.natwest.primecalculator.entities.SieveKey;
 import com.natwest.primecalculator.enums.SieveAndVersionEnum;
 import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
 import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.StopWatch;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -100,7 +100,6 @@ public class SieveOfAtkinsServiceImpl implements SieveService {
      * @param limit
      * @return PrimeRange
      */
-    @Cacheable("Atkin")
     @Override
     public PrimeRange getPrimeRange(int limit) {
         log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
@@ -114,7 +113,7 @@ public class SieveOfAtkinsServiceImpl implements SieveService {
             return new PrimeRange(limit, List.of());
 
         //Array that will store found primes
-        List<Integer> primes = new ArrayList<>();
+        PrimeList.Builder primes = new PrimeList.Builder(SegmentedSieve.maxPrimesUpTo(limit));
 
         // 2 and 3 are known to be primes so add them if within limit
         if(limit >= 2){
@@ -174,6 +173,6 @@ public class SieveOfAtkinsServiceImpl implements SieveService {
         watch.stop();
         log.info("Completed getPrimeRangeUsingSieveOfAtkin for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
 
-        return new PrimeRange(limit, primes);
+        return new PrimeRange(limit, primes.build());
     }
 }
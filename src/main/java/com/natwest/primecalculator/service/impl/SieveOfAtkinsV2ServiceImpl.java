@@ -0,0 +1,120 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveAndVersionEnum;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.forkjoin.SegmentRecursiveAction;
+import com.natwest.primecalculator.service.WindowSieveService;
+import com.natwest.primecalculator.sieve.SegmentedAtkin;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Sieve implementation class for Sieve Of Atkin Version 2
+ */
+@Service
+@Slf4j
+public class SieveOfAtkinsV2ServiceImpl implements WindowSieveService {
+
+    /**
+     * Create static key to be mapped to this service
+     */
+    private static final SieveKey SERVICE_KEY = new SieveKey(SieveEnum.ATKIN, VersionEnum.V2);
+
+    @Override
+    public SieveKey getSieveKey() {
+        return SERVICE_KEY;
+    }
+
+    @Override
+    public SieveAndVersionEnum getSieveEnum() {
+        return SieveAndVersionEnum.ATKINV2;
+    }
+
+    /**
+     * Get Prime Range(Inclusive) Using a Segmented, Parallel Sieve Of Atkin.
+     *
+     * Version 1 boxes every candidate into a Long in its inner loops and runs three % 12 tests for every (x, y) pair.
+     * This version only uses primitive long arithmetic and enumerates each quadratic form only over the residue
+     * classes that can produce a prime, so there is a single % 12 test per pair. The range is split into segments
+     * that are sieved independently, which lets the x/y enumeration of different segments run on different cores
+     * (ForkJoin common pool via SegmentRecursiveAction). The per-segment primes are merged back in order.
+     *
+     * For better explanation of Sieve Of Atkin please refer to java doc in
+     * SieveOfAtkinsServiceImpl.getPrimeRange(final int limit) and SegmentedAtkin.
+     *
+     * @param limit
+     * @return PrimeRange
+     */
+    @Override
+    public PrimeRange getPrimeRange(int limit) {
+        log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getPrimeRangeUsingSegmentedSieveOfAtkin for {}", limit);
+
+        //value less than 2 always returns empty list of primes
+        if(limit < 2)
+            return new PrimeRange(limit, List.of());
+
+        //primes up to sqrt(limit) are needed to remove the multiples of prime squares
+        int[] basePrimes = SegmentedSieve.basePrimes((int) SegmentedSieve.isqrt(limit));
+
+        //sieve every segment in parallel, segmentPrimes[k] will hold the primes of segment k
+        int[][] segmentPrimes = SegmentRecursiveAction.invoke(0, limit,
+                (from, to, action) -> SegmentedAtkin.forEachPrime(from, to, basePrimes, action));
+
+        //merge the segments back in order, segment 0 starts at 0 so the relative primes are the primes
+        int total = 0;
+        for (int[] segment : segmentPrimes) {
+            total += segment.length;
+        }
+        int[] merged = new int[total];
+        int size = 0;
+        for (int[] segment : segmentPrimes) {
+            System.arraycopy(segment, 0, merged, size, segment.length);
+            size += segment.length;
+        }
+        PrimeList primes = PrimeList.of(merged);
+
+        watch.stop();
+        log.info("Completed getPrimeRangeUsingSegmentedSieveOfAtkin for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
+
+        return new PrimeRange(limit, primes);
+    }
+
+    /**
+     * Get the primes within [from, to] without sieving from 2. Only the base primes up to sqrt(to) are worked out, then
+     * just the segments covering the window are sieved, in parallel. Windows are not cached.
+     * @param from
+     * @param to
+     * @return PrimeWindow
+     */
+    @Override
+    public PrimeWindow getPrimeWindow(long from, long to) {
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getSegmentedSieveOfAtkinWindow for [{}, {}]", from, to);
+
+        if(to < 2 || from > to)
+            return new PrimeWindow(from, to, new long[0]);
+
+        int[] basePrimes = SegmentedSieve.basePrimes((int) SegmentedSieve.isqrt(to));
+        long[] primes = SegmentRecursiveAction.merge(from, SegmentRecursiveAction.invoke(from, to,
+                (low, high, action) -> SegmentedAtkin.forEachPrime(low, high, basePrimes, action)));
+
+        watch.stop();
+        log.info("Completed getSegmentedSieveOfAtkinWindow for [{}, {}]. Time Taken(Nano seconds): {}, Number of Primes: {}", from, to, watch.getNanoTime(), primes.length);
+
+        return new PrimeWindow(from, to, primes);
+    }
+}
@@ -1,17 +1,18 @@
 package com.natwest.primecalculator.service.impl;
 
+import com.natwest.primecalculator.entities.PrimeList;
 import com.natwest.primecalculator.entities.PrimeRange;
 import com.natwest.primecalculator.entities.SieveKey;
 import com.natwest.primecalculator.enums.SieveAndVersionEnum;
 import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
 import com.natwest.primecalculator.service.SieveOfEratosthenesService;
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.StopWatch;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -56,10 +57,12 @@ public class SieveOfEratosthenesV1ServiceImpl implements SieveOfEratosthenesServ
      *
      * Starting from index 2, all indexes in array A still set to true are primes;
      *
+     * In the implementation A is an OddPrimeBitmap rather than an array of booleans. It only holds the odd numbers at
+     * 1 bit each (16x smaller), so 2 is the only even prime added and only odd multiples of i are crossed off.
+     *
      * @param limit
      * @return PrimeRange
      */
-    @Cacheable("EratosthenesV1")
     @Override
     public PrimeRange getPrimeRange(int limit) {
         log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
@@ -72,21 +75,17 @@ public class SieveOfEratosthenesV1ServiceImpl implements SieveOfEratosthenesServ
         if(limit < 2)
             return new PrimeRange(limit, List.of());
 
-        boolean[] isPrimeArray = performEratosthenesMainLogic(limit);
+        OddPrimeBitmap isPrimeBitmap = performEratosthenesMainLogic(limit);
 
         //Array for picking up all the primes
-        List<Integer> primes = new ArrayList<>();
-        // Add all found prime numbers to list starting from index 2
-        for (int i = 2; i <= limit; i++) {
-            if (isPrimeArray[i]){
-                primes.add(i);
-            }
-        }
+        PrimeList.Builder primes = new PrimeList.Builder(SegmentedSieve.maxPrimesUpTo(limit));
+        // Add all found prime numbers to list starting from 2
+        isPrimeBitmap.forEachPrime(primes);
         watch.stop();
         log.info("Completed getPrimeRangeUsingSieveOfEratosthenes for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
 
 
-        return new PrimeRange(limit, primes);
+        return new PrimeRange(limit, primes.build());
     }
 
 
@@ -1,5 +1,6 @@
 package com.natwest.primecalculator.service.impl;
 
+import com.natwest.primecalculator.entities.PrimeList;
 import com.natwest.primecalculator.entities.PrimeRange;
 import com.natwest.primecalculator.entities.SieveKey;
 import com.natwest.primecalculator.enums.SieveAndVersionEnum;
@@ -7,12 +8,11 @@ import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
 import com.natwest.primecalculator.forkjoin.EratosthenesRecursiveAction;
 import com.natwest.primecalculator.service.SieveOfEratosthenesService;
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.StopWatch;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -43,7 +43,7 @@ public class SieveOfEratosthenesV2ServiceImpl implements SieveOfEratosthenesServ
     /**
      * Get Prime Range(Inclusive) Using Sieve Of Eratosthenes and concurrent aids version 2.
      *
-     * This method is the same as the main algorithm except for getting the primes from the array of booleans,
+     * This method is the same as the main algorithm except for getting the primes from the bitmap,
      * it uses ForkJoin with RecursiveAction and splitting tasks by 1k per thread to try to improve the performance for
      * big values of limit. It gathers the results with a ConcurrentHashMap.
      *
@@ -59,7 +59,6 @@ public class SieveOfEratosthenesV2ServiceImpl implements SieveOfEratosthenesServ
      * @param limit
      * @return PrimeRange
      */
-    @Cacheable("EratosthenesV2")
     @Override
     public PrimeRange getPrimeRange(int limit) {
         log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
@@ -72,22 +71,24 @@ public class SieveOfEratosthenesV2ServiceImpl implements SieveOfEratosthenesServ
         if(limit < 2)
             return new PrimeRange(limit, List.of());
 
-        //create array of booleans "isPrimeArray[0..limit]" with all entries set to true.
-        // isPrimeArray[i] will eventually be set to false if its not a prime
-        boolean[] isPrimeArray = performEratosthenesMainLogic(limit);
+        //create odd-only bitmap "isPrimeBitmap[0..limit]" with all entries starting as candidates.
+        // isPrimeBitmap.isPrime(i) will eventually be false if its not a prime
+        OddPrimeBitmap isPrimeBitmap = performEratosthenesMainLogic(limit);
 
         //uses ForkJoin with a RecursiveAction and splitting tasks by 1k per thread. list of primes will be unordered.
         // This will gather the results with a ConcurrentHashMap.
         ForkJoinPool forkJoinPool = new ForkJoinPool();
         ConcurrentMap<Integer, Integer> concurrentMap = new ConcurrentHashMap<>();
-        forkJoinPool.invoke(new EratosthenesRecursiveAction(2,isPrimeArray.length, isPrimeArray, concurrentMap));
+        forkJoinPool.invoke(new EratosthenesRecursiveAction(2, limit + 1, isPrimeBitmap, concurrentMap));
 
-        Collection<Integer> primes = concurrentMap.values();
+        //the gathered values are unordered, copy them out once into a sorted int[] so the result is compact
+        int[] sorted = concurrentMap.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+        PrimeList primes = PrimeList.of(sorted);
 
         watch.stop();
         log.info("ForkJoin ConcMap Imp Completed ConcurrentPrimeUtil.getPrimeRangeUsingSieveOfEratosthenesV2(..) for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
 
 
-        return new PrimeRange(limit, concurrentMap.values());
+        return new PrimeRange(limit, primes);
     }
 }
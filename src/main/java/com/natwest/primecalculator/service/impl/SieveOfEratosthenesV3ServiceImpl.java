@@ -1,5 +1,6 @@
 package com.natwest.primecalculator.service.impl;
 
+import com.natwest.primecalculator.entities.PrimeList;
 import com.natwest.primecalculator.entities.PrimeRange;
 import com.natwest.primecalculator.entities.SieveKey;
 import com.natwest.primecalculator.enums.SieveAndVersionEnum;
@@ -7,9 +8,9 @@ import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
 import com.natwest.primecalculator.forkjoin.EratosthenesRecursiveTask;
 import com.natwest.primecalculator.service.SieveOfEratosthenesService;
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.StopWatch;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -40,7 +41,7 @@ public class SieveOfEratosthenesV3ServiceImpl implements SieveOfEratosthenesServ
     /**
      * Get Prime Range(Inclusive) Using Sieve Of Eratosthenes and concurrent aids version 3.
      *
-     * This method is the same as the main algorithm except for getting the primes from the array of booleans,
+     * This method is the same as the main algorithm except for getting the primes from the bitmap,
      * it uses ForkJoin with RecursiveTask and splitting tasks by 1k per thread to try to improve the performance for
      * big values of limit. It gathers the results with a list created in each individual RecursiveTask which then gets
      * merged together  after join() process in the RecursiveTask. At the end you get all the merged lists as a single
@@ -58,7 +59,6 @@ public class SieveOfEratosthenesV3ServiceImpl implements SieveOfEratosthenesServ
      * @param limit
      * @return PrimeRange
      */
-    @Cacheable("EratosthenesV3")
     @Override
     public PrimeRange getPrimeRange(int limit) {
         log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
@@ -71,13 +71,13 @@ public class SieveOfEratosthenesV3ServiceImpl implements SieveOfEratosthenesServ
         if(limit < 2)
             return new PrimeRange(limit, List.of());
 
-        //create array of booleans "isPrimeArray[0..limit]" with all entries set to true.
-        // isPrimeArray[i] will eventually be set to false if its not a prime
-        boolean[] isPrimeArray = performEratosthenesMainLogic(limit);
+        //create odd-only bitmap "isPrimeBitmap[0..limit]" with all entries starting as candidates.
+        // isPrimeBitmap.isPrime(i) will eventually be false if its not a prime
+        OddPrimeBitmap isPrimeBitmap = performEratosthenesMainLogic(limit);
 
         //uses forkjoin and splitting tasks by 1k per thread. list of primes will be unordered.
         ForkJoinPool forkJoinPool = new ForkJoinPool();
-        List<Integer> primes = forkJoinPool.invoke(new EratosthenesRecursiveTask(2,isPrimeArray.length, isPrimeArray));
+        PrimeList primes = PrimeList.of(forkJoinPool.invoke(new EratosthenesRecursiveTask(2, limit + 1, isPrimeBitmap)));
 
         watch.stop();
         log.info("forkJoin list imp Completed ConcurrentPrimeUtil.getPrimeRangeUsingSieveOfEratosthenesv3(..) for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
@@ -0,0 +1,115 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveAndVersionEnum;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.SieveOfEratosthenesService;
+import com.natwest.primecalculator.service.WindowSieveService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sieve implementation class for Sieve Of Eratosthenes Version 5
+ */
+@Service
+@Slf4j
+public class SieveOfEratosthenesV5ServiceImpl implements SieveOfEratosthenesService, WindowSieveService {
+
+    /**
+     * Create static key to be mapped to this service
+     */
+    private static final SieveKey SERVICE_KEY = new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V5);
+
+    @Override
+    public SieveKey getSieveKey() {
+        return SERVICE_KEY;
+    }
+
+    @Override
+    public SieveAndVersionEnum getSieveEnum() {
+        return SieveAndVersionEnum.ERATOSTHENESV5;
+    }
+
+    /**
+     * Get Prime Range(Inclusive) Using a Segmented Sieve Of Eratosthenes.
+     *
+     * The other versions allocate one array of size (limit + 1) and stride across the whole of it for every prime, so
+     * once limit goes past a few million every pass misses the L1/L2 cache. This version first works out the base
+     * primes up to sqrt(limit) and then sieves the range in segments that fit in the L1 cache, so peak scratch memory
+     * is O(sqrt(limit) + segment) instead of O(limit). Only odd numbers are held in a segment.
+     * ----------------------------------------------------------------------------------------------------------------
+     * A simplified version of the algorithm, using N as the limit to which we want to find primes to:
+     *
+     * B = all primes up to sqrt(N) using the simple sieve;
+     *
+     * For each segment [low, high] of size S between 2 and N:
+     *     A = Array of boolean of size S;
+     *     Mark all elements of A as true;
+     *     For each p in B where p^2 <= high:
+     *         For b in first multiple of p >= max(p^2, low) to high with increments b += p:
+     *             A[b - low] = false;
+     *     All indexes in A still set to true are primes (offset by low);
+     *
+     * For the implementation see SegmentedSieve.forEachPrime(..).
+     *
+     * @param limit
+     * @return PrimeRange
+     */
+    @Override
+    public PrimeRange getPrimeRange(int limit) {
+        log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getPrimeRangeUsingSegmentedSieveOfEratosthenes for {}", limit);
+
+        //value less than 2 always returns empty list of primes
+        if(limit < 2)
+            return new PrimeRange(limit, List.of());
+
+        //Array for picking up all the primes, segment by segment in ascending order
+        PrimeList.Builder primes = new PrimeList.Builder(SegmentedSieve.maxPrimesUpTo(limit));
+        SegmentedSieve.forEachPrime(2, limit, prime -> primes.add((int) prime));
+
+        watch.stop();
+        log.info("Completed getPrimeRangeUsingSegmentedSieveOfEratosthenes for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
+
+        return new PrimeRange(limit, primes.build());
+    }
+
+    /**
+     * Get the primes within [from, to] without sieving from 2. Only the base primes up to sqrt(to) are worked out, then
+     * the segments covering the window are crossed off one after the other, so the cost and the scratch memory scale
+     * with the width of the window rather than with to. Windows are not cached.
+     * @param from
+     * @param to
+     * @return PrimeWindow
+     */
+    @Override
+    public PrimeWindow getPrimeWindow(long from, long to) {
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getSegmentedSieveOfEratosthenesWindow for [{}, {}]", from, to);
+
+        if(to < 2 || from > to)
+            return new PrimeWindow(from, to, new long[0]);
+
+        long[] primes = new long[SegmentedSieve.maxPrimesInRange(from, to)];
+        int[] count = {0};
+        SegmentedSieve.forEachPrime(from, to, prime -> primes[count[0]++] = prime);
+
+        watch.stop();
+        log.info("Completed getSegmentedSieveOfEratosthenesWindow for [{}, {}]. Time Taken(Nano seconds): {}, Number of Primes: {}", from, to, watch.getNanoTime(), count[0]);
+
+        return new PrimeWindow(from, to, Arrays.copyOf(primes, count[0]));
+    }
+}
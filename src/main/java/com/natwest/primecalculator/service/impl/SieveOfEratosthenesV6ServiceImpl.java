@@ -0,0 +1,85 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveAndVersionEnum;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.SieveOfEratosthenesService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import com.natwest.primecalculator.sieve.Wheel;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Sieve implementation class for Sieve Of Eratosthenes Version 6
+ */
+@Service
+@Slf4j
+public class SieveOfEratosthenesV6ServiceImpl implements SieveOfEratosthenesService {
+
+    /**
+     * Create static key to be mapped to this service
+     */
+    private static final SieveKey SERVICE_KEY = new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V6);
+
+    /**
+     * wheel to sieve with, mod 30 by default
+     */
+    private final Wheel wheel;
+
+    public SieveOfEratosthenesV6ServiceImpl(@Value("${primecalculator.wheel.modulus:30}") int wheelModulus) {
+        this.wheel = Wheel.of(wheelModulus);
+    }
+
+    @Override
+    public SieveKey getSieveKey() {
+        return SERVICE_KEY;
+    }
+
+    @Override
+    public SieveAndVersionEnum getSieveEnum() {
+        return SieveAndVersionEnum.ERATOSTHENESV6;
+    }
+
+    /**
+     * Get Prime Range(Inclusive) Using a Wheel Factorised Sieve Of Eratosthenes.
+     *
+     * All the other versions consider every integer (or every odd one), even though 2, 3 and 5 alone rule out about
+     * 73% of the candidates. This version only stores and sieves the numbers coprime to 30 (or to 210 when
+     * primecalculator.wheel.modulus=210), and the multiples of the next few small primes are pre-sieved from a
+     * precomputed bit pattern rather than crossed off one at a time. That is 8 bits per 30 numbers, about 3.75x
+     * less memory than the odd-only bitmap.
+     *
+     * For the algorithm details see Wheel.forEachPrime(..).
+     *
+     * @param limit
+     * @return PrimeRange
+     */
+    @Override
+    public PrimeRange getPrimeRange(int limit) {
+        log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getPrimeRangeUsingWheelSieveOfEratosthenes(mod {}) for {}", wheel.modulus(), limit);
+
+        //value less than 2 always returns empty list of primes
+        if(limit < 2)
+            return new PrimeRange(limit, List.of());
+
+        //Array for picking up all the primes in ascending order
+        PrimeList.Builder primes = new PrimeList.Builder(SegmentedSieve.maxPrimesUpTo(limit));
+        wheel.forEachPrime(limit, primes);
+
+        watch.stop();
+        log.info("Completed getPrimeRangeUsingWheelSieveOfEratosthenes(mod {}) for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", wheel.modulus(), limit, watch.getNanoTime(), primes.size());
+
+        return new PrimeRange(limit, primes.build());
+    }
+}
@@ -0,0 +1,120 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveAndVersionEnum;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.forkjoin.SegmentRecursiveAction;
+import com.natwest.primecalculator.service.SieveOfEratosthenesService;
+import com.natwest.primecalculator.service.WindowSieveService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Sieve implementation class for Sieve Of Eratosthenes Version 7
+ */
+@Service
+@Slf4j
+public class SieveOfEratosthenesV7ServiceImpl implements SieveOfEratosthenesService, WindowSieveService {
+
+    /**
+     * Create static key to be mapped to this service
+     */
+    private static final SieveKey SERVICE_KEY = new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V7);
+
+    @Override
+    public SieveKey getSieveKey() {
+        return SERVICE_KEY;
+    }
+
+    @Override
+    public SieveAndVersionEnum getSieveEnum() {
+        return SieveAndVersionEnum.ERATOSTHENESV7;
+    }
+
+    /**
+     * Get Prime Range(Inclusive) Using a Parallel Segmented Sieve Of Eratosthenes.
+     *
+     * Versions 2, 3 and 4 only parallelise gathering the primes at the end, crossing off the composites still runs on
+     * one thread and that is where nearly all the time goes. This version parallelises the marking phase itself. The
+     * base primes up to sqrt(limit) are worked out once, then the range is split into independent segments which are
+     * crossed off concurrently on the ForkJoin common pool using SegmentRecursiveAction. Each worker sieves
+     * into its own segment buffer so there is no false sharing, and the per-segment primes are merged back in order.
+     *
+     * For better explanation of the Segmented Sieve Of Eratosthenes please refer to java doc in
+     * SieveOfEratosthenesV5ServiceImpl.getPrimeRange(final int limit).
+     *
+     * @param limit
+     * @return PrimeRange
+     */
+    @Override
+    public PrimeRange getPrimeRange(int limit) {
+        log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getPrimeRangeUsingParallelSegmentedSieveOfEratosthenes for {}", limit);
+
+        //value less than 2 always returns empty list of primes
+        if(limit < 2)
+            return new PrimeRange(limit, List.of());
+
+        //base primes are shared read only by all the workers
+        int[] basePrimes = SegmentedSieve.basePrimes((int) SegmentedSieve.isqrt(limit));
+
+        //cross off every segment in parallel, segmentPrimes[k] will hold the primes of segment k
+        int[][] segmentPrimes = SegmentRecursiveAction.invoke(0, limit,
+                (from, to, action) -> SegmentedSieve.forEachPrime(from, to, basePrimes, action));
+
+        //merge the segments back in order, segment 0 starts at 0 so the relative primes are the primes
+        int total = 0;
+        for (int[] segment : segmentPrimes) {
+            total += segment.length;
+        }
+        int[] merged = new int[total];
+        int size = 0;
+        for (int[] segment : segmentPrimes) {
+            System.arraycopy(segment, 0, merged, size, segment.length);
+            size += segment.length;
+        }
+        PrimeList primes = PrimeList.of(merged);
+
+        watch.stop();
+        log.info("Completed getPrimeRangeUsingParallelSegmentedSieveOfEratosthenes for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
+
+        return new PrimeRange(limit, primes);
+    }
+
+    /**
+     * Get the primes within [from, to] without sieving from 2. Only the base primes up to sqrt(to) are worked out, then
+     * just the segments covering the window are crossed off, in parallel. Windows are not cached.
+     * @param from
+     * @param to
+     * @return PrimeWindow
+     */
+    @Override
+    public PrimeWindow getPrimeWindow(long from, long to) {
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getParallelSegmentedSieveOfEratosthenesWindow for [{}, {}]", from, to);
+
+        if(to < 2 || from > to)
+            return new PrimeWindow(from, to, new long[0]);
+
+        int[] basePrimes = SegmentedSieve.basePrimes((int) SegmentedSieve.isqrt(to));
+        long[] primes = SegmentRecursiveAction.merge(from, SegmentRecursiveAction.invoke(from, to,
+                (low, high, action) -> SegmentedSieve.forEachPrime(low, high, basePrimes, action)));
+
+        watch.stop();
+        log.info("Completed getParallelSegmentedSieveOfEratosthenesWindow for [{}, {}]. Time Taken(Nano seconds): {}, Number of Primes: {}", from, to, watch.getNanoTime(), primes.length);
+
+        return new PrimeWindow(from, to, primes);
+    }
+}
@@ -0,0 +1,129 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveAndVersionEnum;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.service.SmallestPrimeFactorService;
+import com.natwest.primecalculator.sieve.SmallestPrimeFactorTable;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sieve implementation class for the linear Sieve Of Euler, Version 1
+ */
+@Service
+@Slf4j
+public class SieveOfEulerServiceImpl implements SieveService, SmallestPrimeFactorService {
+
+    /**
+     * Create static key to be mapped to this service
+     */
+    private static final SieveKey SERVICE_KEY = new SieveKey(SieveEnum.EULER, VersionEnum.V1);
+
+    /**
+     * largest table kept, past it tables are built for the one call and dropped
+     */
+    private final int tableLimit;
+
+    /**
+     * largest smallest prime factor table built so far up to tableLimit. Any limit up to its limit is answered from it.
+     */
+    private final AtomicReference<SmallestPrimeFactorTable> table = new AtomicReference<>();
+
+    /**
+     * constructor
+     * @param tableLimit largest table kept for later calls, a table takes about 1 byte per number plus its primes
+     */
+    public SieveOfEulerServiceImpl(@Value("${primecalculator.factors.table-limit:16777216}") int tableLimit) {
+        this.tableLimit = tableLimit;
+    }
+
+    @Override
+    public SieveKey getSieveKey() {
+        return SERVICE_KEY;
+    }
+
+    @Override
+    public SieveAndVersionEnum getSieveEnum() {
+        return SieveAndVersionEnum.EULERV1;
+    }
+
+    /**
+     * Get Prime Range(Inclusive) Using the linear Sieve Of Euler.
+     *
+     * Sieve of Eratosthenes crosses a composite off once for every distinct prime factor it has up to its square root,
+     * e.g. 30 is written by 2, 3 and 5. The linear sieve writes every composite exactly once, by its smallest prime
+     * factor, and records that factor as it goes, so the primes and a smallest prime factor table come out of the same
+     * O(n) pass.
+     * ----------------------------------------------------------------------------------------------------------------
+     * A simplified version of the algorithm, using N as the limit to which we want to find primes to:
+     *
+     * P = empty list of primes; spf = table of N + 1 zeros;
+     * For i in 2 to N:
+     *     If spf[i] == 0, i is a prime: spf[i] = i and add i to P;
+     *     For each p in P while p <= spf[i] and i * p <= N:
+     *         spf[i * p] = p;
+     * Return P;
+     *
+     * Every composite c = p * i with p = spf[c] is reached only from i = c / p, as any other split c = q * j has
+     * q > spf[j]. The table is kept (see SmallestPrimeFactorTable for the odd-only, char packed layout) so that any
+     * n <= limit can then be factorised in O(log n) by repeatedly dividing by spf[n].
+     *
+     * @param limit
+     * @return PrimeRange
+     */
+    @Override
+    public PrimeRange getPrimeRange(int limit) {
+        log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getPrimeRangeUsingSieveOfEuler for {}", limit);
+
+        //value less than 2 always returns empty list of primes
+        if(limit < 2)
+            return new PrimeRange(limit, List.of());
+
+        //the table may cover more than limit when it was built for a higher one earlier
+        int[] tablePrimes = getSmallestPrimeFactorTable(limit).primes();
+        int count = Arrays.binarySearch(tablePrimes, limit);
+        count = count >= 0 ? count + 1 : -count - 1;
+        PrimeList primes = PrimeList.of(Arrays.copyOf(tablePrimes, count));
+
+        watch.stop();
+        log.info("Completed getPrimeRangeUsingSieveOfEuler for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
+
+        return new PrimeRange(limit, primes);
+    }
+
+    /**
+     * get the kept table if it already covers limit, otherwise sieve a new one and keep it if it is the largest yet.
+     * A table past tableLimit is never kept, /primes/euler/v1/2000000000 would otherwise hold about 2.4GB for good,
+     * outside the cache budget and out of reach of HeapPressureMonitor.
+     * @param limit
+     * @return SmallestPrimeFactorTable
+     */
+    @Override
+    public SmallestPrimeFactorTable getSmallestPrimeFactorTable(int limit) {
+        SmallestPrimeFactorTable current = table.get();
+        if (current != null && current.limit() >= limit)
+            return current;
+
+        SmallestPrimeFactorTable built = SmallestPrimeFactorTable.sieve(Math.max(limit, 1));
+        if (limit > tableLimit)
+            return built;
+        //another thread may have built a larger one in the meantime
+        return table.accumulateAndGet(built,
+                (previous, next) -> previous != null && previous.limit() >= next.limit() ? previous : next);
+    }
+}
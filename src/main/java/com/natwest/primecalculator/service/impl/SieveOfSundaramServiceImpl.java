@@ -1,18 +1,18 @@
 package com.natwest.primecalculator.service.impl;
 
+import com.natwest.primecalculator.entities.PrimeList;
 import com.natwest.primecalculator.entities.PrimeRange;
 import com.natwest.primecalculator.entities.SieveKey;
 import com.natwest.primecalculator.enums.SieveAndVersionEnum;
 import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
 import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.StopWatch;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -68,7 +68,6 @@ public class SieveOfSundaramServiceImpl implements SieveService {
      * @param limit
      * @return PrimeRange
      */
-    @Cacheable("Sundaram")
     @Override
     public PrimeRange getPrimeRange(int limit) {
         log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
@@ -84,11 +83,9 @@ public class SieveOfSundaramServiceImpl implements SieveService {
         // nNew = Floor of (limit-1)/2
         int nNew = (limit - 1) / 2;
 
-        // marked = Array of boolean of size (nNew + 1)
-        boolean[] marked = new boolean[nNew + 1];
-
-        // Mark all elements of marked as false
-        Arrays.fill(marked, false);
+        // marked = bitmap of size (nNew + 1). Bit k of an OddPrimeBitmap already represents the odd number 2k + 1,
+        // so it is exactly Sundaram's marked array at 1 bit per entry. All entries start unmarked.
+        OddPrimeBitmap marked = new OddPrimeBitmap(limit);
 
         // Main logic of Sundaram. Mark all numbers of the
         // form i + j + 2ij as true where 1 <= i <= j
@@ -105,28 +102,19 @@ public class SieveOfSundaramServiceImpl implements SieveService {
 
             //back to Sundaram
             for (; (i + j + 2 * i * j) <= nNew; j++) {
-                Long index = i + j + 2 * i * j;
-                marked[index.intValue()] = true;
+                marked.markIndex(i + j + 2 * i * j);
             }
         }
 
-        List<Integer> primes = new ArrayList<>();
-        // Since 2 is a prime number, add it to our list of primes
-        if (limit >= 2){
-            primes.add(2);
-        }
-
-        // For each index i, in marked still set to false:
+        // Since 2 is a prime number, it is added to our list of primes first.
+        // Then for each index i, in marked still set to false:
         // 2i + 1 is a prime
-        for (int i = 1; i <= nNew; i++){
-            if (!marked[i]){
-                primes.add(2 * i + 1);
-            }
-        }
+        PrimeList.Builder primes = new PrimeList.Builder(SegmentedSieve.maxPrimesUpTo(limit));
+        marked.forEachPrime(primes);
 
         watch.stop();
         log.info("Completed getPrimeRangeUsingSieveOfSundaram for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
 
-        return new PrimeRange(limit, primes);
+        return new PrimeRange(limit, primes.build());
     }
 }
@@ -0,0 +1,81 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveAndVersionEnum;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.forkjoin.SundaramRecursiveAction;
+import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.sieve.OddPrimeBitmap;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Sieve implementation class for Sieve Of Sundaram Version 2
+ */
+@Service
+@Slf4j
+public class SieveOfSundaramV2ServiceImpl implements SieveService {
+
+    /**
+     * Create static key to be mapped to this service
+     */
+    private static final SieveKey SERVICE_KEY = new SieveKey(SieveEnum.SUNDARAM, VersionEnum.V2);
+
+    @Override
+    public SieveKey getSieveKey() {
+        return SERVICE_KEY;
+    }
+
+    @Override
+    public SieveAndVersionEnum getSieveEnum() {
+        return SieveAndVersionEnum.SUNDARAMV2;
+    }
+
+    /**
+     * Get Prime Range(Inclusive) Using an Allocation Free, Parallel Sieve Of Sundaram.
+     *
+     * Same algorithm as version 1 (see SieveOfSundaramServiceImpl.getPrimeRange(final int limit)) with only primitive
+     * indexes and the bit-packed OddPrimeBitmap as the marked array. Marking is split across the ForkJoin common pool
+     * with SundaramRecursiveAction. Rather than handing each worker a slice of the outer i loop, which would let
+     * workers write all over the array, each worker owns a disjoint, cache line aligned slice of the marked indexes
+     * and runs the outer i loop only for the indexes in its slice. The result is identical to version 1.
+     *
+     * @param limit
+     * @return PrimeRange
+     */
+    @Override
+    public PrimeRange getPrimeRange(int limit) {
+        log.info("Sieve Of {}: Working out primes for {} for the 1st time", getSieveEnum(), limit);
+        //use stopwatch to monitor duration
+        StopWatch watch = new StopWatch();
+        watch.start();
+        log.info("Starting getPrimeRangeUsingParallelSieveOfSundaram for {}", limit);
+
+        //value less than 2 always returns empty list of primes
+        if(limit < 2)
+            return new PrimeRange(limit, List.of());
+
+        // marked = bitmap of size (nNew + 1) where nNew = Floor of (limit-1)/2
+        OddPrimeBitmap marked = new OddPrimeBitmap(limit);
+
+        // Mark all numbers of the form i + j + 2ij <= nNew as true where 1 <= i <= j, in parallel
+        ForkJoinPool.commonPool().invoke(new SundaramRecursiveAction(0, marked.maxIndex() + 1L, marked));
+
+        // 2 followed by 2i + 1 for each index i, in marked still set to false
+        PrimeList.Builder primes = new PrimeList.Builder(SegmentedSieve.maxPrimesUpTo(limit));
+        marked.forEachPrime(primes);
+
+        watch.stop();
+        log.info("Completed getPrimeRangeUsingParallelSieveOfSundaram for {}. Time Taken(Nano seconds): {}, Number of Primes: {}", limit, watch.getNanoTime(), primes.size());
+
+        return new PrimeRange(limit, primes.build());
+    }
+}
@@ -0,0 +1,71 @@
+package com.natwest.primecalculator.sieve;
+
+/**
+ * Deterministic Miller-Rabin primality test for any (positive) 64 bit long.
+ *
+ * Write n - 1 = d * 2^s with d odd. n is a strong probable prime to base a if a^d == 1 (mod n) or
+ * a^(d * 2^r) == -1 (mod n) for some 0 <= r < s. A fixed set of bases is known to have no strong pseudoprimes below a
+ * bound, so testing against all of them is a proof rather than a probability:
+ *
+ *     n < 4,759,123,141 => bases 2, 7, 61
+ *     n < 2^64          => bases 2, 325, 9375, 28178, 450775, 9780504, 1795265022 (Jim Sinclair)
+ *
+ * All the modular multiplication is done in Montgomery form. Small factors are ruled out by trial division first as
+ * they make up most composite inputs.
+ */
+public final class MillerRabin {
+
+    private static final long[] SMALL_BASES = {2, 7, 61};
+    private static final long SMALL_BASES_BOUND = 4_759_123_141L;
+    private static final long[] BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+
+    /**
+     * primes used for the trial division, and the answers for n below 53^2
+     */
+    private static final int[] TRIAL_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47};
+
+    private MillerRabin() {
+    }
+
+    /**
+     * @param n
+     * @return true if n is a prime
+     */
+    public static boolean isPrime(long n) {
+        if (n < 2)
+            return false;
+        for (int p : TRIAL_PRIMES) {
+            if (n % p == 0)
+                return n == p;
+        }
+        if (n < 53L * 53)
+            return true;
+
+        Montgomery montgomery = new Montgomery(n);
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+        long one = montgomery.one();
+        long minusOne = n - one;
+
+        for (long base : n < SMALL_BASES_BOUND ? SMALL_BASES : BASES) {
+            long a = base % n;
+            if (a == 0)
+                continue;
+            long x = montgomery.pow(montgomery.toMontgomery(a), d);
+            if (x == one || x == minusOne)
+                continue;
+            boolean composite = true;
+            for (int r = 1; r < s; r++) {
+                x = montgomery.multiply(x, x);
+                if (x == minusOne) {
+                    composite = false;
+                    break;
+                }
+            }
+            if (composite)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+package com.natwest.primecalculator.sieve;
+
+/**
+ * Modular arithmetic for an odd 64 bit modulus using Montgomery multiplication.
+ *
+ * a * b mod n normally needs a 128 bit product and a 128 bit by 64 bit division, which Java only has through
+ * BigInteger. In Montgomery form (a * R mod n with R = 2^64) the reduction after a multiply is two multiplies, an add
+ * and a conditional subtract instead, with no division at all. Values are converted into Montgomery form once, all the
+ * multiplying is done there and the result converted back (or compared against toMontgomery(1) directly).
+ *
+ * The modulus must be odd and positive, i.e. < 2^63, which keeps every intermediate sum below 2^64.
+ */
+public final class Montgomery {
+
+    /**
+     * the odd modulus
+     */
+    private final long modulus;
+    /**
+     * -modulus^-1 mod 2^64
+     */
+    private final long negativeInverse;
+    /**
+     * R mod modulus, i.e. 1 in Montgomery form
+     */
+    private final long one;
+    /**
+     * R^2 mod modulus, used to convert into Montgomery form
+     */
+    private final long rSquared;
+
+    /**
+     * constructor
+     * @param modulus odd and > 1
+     */
+    public Montgomery(long modulus) {
+        if (modulus <= 1 || (modulus & 1) == 0)
+            throw new IllegalArgumentException("modulus must be odd and > 1 but was " + modulus);
+        this.modulus = modulus;
+
+        //Newton's iteration doubles the number of correct low bits each step, modulus is its own inverse mod 8
+        long inverse = modulus;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - modulus * inverse;
+        }
+        this.negativeInverse = -inverse;
+
+        this.one = Long.remainderUnsigned(-modulus, modulus);
+        //R^2 mod n = R mod n doubled 64 more times
+        long r = one;
+        for (int i = 0; i < 64; i++) {
+            r <<= 1;
+            if (Long.compareUnsigned(r, modulus) >= 0)
+                r -= modulus;
+        }
+        this.rSquared = r;
+    }
+
+    public long modulus() {
+        return modulus;
+    }
+
+    /**
+     * @return 1 in Montgomery form
+     */
+    public long one() {
+        return one;
+    }
+
+    /**
+     * @param a 0 <= a < modulus
+     * @return a in Montgomery form
+     */
+    public long toMontgomery(long a) {
+        return multiply(a, rSquared);
+    }
+
+    /**
+     * @param a in Montgomery form
+     * @return a back in ordinary form
+     */
+    public long fromMontgomery(long a) {
+        return reduce(0, a);
+    }
+
+    /**
+     * @param a in Montgomery form
+     * @param b in Montgomery form
+     * @return a * b in Montgomery form
+     */
+    public long multiply(long a, long b) {
+        return reduce(unsignedMultiplyHigh(a, b), a * b);
+    }
+
+    /**
+     * @param a in Montgomery form
+     * @param b in Montgomery form
+     * @return a + b in Montgomery form
+     */
+    public long add(long a, long b) {
+        long sum = a + b;
+        return Long.compareUnsigned(sum, modulus) >= 0 ? sum - modulus : sum;
+    }
+
+    /**
+     * @param base in Montgomery form
+     * @param exponent >= 0
+     * @return base^exponent in Montgomery form
+     */
+    public long pow(long base, long exponent) {
+        long result = one;
+        while (exponent != 0) {
+            if ((exponent & 1) == 1)
+                result = multiply(result, base);
+            base = multiply(base, base);
+            exponent >>>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * REDC: (hi * 2^64 + lo) / R mod modulus for hi < modulus
+     */
+    private long reduce(long hi, long lo) {
+        long m = lo * negativeInverse;
+        //lo + low(m * modulus) is 0 mod 2^64, so it carries exactly when lo != 0
+        long result = hi + unsignedMultiplyHigh(m, modulus) + (lo != 0 ? 1 : 0);
+        return Long.compareUnsigned(result, modulus) >= 0 ? result - modulus : result;
+    }
+
+    /**
+     * high 64 bits of the unsigned 128 bit product a * b
+     */
+    static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+}
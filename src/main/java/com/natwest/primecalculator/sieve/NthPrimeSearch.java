@@ -0,0 +1,137 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.Arrays;
+
+/**
+ * Finds the n-th prime without sieving everything below it: estimate, count, then sieve only the short last window.
+ *
+ *     x = li^-1(n);            //prime number theorem estimate of p(n), Newton's method on the logarithmic integral
+ *     c = pi(x);               //PrimeCounter, O(x^(3/4)) time and O(sqrt(x)) memory
+ *     If c >= n: sieve back from x, the answer is the (c - n + 1)-th prime <= x counting down;
+ *     Else:      sieve on from x + 1, the answer is the (n - c)-th prime > x;
+ *
+ * li^-1(n) is within about sqrt(x) / log(x) primes of p(n), e.g. a few thousand primes at n = 10^9, so the last window
+ * is only a few hundred thousand numbers wide and is sieved with SegmentedSieve in a millisecond or so.
+ */
+public final class NthPrimeSearch {
+
+    /**
+     * below this n the primes are simply sieved from 2 up to an upper bound of p(n)
+     */
+    private static final long SIEVE_ONLY_BELOW = 100_000;
+
+    private NthPrimeSearch() {
+    }
+
+    /**
+     * @param n 1 based, i.e. nthPrime(1) == 2
+     * @return the n-th prime
+     */
+    public static long nthPrime(long n) {
+        if (n < 1)
+            throw new IllegalArgumentException("n must be >= 1 but was " + n);
+
+        if (n < SIEVE_ONLY_BELOW)
+            return primesWithin(2, upperBound(n))[(int) (n - 1)];
+
+        long estimate = inverseLogarithmicIntegral(n);
+        long count = PrimeCounter.countPrimes(estimate);
+        return count >= n ? backwards(estimate, count - n + 1) : forwards(estimate + 1, n - count);
+    }
+
+    /**
+     * @param from
+     * @param rank 1 based
+     * @return the rank-th prime >= from
+     */
+    private static long forwards(long from, long rank) {
+        long span = windowSpan(from, rank);
+        while (true) {
+            long to = from + span - 1;
+            long[] primes = primesWithin(from, to);
+            if (primes.length >= rank)
+                return primes[(int) (rank - 1)];
+            rank -= primes.length;
+            from = to + 1;
+        }
+    }
+
+    /**
+     * @param to
+     * @param rank 1 based
+     * @return the rank-th prime <= to, counting down from to
+     */
+    private static long backwards(long to, long rank) {
+        long span = windowSpan(to, rank);
+        while (true) {
+            long from = Math.max(2, to - span + 1);
+            long[] primes = primesWithin(from, to);
+            if (primes.length >= rank)
+                return primes[(int) (primes.length - rank)];
+            rank -= primes.length;
+            to = from - 1;
+        }
+    }
+
+    /**
+     * Rosser's theorem, p(n) < n * (log(n) + log(log(n))) for n >= 6
+     */
+    private static long upperBound(long n) {
+        return n < 6 ? 13 : (long) (n * (Math.log(n) + Math.log(Math.log(n))));
+    }
+
+    /**
+     * window wide enough to usually hold rank primes near x in one go, the average gap near x being log(x)
+     */
+    private static long windowSpan(long x, long rank) {
+        return Math.max(1 << 16, (long) ((rank + 64) * Math.log(Math.max(x, 3)) * 1.25));
+    }
+
+    private static long[] primesWithin(long from, long to) {
+        long[] primes = new long[SegmentedSieve.maxPrimesInRange(from, to)];
+        int[] count = {0};
+        SegmentedSieve.forEachPrime(from, to, prime -> primes[count[0]++] = prime);
+        return Arrays.copyOf(primes, count[0]);
+    }
+
+    /**
+     * Solve li(x) = n with Newton's method, li'(x) = 1 / log(x)
+     * @param n >= 2
+     * @return x
+     */
+    static long inverseLogarithmicIntegral(long n) {
+        double x = n * Math.log(n);
+        for (int i = 0; i < 100; i++) {
+            double next = x - (logarithmicIntegral(x) - n) * Math.log(x);
+            if (Math.abs(next - x) < 0.5) {
+                x = next;
+                break;
+            }
+            x = next;
+        }
+        return (long) x;
+    }
+
+    /**
+     * li(x) using Ramanujan's series, x > 1
+     * @param x
+     * @return double
+     */
+    static double logarithmicIntegral(double x) {
+        double logX = Math.log(x);
+        double sum = 0;
+        double term = 1;
+        double inner = 0;
+        for (int k = 1; k < 200; k++) {
+            //term = (-1)^(k - 1) * log(x)^k / (k! * 2^(k - 1))
+            term *= (k == 1 ? logX : -logX / (2.0 * k));
+            if (((k - 1) & 1) == 0)
+                inner += 1.0 / k;
+            double delta = term * inner;
+            sum += delta;
+            if (Math.abs(delta) < 1e-17 * Math.abs(sum))
+                break;
+        }
+        return 0.5772156649015329 + Math.log(logX) + Math.sqrt(x) * sum;
+    }
+}
@@ -0,0 +1,197 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Bit-packed, odd-only sieve storage.
+ *
+ * 2 is the only even prime so even numbers are never stored. Bit i of the backing long[] represents the odd number
+ * 2i + 1 and is set once that number is known to be composite, so a new bitmap starts with every odd number as a
+ * candidate and no Arrays.fill(..) is needed. At 1 bit per odd number this is 16x smaller than a boolean[] and 64x
+ * smaller than an int[] over the same range, e.g. 128MB rather than 2GB of scratch at Integer.MAX_VALUE.
+ *
+ * The sieves write into it either by value (markComposite/crossOffMultiples) or, for Sieve of Sundaram, directly by
+ * index as Sundaram's k already means the odd number 2k + 1.
+ */
+public final class OddPrimeBitmap {
+
+    /**
+     * highest value (inclusive) represented by this bitmap
+     */
+    private final int limit;
+    /**
+     * highest bit index in use, i.e. the index of the largest odd number <= limit
+     */
+    private final int maxIndex;
+    /**
+     * bit i set means 2i + 1 is composite
+     */
+    private final long[] words;
+
+    /**
+     * constructor. 1 is marked as not prime straight away.
+     * @param limit highest value (inclusive) to hold, must be >= 1
+     */
+    public OddPrimeBitmap(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("limit must be >= 1 but was " + limit);
+        this.limit = limit;
+        this.maxIndex = (limit - 1) >>> 1;
+        this.words = new long[(maxIndex >>> 6) + 1];
+        markIndex(0);
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * highest bit index in use. This is Sundaram's nNew = (limit - 1) / 2.
+     * @return int
+     */
+    public int maxIndex() {
+        return maxIndex;
+    }
+
+    /**
+     * mark bit index as composite i.e. the odd number 2 * index + 1
+     * @param index
+     */
+    public void markIndex(long index) {
+        words[(int) (index >>> 6)] |= 1L << index;
+    }
+
+    /**
+     * @param index
+     * @return true if the odd number 2 * index + 1 is still a prime candidate
+     */
+    public boolean isCandidateIndex(long index) {
+        return (words[(int) (index >>> 6)] & (1L << index)) == 0;
+    }
+
+    /**
+     * mark the odd number n as composite
+     * @param n odd number <= limit
+     */
+    public void markComposite(int n) {
+        markIndex(n >>> 1);
+    }
+
+    /**
+     * Cross off all odd multiples of the odd prime p starting from p^2. Even multiples are never stored so the stride
+     * is 2p in value, or p in bit index.
+     * @param p odd prime
+     */
+    public void crossOffMultiples(int p) {
+        for (long i = ((long) p * p) >>> 1; i <= maxIndex; i += p) {
+            words[(int) (i >>> 6)] |= 1L << i;
+        }
+    }
+
+    /**
+     * @param n
+     * @return true if n is a prime. n must be <= limit
+     */
+    public boolean isPrime(int n) {
+        if (n < 3)
+            return n == 2;
+        return (n & 1) == 1 && isCandidateIndex(n >>> 1);
+    }
+
+    /**
+     * @param n
+     * @return the smallest prime > n, or -1 if there is none <= limit
+     */
+    public int nextPrime(int n) {
+        if (n < 2)
+            return limit >= 2 ? 2 : -1;
+        long index = ((long) n + 1) >>> 1;
+        if (index > maxIndex)
+            return -1;
+        int w = (int) (index >>> 6);
+        long candidates = ~words[w] & (-1L << index);
+        while (candidates == 0) {
+            if (++w > (maxIndex >>> 6))
+                return -1;
+            candidates = ~words[w];
+        }
+        long found = ((long) w << 6) + Long.numberOfTrailingZeros(candidates);
+        return found > maxIndex ? -1 : (int) (2 * found + 1);
+    }
+
+    /**
+     * @param n
+     * @return the largest prime < n, or -1 if n <= 2. n must be <= limit + 1
+     */
+    public int previousPrime(int n) {
+        if (n <= 3)
+            return n == 3 ? 2 : -1;
+        //index of the largest odd number < n
+        long index = ((long) n - 2) >>> 1;
+        int w = (int) (index >>> 6);
+        long candidates = ~words[w] & (-1L >>> (63 - (index & 63)));
+        //bit 0 (the number 1) is always marked, so this stops at word 0 at the latest
+        while (candidates == 0 && w > 0) {
+            candidates = ~words[--w];
+        }
+        if (candidates == 0)
+            return 2;
+        long found = ((long) w << 6) + 63 - Long.numberOfLeadingZeros(candidates);
+        return (int) (2 * found + 1);
+    }
+
+    /**
+     * call action with every prime within [from, to] in ascending order. Scans 64 candidates at a time.
+     * @param from inclusive
+     * @param to inclusive, capped at limit
+     * @param action
+     */
+    public void forEachPrime(int from, int to, IntConsumer action) {
+        to = Math.min(to, limit);
+        if (to < 2 || from > to)
+            return;
+        if (from <= 2)
+            action.accept(2);
+
+        long fromIndex = Math.max(from, 1) >>> 1;
+        long toIndex = ((long) to - 1) >>> 1;
+        if (fromIndex > toIndex)
+            return;
+
+        int firstWord = (int) (fromIndex >>> 6);
+        int lastWord = (int) (toIndex >>> 6);
+        for (int w = firstWord; w <= lastWord; w++) {
+            long candidates = ~words[w];
+            if (w == firstWord)
+                candidates &= -1L << fromIndex;
+            if (w == lastWord)
+                candidates &= -1L >>> (63 - (toIndex & 63));
+            while (candidates != 0) {
+                long index = ((long) w << 6) + Long.numberOfTrailingZeros(candidates);
+                action.accept((int) (2 * index + 1));
+                candidates &= candidates - 1;
+            }
+        }
+    }
+
+    /**
+     * call action with every prime up to and including limit in ascending order
+     * @param action
+     */
+    public void forEachPrime(IntConsumer action) {
+        forEachPrime(2, limit, action);
+    }
+
+    /**
+     * @return number of primes up to and including limit
+     */
+    public int countPrimes() {
+        int count = limit >= 2 ? 1 : 0;
+        int lastWord = (int) (maxIndex >>> 6);
+        for (int w = 0; w < lastWord; w++) {
+            count += Long.bitCount(~words[w]);
+        }
+        count += Long.bitCount(~words[lastWord] & (-1L >>> (63 - (maxIndex & 63))));
+        return count;
+    }
+}
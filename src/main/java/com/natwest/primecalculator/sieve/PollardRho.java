@@ -0,0 +1,108 @@
+package com.natwest.primecalculator.sieve;
+
+/**
+ * Brent's variant of Pollard's rho for splitting a composite 64 bit long.
+ *
+ * The sequence x(i + 1) = x(i)^2 + c mod n is also a sequence mod every prime factor p of n, and mod p it must cycle
+ * after about sqrt(p) steps (the birthday paradox). Once it has, p divides x(i) - x(j) and gcd(x(i) - x(j), n) finds
+ * it, usually well before the cycle mod n itself closes. Brent's version finds the cycle by comparing against a saved
+ * x at powers of two, and multiplies BATCH differences together mod n before taking one gcd, so a gcd is needed only
+ * once every BATCH steps. If the batch overshoots (the product became 0 mod n) the last batch is replayed one step at a
+ * time, and if that still only finds n another c is tried.
+ *
+ * Expected O(n^(1/4)) steps for the smallest factor, each a single Montgomery multiplication.
+ */
+public final class PollardRho {
+
+    /**
+     * number of differences multiplied together before each gcd
+     */
+    private static final int BATCH = 128;
+
+    private PollardRho() {
+    }
+
+    /**
+     * @param n composite and > 3, not a prime (check with MillerRabin first, for a prime this never returns)
+     * @return a factor d of n with 1 < d < n, not necessarily a prime
+     */
+    public static long findFactor(long n) {
+        if ((n & 1) == 0)
+            return 2;
+
+        Montgomery montgomery = new Montgomery(n);
+        for (long c = 1; ; c++) {
+            long factor = brent(montgomery, montgomery.toMontgomery(c % n));
+            if (factor != n)
+                return factor;
+        }
+    }
+
+    /**
+     * one attempt with the sequence x^2 + c, all values in Montgomery form
+     * @return a factor of n, or n itself if this c failed
+     */
+    private static long brent(Montgomery montgomery, long c) {
+        long n = montgomery.modulus();
+        long y = montgomery.one();
+        long x = y;
+        long saved = y;
+        long product = montgomery.one();
+        long g = 1;
+
+        for (long r = 1; g == 1; r <<= 1) {
+            x = y;
+            for (long i = 0; i < r; i++) {
+                y = next(montgomery, y, c);
+            }
+            for (long k = 0; k < r && g == 1; k += BATCH) {
+                saved = y;
+                long steps = Math.min(BATCH, r - k);
+                for (long i = 0; i < steps; i++) {
+                    y = next(montgomery, y, c);
+                    //(x - y) * R mod n shares its factors with n exactly as x - y does, R being a power of 2
+                    product = montgomery.multiply(product, Math.abs(x - y));
+                }
+                g = gcd(product, n);
+            }
+        }
+
+        if (g == n) {
+            //the batch went past the factor, replay it one step at a time
+            do {
+                saved = next(montgomery, saved, c);
+                g = gcd(Math.abs(x - saved), n);
+            } while (g == 1);
+        }
+        return g;
+    }
+
+    private static long next(Montgomery montgomery, long x, long c) {
+        return montgomery.add(montgomery.multiply(x, x), c);
+    }
+
+    /**
+     * binary gcd of two non-negative longs, gcd(0, b) = b
+     * @param a
+     * @param b
+     * @return long
+     */
+    public static long gcd(long a, long b) {
+        if (a == 0)
+            return b;
+        if (b == 0)
+            return a;
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        while (b != 0) {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        }
+        return a << shift;
+    }
+}
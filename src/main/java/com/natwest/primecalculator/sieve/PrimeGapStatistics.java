@@ -0,0 +1,247 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Gap and k-tuple statistics of the primes within [from, to], worked out in one pass as the primes are sieved and
+ * without holding them.
+ *
+ * Every pattern is counted at the prime it ends on, looking back at most 8 numbers:
+ *
+ *     twin        (p, p + 2)               cousin      (p, p + 4)              sexy     (p, p + 6)
+ *     triplet     (p, p + 2, p + 6) or (p, p + 4, p + 6)
+ *     quadruplet  (p, p + 2, p + 6, p + 8)
+ *
+ * so only a bitmask of which of the 8 numbers before the last prime are primes is ever kept. Parts of a range can be
+ * worked out independently (e.g. by parallel segment workers) and merged: each part also keeps the primes within 8 of
+ * either end, which is all that is needed to add the gap and the patterns that straddle the boundary between two
+ * neighbouring parts.
+ */
+public final class PrimeGapStatistics {
+
+    /**
+     * widest pattern, (p, p + 8) for a quadruplet
+     */
+    private static final int SPAN = 8;
+    /**
+     * most primes within SPAN consecutive numbers, e.g. 2, 3, 5, 7
+     */
+    private static final int MAX_PRIMES_IN_SPAN = 4;
+    /**
+     * bits 1 to SPAN of a window
+     */
+    private static final long WINDOW_MASK = ((1L << (SPAN + 1)) - 1) & ~1L;
+
+    private long from;
+    private long to;
+    private long count;
+    private long first = -1;
+    private long last = -1;
+    private long maxGap;
+    private long maxGapStart = -1;
+    private long twins;
+    private long cousins;
+    private long sexy;
+    private long triplets;
+    private long quadruplets;
+    /**
+     * gapCounts[g] is the number of gaps of length g between consecutive primes
+     */
+    private long[] gapCounts = new long[64];
+    /**
+     * primes within [from, from + SPAN), in ascending order
+     */
+    private final long[] head = new long[MAX_PRIMES_IN_SPAN];
+    private int headSize;
+    /**
+     * bit k set means last - k is a prime of this range, for 1 <= k <= SPAN
+     */
+    private long window;
+
+    /**
+     * constructor
+     * @param from lowest value (inclusive) of the range the primes will come from
+     * @param to highest value (inclusive) of the range the primes will come from
+     */
+    public PrimeGapStatistics(long from, long to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Add the next prime of the range. Primes must be added in ascending order.
+     * @param prime
+     */
+    public void accept(long prime) {
+        if (count == 0) {
+            first = prime;
+        } else {
+            long gap = prime - last;
+            addGap(last, gap, 1);
+            //shift the window along to the new prime, last itself becomes bit gap
+            window = gap > SPAN ? 0 : ((window | 1) << gap) & WINDOW_MASK;
+            addPatterns(window, 1);
+        }
+        count++;
+        last = prime;
+        if (prime < from + SPAN)
+            head[headSize++] = prime;
+    }
+
+    /**
+     * Merge the statistics of the range that immediately follows this one, i.e. next.from == to + 1, into this one
+     * @param next
+     * @return this
+     */
+    public PrimeGapStatistics merge(PrimeGapStatistics next) {
+        if (next.from != to + 1)
+            throw new IllegalArgumentException("Range [" + next.from + ", " + next.to + "] doesn't follow [" + from + ", " + to + "]");
+
+        if (count > 0 && next.count > 0) {
+            //the gap across the boundary, and the patterns ending in next's head that start in this range's tail.
+            //bit k of tail set means to - k is one of this range's primes, for 0 <= k <= SPAN
+            long tail = to - last > SPAN ? 0 : ((window | 1) << (to - last)) & (WINDOW_MASK | 1);
+            for (int i = 0; i < next.headSize; i++) {
+                //bit k set means next.head[i] - k is a prime, of this range in before and of next in own
+                long offset = next.head[i] - to;
+                long before = (tail << offset) & WINDOW_MASK;
+                long own = 0;
+                for (int j = 0; j < i; j++) {
+                    own |= 1L << (next.head[i] - next.head[j]);
+                }
+                //the patterns made only of next's own primes were counted by next already
+                addPatterns(before | own, 1);
+                addPatterns(own, -1);
+            }
+            addGap(last, next.first - last, 1);
+        }
+
+        for (int g = 0; g < next.gapCounts.length; g++) {
+            if (next.gapCounts[g] != 0)
+                addGap(-1, g, next.gapCounts[g]);
+        }
+        if (next.maxGap > maxGap) {
+            maxGap = next.maxGap;
+            maxGapStart = next.maxGapStart;
+        }
+        twins += next.twins;
+        cousins += next.cousins;
+        sexy += next.sexy;
+        triplets += next.triplets;
+        quadruplets += next.quadruplets;
+
+        //this range's head may still need some of next's primes if this range is narrower than SPAN
+        for (int i = 0; i < next.headSize && headSize < MAX_PRIMES_IN_SPAN; i++) {
+            if (next.head[i] < from + SPAN)
+                head[headSize++] = next.head[i];
+        }
+        if (next.count > 0) {
+            //the window may still need some of this range's primes if next is narrower than SPAN
+            long distance = next.last - last;
+            long carried = count == 0 || distance > SPAN ? 0 : ((window | 1) << distance) & WINDOW_MASK;
+            window = next.window | carried;
+            last = next.last;
+        }
+        if (count == 0)
+            first = next.first;
+        count += next.count;
+        to = next.to;
+        return this;
+    }
+
+    private void addGap(long start, long gap, long times) {
+        if (gap >= gapCounts.length)
+            gapCounts = Arrays.copyOf(gapCounts, (int) Math.max(gap + 1, 2L * gapCounts.length));
+        gapCounts[(int) gap] += times;
+        if (start != -1 && gap > maxGap) {
+            maxGap = gap;
+            maxGapStart = start;
+        }
+    }
+
+    /**
+     * add sign times the patterns ending at a prime p, where bit k of before set means p - k is a prime
+     */
+    private void addPatterns(long before, int sign) {
+        boolean two = (before & (1 << 2)) != 0;
+        boolean four = (before & (1 << 4)) != 0;
+        boolean six = (before & (1 << 6)) != 0;
+        boolean eight = (before & (1 << 8)) != 0;
+        if (two)
+            twins += sign;
+        if (four)
+            cousins += sign;
+        if (six) {
+            sexy += sign;
+            if (four)
+                triplets += sign;
+            if (two)
+                triplets += sign;
+            if (two && eight)
+                quadruplets += sign;
+        }
+    }
+
+    public long from() {
+        return from;
+    }
+
+    public long to() {
+        return to;
+    }
+
+    /**
+     * @return number of primes
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the largest gap between consecutive primes, 0 if there are fewer than 2 primes
+     */
+    public long maxGap() {
+        return maxGap;
+    }
+
+    /**
+     * @return the prime the first largest gap starts at, -1 if there are fewer than 2 primes
+     */
+    public long maxGapStart() {
+        return maxGapStart;
+    }
+
+    public long twins() {
+        return twins;
+    }
+
+    public long cousins() {
+        return cousins;
+    }
+
+    public long sexy() {
+        return sexy;
+    }
+
+    public long triplets() {
+        return triplets;
+    }
+
+    public long quadruplets() {
+        return quadruplets;
+    }
+
+    /**
+     * @return number of gaps of each length between consecutive primes, by length
+     */
+    public Map<Integer, Long> gaps() {
+        Map<Integer, Long> gaps = new TreeMap<>();
+        for (int g = 0; g < gapCounts.length; g++) {
+            if (gapCounts[g] != 0)
+                gaps.put(g, gapCounts[g]);
+        }
+        return gaps;
+    }
+}
@@ -0,0 +1,92 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.Arrays;
+
+/**
+ * Next and previous prime for any 64 bit long, without a sieve reaching up to it.
+ *
+ * The numbers after (or before) n are taken a small window at a time. Each window is first crossed off with the
+ * primes below 2^12, like a segment of SegmentedSieve but without needing base primes up to sqrt(n), which leaves
+ * about 7% of the numbers. The survivors are then checked in order with MillerRabin until the first prime is found.
+ * Prime gaps below 2^63 are at most about 1500 so this almost always finishes inside the first window.
+ */
+public final class PrimeSearch {
+
+    /**
+     * numbers looked at per window
+     */
+    private static final int WINDOW = 2048;
+    /**
+     * primes used to cross off each window
+     */
+    private static final int[] SMALL_PRIMES = SegmentedSieve.basePrimes(1 << 12);
+    /**
+     * below this, numbers left after crossing off the small primes are known primes
+     */
+    private static final long SIEVED_BELOW = 1L << 24;
+    /**
+     * the largest prime below 2^63
+     */
+    private static final long LARGEST_PRIME = 9_223_372_036_854_775_783L;
+
+    private PrimeSearch() {
+    }
+
+    /**
+     * @param n
+     * @return the smallest prime > n, or 0 if there is none below 2^63
+     */
+    public static long nextPrime(long n) {
+        if (n < 2)
+            return 2;
+        if (n >= LARGEST_PRIME)
+            return 0;
+        long[] composite = new long[WINDOW >>> 6];
+        for (long low = n + 1; ; low += WINDOW) {
+            int length = (int) Math.min(WINDOW, LARGEST_PRIME - low + 1);
+            crossOff(composite, low, length);
+            for (int i = 0; i < length; i++) {
+                if ((composite[i >>> 6] & (1L << i)) == 0 && isPrimeCandidate(low + i))
+                    return low + i;
+            }
+        }
+    }
+
+    /**
+     * @param n
+     * @return the largest prime < n, or 0 if n <= 2
+     */
+    public static long previousPrime(long n) {
+        if (n <= 2)
+            return 0;
+        long[] composite = new long[WINDOW >>> 6];
+        for (long high = n - 1; ; high -= WINDOW) {
+            long low = Math.max(2, high - WINDOW + 1);
+            int length = (int) (high - low + 1);
+            crossOff(composite, low, length);
+            for (int i = length - 1; i >= 0; i--) {
+                if ((composite[i >>> 6] & (1L << i)) == 0 && isPrimeCandidate(low + i))
+                    return low + i;
+            }
+        }
+    }
+
+    private static boolean isPrimeCandidate(long n) {
+        return n < SIEVED_BELOW || MillerRabin.isPrime(n);
+    }
+
+    /**
+     * set bit i for every low + i with a prime factor below 2^12, other than the small prime itself
+     */
+    private static void crossOff(long[] composite, long low, int length) {
+        Arrays.fill(composite, 0L);
+        for (int p : SMALL_PRIMES) {
+            //offset of the first multiple of p >= max(p^2, low)
+            long first = Math.max((long) p * p, low);
+            long offset = first - low + (p - first % p) % p;
+            for (long i = offset; i < length; i += p) {
+                composite[(int) (i >>> 6)] |= 1L << i;
+            }
+        }
+    }
+}
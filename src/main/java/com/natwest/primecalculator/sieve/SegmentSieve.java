@@ -0,0 +1,19 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A sieve that can work out the primes of any part of the number line on its own. This is what lets the segmented
+ * sieves split a range across several workers.
+ */
+@FunctionalInterface
+public interface SegmentSieve {
+
+    /**
+     * call action with every prime within [from, to] in ascending order
+     * @param from inclusive
+     * @param to inclusive
+     * @param action
+     */
+    void forEachPrime(long from, long to, LongConsumer action);
+}
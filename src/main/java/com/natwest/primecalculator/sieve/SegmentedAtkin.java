@@ -0,0 +1,150 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Segmented Sieve of Atkin using primitive long arithmetic only.
+ *
+ * For each segment [low, high] the (x, y) pairs of the three quadratic forms are enumerated directly for the n values
+ * that fall inside the segment, using square roots to work out where y starts and stops for each x. Only the residue
+ * classes that can produce a prime are walked:
+ *
+ *     n = 4x^2 + y^2, n % 12 in (1, 5)  => n is odd so y is odd
+ *     n = 3x^2 + y^2, n % 12 == 7       => x is odd and y is even
+ *     n = 3x^2 - y^2, n % 12 == 11, x > y => x + y is odd
+ *
+ * so each candidate pair needs a single % 12 test. Like SegmentedSieve only odd numbers are held, 1 bit each, and a
+ * segment can be sieved independently of all the others so segments can be spread across cores.
+ */
+public final class SegmentedAtkin {
+
+    private SegmentedAtkin() {
+    }
+
+    /**
+     * Walk all the primes within [from, to] in ascending order, one cache sized segment at a time.
+     * @param from lowest value (inclusive)
+     * @param to highest value (inclusive)
+     * @param basePrimes all primes up to at least sqrt(to), in ascending order
+     * @param action called with every prime found
+     */
+    public static void forEachPrime(long from, long to, int[] basePrimes, LongConsumer action) {
+        if (to < 2 || from > to)
+            return;
+
+        //2 and 3 are known to be primes, the quadratic forms only produce primes >= 5
+        if (from <= 2)
+            action.accept(2);
+        if (from <= 3 && to >= 3)
+            action.accept(3);
+
+        long start = Math.max(from, 5);
+        if ((start & 1) == 0)
+            start++;
+
+        //bit i set means low + 2i is (still) a prime candidate
+        long[] candidate = new long[SegmentedSieve.SEGMENT_SIZE >>> 6];
+        for (long low = start; low <= to; low += 2L * SegmentedSieve.SEGMENT_SIZE) {
+            long high = Math.min(to, low + 2L * (SegmentedSieve.SEGMENT_SIZE - 1));
+            int length = (int) ((high - low) / 2) + 1;
+            int words = ((length - 1) >>> 6) + 1;
+            Arrays.fill(candidate, 0, words, 0L);
+
+            toggleQuadraticForms(candidate, low, high);
+            removeSquareMultiples(candidate, low, high, basePrimes);
+
+            //SegmentedSieve reports the clear bits, so flip them
+            for (int w = 0; w < words; w++) {
+                candidate[w] = ~candidate[w];
+            }
+            SegmentedSieve.forEachCandidate(candidate, length, low, action);
+        }
+    }
+
+    /**
+     * Flip the bit of every n in [low, high] for each solution of the quadratic forms, so n ends up set when it has an
+     * odd number of solutions.
+     * @param bits
+     * @param low odd
+     * @param high
+     */
+    private static void toggleQuadraticForms(long[] bits, long low, long high) {
+        //n = 4x^2 + y^2 with y odd
+        for (long x = 1; 4 * x * x + 1 <= high; x++) {
+            long a = 4 * x * x;
+            long y = a >= low ? 1 : ceilSqrt(low - a);
+            if ((y & 1) == 0)
+                y++;
+            for (long n = a + y * y; n <= high; y += 2, n = a + y * y) {
+                int r = (int) (n % 12);
+                if (r == 1 || r == 5)
+                    toggle(bits, low, n);
+            }
+        }
+
+        //n = 3x^2 + y^2 with x odd and y even
+        for (long x = 1; 3 * x * x + 4 <= high; x += 2) {
+            long a = 3 * x * x;
+            long y = a + 4 >= low ? 2 : ceilSqrt(low - a);
+            if ((y & 1) == 1)
+                y++;
+            for (long n = a + y * y; n <= high; y += 2, n = a + y * y) {
+                if (n % 12 == 7)
+                    toggle(bits, low, n);
+            }
+        }
+
+        //n = 3x^2 - y^2 with x > y >= 1 and x + y odd. The smallest n for any x is 2x^2 + 2x - 1 (y = x - 1)
+        for (long x = 2; 2 * x * x + 2 * x - 1 <= high; x++) {
+            long a = 3 * x * x;
+            if (a - 1 < low)
+                continue;
+            //n <= high needs y^2 >= a - high, n >= low needs y^2 <= a - low
+            long y = a > high ? ceilSqrt(a - high) : 1;
+            if (((x + y) & 1) == 0)
+                y++;
+            long yMax = Math.min(x - 1, SegmentedSieve.isqrt(a - low));
+            for (; y <= yMax; y += 2) {
+                long n = a - y * y;
+                if (n % 12 == 11)
+                    toggle(bits, low, n);
+            }
+        }
+    }
+
+    /**
+     * Mark every odd multiple of p^2 in [low, high] as not prime for all base primes p >= 5. After the toggling only
+     * square free numbers with an odd number of solutions are primes.
+     * @param bits
+     * @param low odd
+     * @param high
+     * @param basePrimes
+     */
+    private static void removeSquareMultiples(long[] bits, long low, long high, int[] basePrimes) {
+        for (int p : basePrimes) {
+            if (p < 5)
+                continue;
+            long square = (long) p * p;
+            if (square > high)
+                break;
+            long multiple = ((low + square - 1) / square) * square;
+            if ((multiple & 1) == 0)
+                multiple += square;
+            for (; multiple <= high; multiple += 2 * square) {
+                long i = (multiple - low) >>> 1;
+                bits[(int) (i >>> 6)] &= ~(1L << i);
+            }
+        }
+    }
+
+    private static void toggle(long[] bits, long low, long n) {
+        long i = (n - low) >>> 1;
+        bits[(int) (i >>> 6)] ^= 1L << i;
+    }
+
+    private static long ceilSqrt(long n) {
+        long r = SegmentedSieve.isqrt(n);
+        return r * r == n ? r : r + 1;
+    }
+}
@@ -0,0 +1,92 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Lazy, re-iterable sequence of all the primes within [from, to] for any long range.
+ *
+ * Nothing is sieved until the sequence is iterated, and then only one segment (a 32KB bitmap chunk) and the base
+ * primes up to sqrt(to) are held at a time. This is what allows limits past Integer.MAX_VALUE with bounded memory: the
+ * primes are produced chunk by chunk as they are consumed, e.g. while they are being serialised, and are never
+ * collected into one giant array.
+ */
+public final class SegmentedPrimeSequence implements Iterable<Long> {
+
+    /**
+     * lowest value (inclusive)
+     */
+    private final long from;
+    /**
+     * highest value (inclusive)
+     */
+    private final long to;
+
+    /**
+     * constructor
+     * @param from lowest value (inclusive)
+     * @param to highest value (inclusive)
+     */
+    public SegmentedPrimeSequence(long from, long to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public long from() {
+        return from;
+    }
+
+    public long to() {
+        return to;
+    }
+
+    /**
+     * @return iterator sieving one segment at a time. Use nextLong() to avoid boxing.
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new SegmentIterator();
+    }
+
+    /**
+     * Iterator that fills a buffer with the primes of one segment at a time
+     */
+    private final class SegmentIterator implements PrimitiveIterator.OfLong {
+
+        private final SegmentedSieve.Cursor cursor;
+        private final long[] buffer;
+        private int size;
+        private int position;
+
+        private SegmentIterator() {
+            if (to < 2 || from > to) {
+                cursor = null;
+                buffer = new long[0];
+                return;
+            }
+            cursor = new SegmentedSieve.Cursor(from, to, SegmentedSieve.basePrimes((int) SegmentedSieve.isqrt(to)));
+            //no segment spans more than 2 * SEGMENT_SIZE numbers, plus room for 2
+            buffer = new long[SegmentedSieve.maxPrimesInRange(from, Math.min(to, from + 2L * SegmentedSieve.SEGMENT_SIZE)) + 1];
+            //the cursor only sieves odd numbers
+            if (from <= 2)
+                buffer[size++] = 2;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == size && cursor != null && cursor.hasNextSegment()) {
+                position = 0;
+                size = 0;
+                cursor.nextSegment(prime -> buffer[size++] = prime);
+            }
+            return position < size;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return buffer[position++];
+        }
+    }
+}
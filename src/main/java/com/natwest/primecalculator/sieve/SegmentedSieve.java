@@ -0,0 +1,248 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Segmented Sieve of Eratosthenes helpers.
+ *
+ * Rather than allocating one array for the whole range and striding across all of it for every prime, the range is
+ * split into segments small enough to stay in the L1/L2 cache. Each segment is crossed off using only the base primes
+ * up to sqrt(limit), so the scratch memory needed is O(sqrt(n) + segment) rather than O(n). Segments only hold odd
+ * numbers as 2 is the only even prime and is handled separately, and are bit-packed in the same way as OddPrimeBitmap.
+ */
+public final class SegmentedSieve {
+
+    /**
+     * Number of odd candidates held in one segment, 1 bit each. 32KB fits comfortably in the L1 data cache of most
+     * cores and covers 512k numbers.
+     */
+    public static final int SEGMENT_SIZE = 1 << 18;
+
+    private SegmentedSieve() {
+    }
+
+    /**
+     * Integer square root, i.e. the largest r where r * r <= n
+     * @param n
+     * @return long
+     */
+    public static long isqrt(long n) {
+        if (n < 0)
+            return 0;
+        long r = (long) Math.sqrt((double) n);
+        while (r * r > n) {
+            r--;
+        }
+        while ((r + 1) * (r + 1) <= n) {
+            r++;
+        }
+        return r;
+    }
+
+    /**
+     * Upper bound on the number of primes within [from, to], used to size result arrays up front. By the
+     * Brun-Titchmarsh theorem (Montgomery and Vaughan) an interval of length y > 1 holds fewer than 2y / log(y) primes.
+     * @param from inclusive
+     * @param to inclusive
+     * @return int
+     */
+    public static int maxPrimesInRange(long from, long to) {
+        long length = to - from + 1;
+        if (length <= 1)
+            return length == 1 ? 1 : 0;
+        return Math.toIntExact(Math.min(length, (long) (2 * length / Math.log(length)) + 1));
+    }
+
+    /**
+     * Upper bound on the number of primes up to and including n, used to size result arrays up front. By Rosser and
+     * Schoenfeld pi(x) < 1.25506 * x / log(x) for x > 1.
+     * @param n
+     * @return int
+     */
+    public static int maxPrimesUpTo(int n) {
+        return n < 17 ? 7 : (int) (1.25506 * n / Math.log(n)) + 1;
+    }
+
+    /**
+     * Get all the primes up to and including the supplied value using a simple odd-only Sieve of Eratosthenes. This
+     * is only meant for the base primes (up to sqrt(limit)) used to cross off the segments.
+     * @param upToAndIncluding
+     * @return int[] of primes in ascending order
+     */
+    public static int[] basePrimes(int upToAndIncluding) {
+        if (upToAndIncluding < 2)
+            return new int[0];
+
+        //composite[i] represents the odd number 2i + 1
+        int half = (upToAndIncluding - 1) / 2;
+        boolean[] composite = new boolean[half + 1];
+        int count = 1;
+        for (int i = 1; i <= half; i++) {
+            if (!composite[i]) {
+                count++;
+                long p = 2L * i + 1;
+                for (long j = (p * p - 1) / 2; j <= half; j += p) {
+                    composite[(int) j] = true;
+                }
+            }
+        }
+
+        int[] primes = new int[count];
+        primes[0] = 2;
+        for (int i = 1, k = 1; i <= half; i++) {
+            if (!composite[i]) {
+                primes[k++] = 2 * i + 1;
+            }
+        }
+        return primes;
+    }
+
+    /**
+     * Walk all the primes within [from, to] in ascending order, one cache sized segment at a time.
+     * @param from lowest value (inclusive)
+     * @param to highest value (inclusive)
+     * @param action called with every prime found
+     */
+    public static void forEachPrime(long from, long to, LongConsumer action) {
+        if (to < 2 || from > to)
+            return;
+        forEachPrime(from, to, basePrimes((int) isqrt(to)), action);
+    }
+
+    /**
+     * Walk all the primes within [from, to] in ascending order using already worked out base primes. This lets
+     * several workers share one set of base primes while each sieves its own part of the range.
+     * @param from lowest value (inclusive)
+     * @param to highest value (inclusive)
+     * @param basePrimes all primes up to at least sqrt(to), in ascending order
+     * @param action called with every prime found
+     */
+    public static void forEachPrime(long from, long to, int[] basePrimes, LongConsumer action) {
+        if (to < 2 || from > to)
+            return;
+
+        if (from <= 2)
+            action.accept(2);
+
+        Cursor cursor = new Cursor(from, to, basePrimes);
+        while (cursor.hasNextSegment()) {
+            cursor.nextSegment(action);
+        }
+    }
+
+    /**
+     * Stateful walk over the consecutive odd-only segments of [from, to]. For every odd base prime p it remembers the
+     * next odd multiple still to be crossed off, so moving on to the next segment doesn't need any division. Only one
+     * segment is held at a time so memory stays bounded however large the range is. 2 is never reported.
+     */
+    public static final class Cursor {
+
+        /**
+         * all primes up to at least sqrt(to). basePrimes[0] = 2 is never used.
+         */
+        private final int[] basePrimes;
+        /**
+         * nextMultiple[k] is the next odd multiple of basePrimes[k] to cross off
+         */
+        private final long[] nextMultiple;
+        /**
+         * bit i set means low + 2i is composite
+         */
+        private final long[] composite = new long[SEGMENT_SIZE >>> 6];
+        /**
+         * highest value (inclusive)
+         */
+        private final long to;
+        /**
+         * lowest (odd) value of the next segment
+         */
+        private long low;
+
+        /**
+         * constructor
+         * @param from lowest value (inclusive)
+         * @param to highest value (inclusive)
+         * @param basePrimes all primes up to at least sqrt(to), in ascending order
+         */
+        public Cursor(long from, long to, int[] basePrimes) {
+            //segments only hold odd numbers
+            from = Math.max(from, 3);
+            if ((from & 1) == 0)
+                from++;
+            this.low = from;
+            this.to = to;
+            this.basePrimes = basePrimes;
+            this.nextMultiple = new long[basePrimes.length];
+            for (int k = 1; k < basePrimes.length; k++) {
+                nextMultiple[k] = firstOddMultiple(basePrimes[k], from);
+            }
+        }
+
+        public boolean hasNextSegment() {
+            return low <= to;
+        }
+
+        /**
+         * Cross off the next segment and call action with each prime in it, in ascending order
+         * @param action
+         */
+        public void nextSegment(LongConsumer action) {
+            long high = Math.min(to, low + 2L * (SEGMENT_SIZE - 1));
+            int length = (int) ((high - low) / 2) + 1;
+            Arrays.fill(composite, 0, ((length - 1) >>> 6) + 1, 0L);
+
+            for (int k = 1; k < basePrimes.length; k++) {
+                int p = basePrimes[k];
+                if ((long) p * p > high)
+                    break;
+                long multiple = nextMultiple[k];
+                if (multiple > high)
+                    continue;
+                int j = (int) ((multiple - low) / 2);
+                for (; j < length; j += p) {
+                    composite[j >>> 6] |= 1L << j;
+                }
+                nextMultiple[k] = low + 2L * j;
+            }
+
+            forEachCandidate(composite, length, low, action);
+            low += 2L * SEGMENT_SIZE;
+        }
+    }
+
+    /**
+     * call action with low + 2i for every bit i < length still clear in the segment. Scans 64 candidates at a time.
+     * @param composite segment bits
+     * @param length number of bits in use
+     * @param low value represented by bit 0
+     * @param action
+     */
+    static void forEachCandidate(long[] composite, int length, long low, LongConsumer action) {
+        int lastWord = (length - 1) >>> 6;
+        for (int w = 0; w <= lastWord; w++) {
+            long candidates = ~composite[w];
+            if (w == lastWord)
+                candidates &= -1L >>> (63 - ((length - 1) & 63));
+            while (candidates != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(candidates);
+                action.accept(low + 2L * i);
+                candidates &= candidates - 1;
+            }
+        }
+    }
+
+    /**
+     * The first odd multiple of p that is >= max(p^2, from). Anything below p^2 has a smaller prime factor and has
+     * already been crossed off by it.
+     * @param p odd prime
+     * @param from
+     * @return long
+     */
+    static long firstOddMultiple(long p, long from) {
+        long start = Math.max(p * p, ((from + p - 1) / p) * p);
+        if ((start & 1) == 0)
+            start += p;
+        return start;
+    }
+}
@@ -0,0 +1,137 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Smallest prime factor (SPF) table built with a linear (Euler) sieve, plus the primes found along the way.
+ *
+ * Every composite c is written exactly once, as i * p where p = spf(c) and i = c / p, because i is only ever
+ * multiplied by the primes up to spf(i). The Sieve of Eratosthenes on the other hand writes c once for every distinct
+ * prime factor up to sqrt(c).
+ *
+ * Only odd numbers are held (the SPF of an even number is 2) and the SPF of a composite up to 2^32 is below 2^16, so
+ * each entry is a char with 0 meaning prime: 1 byte per number in the range. Once built the table is read only, so it
+ * can be shared between threads and used to factorise any n <= limit in O(log n) by repeatedly dividing by spf(n).
+ */
+public final class SmallestPrimeFactorTable {
+
+    /**
+     * highest value (inclusive) represented by this table
+     */
+    private final int limit;
+    /**
+     * spf[i] is the smallest prime factor of the odd number 2i + 1, or 0 if it is a prime (or 1)
+     */
+    private final char[] spf;
+    /**
+     * all primes up to and including limit in ascending order
+     */
+    private final int[] primes;
+
+    private SmallestPrimeFactorTable(int limit, char[] spf, int[] primes) {
+        this.limit = limit;
+        this.spf = spf;
+        this.primes = primes;
+    }
+
+    /**
+     * Build the table using a linear sieve.
+     * ----------------------------------------------------------------------------------------------------------------
+     * A simplified version of the algorithm, using N as the limit to which we want to find primes to:
+     *
+     * P = empty list of primes;
+     * For i in 3 to N with increments i += 2: //even numbers are never stored
+     *     If spf[i] is not set, i is a prime, add it to P;
+     *     For each p in P while p <= spf(i) and i * p <= N:
+     *         spf[i * p] = p; //written exactly once, by its smallest prime factor
+     *
+     * @param limit >= 1
+     * @return SmallestPrimeFactorTable
+     */
+    public static SmallestPrimeFactorTable sieve(int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("limit must be >= 1 but was " + limit);
+
+        char[] spf = new char[(int) ((limit - 1L) >>> 1) + 1];
+        int[] primes = new int[SegmentedSieve.maxPrimesUpTo(limit)];
+        int count = 0;
+        if (limit >= 2)
+            primes[count++] = 2;
+
+        //primes[1..count) are the odd primes found so far
+        for (int i = 3; i <= limit && i > 0; i += 2) {
+            int spfOfI = spf[i >>> 1];
+            if (spfOfI == 0) {
+                primes[count++] = i;
+                spfOfI = i;
+            }
+            for (int k = 1; k < count; k++) {
+                int p = primes[k];
+                long multiple = (long) i * p;
+                if (p > spfOfI || multiple > limit)
+                    break;
+                spf[(int) (multiple >>> 1)] = (char) p;
+            }
+        }
+        return new SmallestPrimeFactorTable(limit, spf, Arrays.copyOf(primes, count));
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * @return all primes up to and including limit in ascending order. Must not be modified.
+     */
+    public int[] primes() {
+        return primes;
+    }
+
+    /**
+     * @param n 2 <= n <= limit
+     * @return the smallest prime factor of n, n itself if it is a prime
+     */
+    public int smallestPrimeFactor(int n) {
+        if ((n & 1) == 0)
+            return 2;
+        int p = spf[n >>> 1];
+        return p == 0 ? n : p;
+    }
+
+    /**
+     * @param n <= limit
+     * @return true if n is a prime
+     */
+    public boolean isPrime(int n) {
+        if (n < 3)
+            return n == 2;
+        return (n & 1) == 1 && spf[n >>> 1] == 0;
+    }
+
+    /**
+     * call action with every prime up to and including limit in ascending order
+     * @param action
+     */
+    public void forEachPrime(IntConsumer action) {
+        for (int p : primes) {
+            action.accept(p);
+        }
+    }
+
+    /**
+     * Prime factors of n with multiplicity in ascending order, e.g. 360 => [2, 2, 2, 3, 3, 5]. O(log n).
+     * @param n 1 <= n <= limit
+     * @return int[]
+     */
+    public int[] factorise(int n) {
+        int[] factors = new int[32];
+        int count = 0;
+        while (n > 1) {
+            int p = smallestPrimeFactor(n);
+            factors[count++] = p;
+            n /= p;
+        }
+        return Arrays.copyOf(factors, count);
+    }
+}
@@ -0,0 +1,219 @@
+package com.natwest.primecalculator.sieve;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Wheel factorised Sieve of Eratosthenes.
+ *
+ * The wheel primes (2, 3, 5 for mod 30, plus 7 for mod 210) rule out about 73% (or 77%) of all integers before any
+ * sieving is done, so only the numbers coprime to the modulus are stored: 8 out of every 30, or 48 out of every 210.
+ * Bit i of the sieve represents the i-th number coprime to the modulus (1, 7, 11, 13, ... for mod 30) and is set once
+ * that number is known to be composite.
+ *
+ * The next few primes after the wheel primes (the pre-sieve primes) are not crossed off one by one. Their multiples
+ * repeat with a period of modulus * product(pre-sieve primes), so a bit pattern for one period is worked out once and
+ * then tiled across the whole sieve word by word.
+ */
+public final class Wheel {
+
+    /**
+     * wheel of 2 * 3 * 5, pre-sieving 7, 11 and 13
+     */
+    public static final Wheel MOD_30 = new Wheel(new int[]{2, 3, 5}, new int[]{7, 11, 13});
+    /**
+     * wheel of 2 * 3 * 5 * 7, pre-sieving 11, 13 and 17
+     */
+    public static final Wheel MOD_210 = new Wheel(new int[]{2, 3, 5, 7}, new int[]{11, 13, 17});
+
+    /**
+     * product of the wheel primes
+     */
+    private final int modulus;
+    /**
+     * primes used to build the wheel, they are the only primes not stored in the sieve
+     */
+    private final int[] wheelPrimes;
+    /**
+     * primes crossed off by tiling presievePattern
+     */
+    private final int[] presievePrimes;
+    /**
+     * the residues coprime to modulus in ascending order, always starting with 1
+     */
+    private final int[] residues;
+    /**
+     * residueIndex[r] is the position of r in residues or -1 if r isn't coprime to modulus
+     */
+    private final int[] residueIndex;
+    /**
+     * one word aligned period of the pre-sieve primes' multiples (the primes themselves included)
+     */
+    private final long[] presievePattern;
+
+    private Wheel(int[] wheelPrimes, int[] presievePrimes) {
+        this.wheelPrimes = wheelPrimes;
+        this.presievePrimes = presievePrimes;
+        this.modulus = Arrays.stream(wheelPrimes).reduce(1, (a, b) -> a * b);
+
+        this.residueIndex = new int[modulus];
+        this.residues = new int[(int) Arrays.stream(wheelPrimes).asLongStream().reduce(1, (a, b) -> a * (b - 1))];
+        for (int r = 0, k = 0; r < modulus; r++) {
+            residueIndex[r] = -1;
+            if (isCoprime(r)) {
+                residueIndex[r] = k;
+                residues[k++] = r;
+            }
+        }
+
+        //the pattern repeats every residues.length * product(presievePrimes) bits. Stretch that to a whole number of
+        // words so it can be tiled with plain word copies.
+        long period = residues.length;
+        for (int q : presievePrimes) {
+            period *= q;
+        }
+        long patternBits = period / gcd(period, 64) * 64;
+        this.presievePattern = new long[(int) (patternBits >>> 6)];
+        for (long i = 0; i < patternBits; i++) {
+            long value = value(i);
+            for (int q : presievePrimes) {
+                if (value % q == 0) {
+                    presievePattern[(int) (i >>> 6)] |= 1L << i;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * get the wheel for the supplied modulus
+     * @param modulus 30 or 210
+     * @return Wheel
+     */
+    public static Wheel of(int modulus) {
+        return switch (modulus) {
+            case 30 -> MOD_30;
+            case 210 -> MOD_210;
+            default -> throw new IllegalArgumentException("Unsupported wheel modulus " + modulus + ", use 30 or 210");
+        };
+    }
+
+    public int modulus() {
+        return modulus;
+    }
+
+    /**
+     * @param n
+     * @return position of n in the sieve. n must be coprime to modulus
+     */
+    public long index(long n) {
+        return (n / modulus) * residues.length + residueIndex[(int) (n % modulus)];
+    }
+
+    /**
+     * @param index
+     * @return the number represented by position index in the sieve
+     */
+    public long value(long index) {
+        return (index / residues.length) * modulus + residues[(int) (index % residues.length)];
+    }
+
+    /**
+     * Call action with every prime up to and including limit in ascending order.
+     * ----------------------------------------------------------------------------------------------------------------
+     * A simplified version of the algorithm, using N as the limit to which we want to find primes to:
+     *
+     * A = bits for every number <= N coprime to the modulus, tiled with the pre-sieve pattern;
+     * Mark 1 as not prime and the pre-sieve primes themselves as prime;
+     *
+     * For each p in A still not marked, after the pre-sieve primes, while p^2 <= N:
+     *     For each residue r coprime to the modulus:
+     *         q = smallest number >= p where q % modulus == r;
+     *         For m in p * q to N with increments m += p * modulus: //p * q is always coprime to the modulus
+     *             A[index(m)] = true; //index(m) increases by p * residues.length each step
+     *
+     * The wheel primes <= N plus all numbers in A still not marked are primes;
+     *
+     * @param limit
+     * @param action
+     */
+    public void forEachPrime(int limit, IntConsumer action) {
+        for (int p : wheelPrimes) {
+            if (p <= limit)
+                action.accept(p);
+        }
+        if (limit < 2)
+            return;
+
+        long maxIndex = indexCount(limit) - 1;
+        long[] composite = new long[(int) (maxIndex >>> 6) + 1];
+        for (int w = 0; w < composite.length; w++) {
+            composite[w] = presievePattern[w % presievePattern.length];
+        }
+        composite[0] |= 1L;
+        for (int q : presievePrimes) {
+            if (q <= limit)
+                composite[(int) (index(q) >>> 6)] &= ~(1L << index(q));
+        }
+
+        long step = residues.length;
+        int largestPresievePrime = presievePrimes[presievePrimes.length - 1];
+        for (long i = 1; i <= maxIndex; i++) {
+            long p = value(i);
+            if (p * p > limit)
+                break;
+            if (p <= largestPresievePrime || (composite[(int) (i >>> 6)] & (1L << i)) != 0)
+                continue;
+
+            for (int r : residues) {
+                long q = p - p % modulus + r;
+                if (q < p)
+                    q += modulus;
+                long multiple = p * q;
+                if (multiple > limit)
+                    continue;
+                for (long m = index(multiple); m <= maxIndex; m += p * step) {
+                    composite[(int) (m >>> 6)] |= 1L << m;
+                }
+            }
+        }
+
+        int lastWord = (int) (maxIndex >>> 6);
+        for (int w = 0; w <= lastWord; w++) {
+            long candidates = ~composite[w];
+            if (w == lastWord)
+                candidates &= -1L >>> (63 - (maxIndex & 63));
+            while (candidates != 0) {
+                long index = ((long) w << 6) + Long.numberOfTrailingZeros(candidates);
+                action.accept((int) value(index));
+                candidates &= candidates - 1;
+            }
+        }
+    }
+
+    /**
+     * @param limit
+     * @return how many numbers coprime to modulus there are in [1, limit]
+     */
+    long indexCount(long limit) {
+        long count = (limit / modulus) * residues.length;
+        int remainder = (int) (limit % modulus);
+        for (int r : residues) {
+            if (r <= remainder)
+                count++;
+        }
+        return count;
+    }
+
+    private boolean isCoprime(long n) {
+        for (int p : wheelPrimes) {
+            if (n % p == 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -0,0 +1,42 @@
+package com.natwest.primecalculator.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrequencySketchTest {
+
+    @Test
+    void testFrequency() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        assertEquals(0, sketch.frequency("a"));
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("a");
+        }
+        sketch.increment("b");
+        assertEquals(5, sketch.frequency("a"));
+        assertEquals(1, sketch.frequency("b"));
+
+        //saturates at 15
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+    }
+
+    /**
+     * counts only ever overestimate, and age so old hot keys fade
+     */
+    @Test
+    void testAging() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment(-1L);
+        }
+        for (long key = 0; key < 1000; key++) {
+            sketch.increment(key);
+            assertTrue(sketch.frequency(key) >= 1);
+        }
+        assertTrue(sketch.frequency(-1L) < 15, () -> "frequency " + sketch.frequency(-1L));
+    }
+}
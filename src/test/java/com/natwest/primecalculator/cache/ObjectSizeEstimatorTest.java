@@ -0,0 +1,47 @@
+package com.natwest.primecalculator.cache;
+
+import com.natwest.primecalculator.entities.EliasFanoPrimeList;
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectSizeEstimatorTest {
+
+    @Test
+    void testSizeOf() {
+        assertEquals(0, ObjectSizeEstimator.sizeOf(null));
+        assertEquals(24, ObjectSizeEstimator.sizeOf(1L));
+        assertEquals(16, ObjectSizeEstimator.sizeOf(1));
+        assertEquals(16 + 8000, ObjectSizeEstimator.sizeOf(new long[1000]));
+        assertEquals(32 + 4000, ObjectSizeEstimator.sizeOf(PrimeList.of(new int[1000])));
+        EliasFanoPrimeList compressed = EliasFanoPrimeList.encode(List.of(2, 3, 5, 7));
+        assertEquals(compressed.sizeInBytes(), ObjectSizeEstimator.sizeOf(compressed));
+
+        //shared objects are only counted once
+        long[] shared = new long[1000];
+        assertTrue(ObjectSizeEstimator.sizeOf(new Object[]{shared, shared}) < 2 * 8016);
+    }
+
+    /**
+     * a record is weighed from its fields, including the map it holds
+     */
+    @Test
+    void testSizeOfRecord() {
+        Map<Integer, Long> gaps = new HashMap<>();
+        PrimeStatistics empty = new PrimeStatistics(0, 10, 4, 2, 3, 2, 1, 0, 0, 0, gaps);
+        for (int gap = 2; gap < 2000; gap += 2) {
+            gaps.put(gap, (long) gap);
+        }
+        PrimeStatistics statistics = new PrimeStatistics(0, 10, 4, 2, 3, 2, 1, 0, 0, 0, gaps);
+        long size = ObjectSizeEstimator.sizeOf(statistics);
+        assertTrue(size > 999 * (32 + 16 + 24), () -> "size " + size);
+        assertTrue(size < 999 * 100 + 1000, () -> "size " + size);
+        assertEquals(size, ObjectSizeEstimator.sizeOf(empty));
+    }
+}
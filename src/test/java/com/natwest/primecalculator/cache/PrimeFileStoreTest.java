@@ -0,0 +1,210 @@
+package com.natwest.primecalculator.cache;
+
+import com.natwest.primecalculator.client.PrimesFormat;
+import com.natwest.primecalculator.converters.PrimesHttpMessageConverter;
+import com.natwest.primecalculator.entities.ChunkedPrimeList;
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeFileStoreTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * every file store opened by a test, shut down before the directory is deleted
+     */
+    private final List<PrimeFileStore> fileStores = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        for (PrimeFileStore fileStore : fileStores) {
+            fileStore.flush();
+            fileStore.shutdown();
+        }
+    }
+
+    @Test
+    void testRestore() {
+        PrimeStore primeStore = new PrimeStore();
+        PrimeFileStore fileStore = open(primeStore);
+        primeStore.put(primesTo(10_000));
+        fileStore.flush();
+        assertEquals(10_000, fileStore.getLimit());
+
+        PrimeStore restored = new PrimeStore();
+        PrimeFileStore restoredFileStore = open(restored);
+        assertEquals(10_000, restored.getLimit());
+        assertEquals(10_000, restoredFileStore.getLimit());
+        assertEquals(primesTo(10_000).primes(), restored.get(10_000).primes());
+        assertEquals(primesTo(1_000).primes(), restored.get(1_000).primes());
+    }
+
+    /**
+     * each extension only adds a chunk and appends its primes, chunks merged away are deleted
+     */
+    @Test
+    void testExtensionsAppend() throws IOException {
+        PrimeStore primeStore = new PrimeStore();
+        PrimeFileStore fileStore = open(primeStore);
+        primeStore.put(primesTo(1_000));
+        for (int limit : new int[]{50_000, 60_000, 200_000, 201_000}) {
+            primeStore.extendTo(limit);
+            fileStore.flush();
+            assertEquals(limit, fileStore.getLimit());
+            assertArrayEquals(deltaVarint(primesTo(limit)), Files.readAllBytes(directory.resolve("primes.varint")));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(((ChunkedPrimeList) primeStore.get(limit).primes()).chunks().size(),
+                        files.filter(file -> file.getFileName().toString().endsWith(".ef")).count());
+            }
+        }
+
+        PrimeStore restored = new PrimeStore();
+        PrimeFileStore restoredFileStore = open(restored);
+        assertEquals(201_000, restored.getLimit());
+        assertEquals(primesTo(201_000).primes(), restored.get(201_000).primes());
+        //and keeps growing from there
+        assertEquals(primesTo(250_000).primes(), restored.extendTo(250_000).primes());
+        restoredFileStore.flush();
+        assertEquals(250_000, restoredFileStore.getLimit());
+    }
+
+    /**
+     * any prefix sent from the file is the delta-varint encoding of that many primes, past the file nothing is sent
+     */
+    @Test
+    void testTransferDeltaVarint() throws IOException {
+        PrimeStore primeStore = new PrimeStore();
+        PrimeFileStore fileStore = open(primeStore);
+        assertEquals(-1, fileStore.transferDeltaVarint(0, Channels.newChannel(new ByteArrayOutputStream())));
+        primeStore.put(primesTo(200_000));
+        fileStore.flush();
+
+        int count = primeStore.get(200_000).primes().size();
+        long transferred = 0;
+        for (int limit : new int[]{0, 1, 2, 3, 38_000, 38_873, 38_900, 39_000, 100_000, 199_999, 200_000}) {
+            PrimeRange primeRange = primeStore.get(limit);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long length = fileStore.transferDeltaVarint(primeRange.primes().size(), Channels.newChannel(out));
+            assertArrayEquals(deltaVarint(primeRange), out.toByteArray(), () -> "up to " + limit);
+            assertEquals(out.size(), length);
+            transferred += length;
+        }
+        assertEquals(transferred, fileStore.getBytesTransferred());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(-1, fileStore.transferDeltaVarint(count + 1, Channels.newChannel(out)));
+        assertEquals(0, out.size());
+    }
+
+    /**
+     * the converter sends the same bytes from the file as it encodes
+     */
+    @Test
+    void testConverterSendsFromFile() throws IOException {
+        PrimeStore primeStore = new PrimeStore();
+        PrimeFileStore fileStore = open(primeStore);
+        primeStore.put(primesTo(100_000));
+        fileStore.flush();
+
+        PrimeRange primeRange = primeStore.get(77_777);
+        MockHttpOutputMessage encoded = new MockHttpOutputMessage();
+        new PrimesHttpMessageConverter().write(primeRange, PrimesHttpMessageConverter.APPLICATION_X_PRIMES, encoded);
+        MockHttpOutputMessage sent = new MockHttpOutputMessage();
+        new PrimesHttpMessageConverter(fileStore).write(primeRange, PrimesHttpMessageConverter.APPLICATION_X_PRIMES, sent);
+        assertArrayEquals(encoded.getBodyAsBytes(), sent.getBodyAsBytes());
+        assertEquals(encoded.getBodyAsBytes().length - PrimesFormat.HEADER_SIZE, fileStore.getBytesTransferred());
+
+        //other encodings are still encoded
+        MockHttpOutputMessage int32 = new MockHttpOutputMessage();
+        new PrimesHttpMessageConverter(fileStore).write(primeRange, MediaType.parseMediaType("application/x-primes;encoding=int32"), int32);
+        assertEquals(PrimesFormat.HEADER_SIZE + 4L * primeRange.primes().size(), int32.getBodyAsBytes().length);
+        assertEquals(encoded.getBodyAsBytes().length - PrimesFormat.HEADER_SIZE, fileStore.getBytesTransferred());
+    }
+
+    /**
+     * files that don't match the manifest are ignored, and overwritten by the next result
+     */
+    @Test
+    void testCorruptFilesStartEmpty() throws IOException {
+        PrimeStore primeStore = new PrimeStore();
+        PrimeFileStore fileStore = open(primeStore);
+        primeStore.put(primesTo(10_000));
+        fileStore.flush();
+
+        Path chunk;
+        try (Stream<Path> files = Files.list(directory)) {
+            chunk = files.filter(file -> file.getFileName().toString().endsWith(".ef")).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(chunk);
+        Files.write(chunk, Arrays.copyOf(bytes, bytes.length / 2));
+
+        PrimeStore restored = new PrimeStore();
+        PrimeFileStore restoredFileStore = open(restored);
+        assertEquals(Integer.MIN_VALUE, restored.getLimit());
+        assertEquals(Integer.MIN_VALUE, restoredFileStore.getLimit());
+
+        restored.put(primesTo(5_000));
+        restoredFileStore.flush();
+        PrimeStore again = new PrimeStore();
+        open(again);
+        assertEquals(primesTo(5_000).primes(), again.get(5_000).primes());
+
+        Files.delete(directory.resolve("primes.index"));
+        PrimeStore missing = new PrimeStore();
+        open(missing);
+        assertEquals(Integer.MIN_VALUE, missing.getLimit());
+    }
+
+    @Test
+    void testNoDirectory() throws IOException {
+        PrimeStore primeStore = new PrimeStore();
+        PrimeFileStore fileStore = track(new PrimeFileStore(primeStore, ""));
+        primeStore.put(primesTo(1_000));
+        fileStore.flush();
+        assertEquals(Integer.MIN_VALUE, fileStore.getLimit());
+        assertEquals(-1, fileStore.transferDeltaVarint(0, Channels.newChannel(new ByteArrayOutputStream())));
+    }
+
+    private PrimeFileStore open(PrimeStore primeStore) {
+        return track(new PrimeFileStore(primeStore, directory.toString()));
+    }
+
+    private PrimeFileStore track(PrimeFileStore fileStore) {
+        fileStores.add(fileStore);
+        return fileStore;
+    }
+
+    private static PrimeRange primesTo(int limit) {
+        return new PrimeRange(limit, PrimeList.of(SegmentedSieve.basePrimes(limit)));
+    }
+
+    /**
+     * @param primeRange
+     * @return the delta-varint body the converter encodes for primeRange, without its header
+     */
+    private static byte[] deltaVarint(PrimeRange primeRange) throws IOException {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        new PrimesHttpMessageConverter().write(primeRange, PrimesHttpMessageConverter.APPLICATION_X_PRIMES, outputMessage);
+        byte[] body = outputMessage.getBodyAsBytes();
+        return Arrays.copyOfRange(body, PrimesFormat.HEADER_SIZE, body.length);
+    }
+}
@@ -0,0 +1,205 @@
+package com.natwest.primecalculator.cache;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.ChunkedPrimeList;
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.PrimeService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class PrimeStoreTest extends TestBase {
+
+    @Autowired
+    private PrimeStore primeStore;
+
+    @Autowired
+    private PrimeService primeService;
+
+    /**
+     * every expected result sliced from the primes up to 10000
+     */
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testGetSlicesStoredResult(PrimeRange primeRange) {
+        PrimeStore store = new PrimeStore();
+        assertNull(store.get(primeRange.initial()));
+        store.put(new PrimeRange(primesTo10000.initial(), PrimeList.of(primesTo10000.primes().stream().mapToInt(Integer::intValue).toArray())));
+
+        PrimeRange result = store.get(primeRange.initial());
+        assertEquals(primeRange.initial(), result.initial());
+        assertEquals(new ArrayList<>(primeRange.primes()), result.primes());
+    }
+
+    /**
+     * every expected result grown to from the primes up to 10, then sliced again
+     */
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testExtendToMatchesExpected(PrimeRange primeRange) {
+        PrimeStore store = new PrimeStore();
+        assertNull(store.extendTo(primeRange.initial()));
+        store.put(primesTo10);
+
+        PrimeRange result = store.extendTo(primeRange.initial());
+        assertEquals(primeRange.initial(), result.initial());
+        assertEquals(new ArrayList<>(primeRange.primes()), result.primes());
+        assertEquals(Math.max(10, primeRange.initial()), store.getLimit());
+        assertEquals(new ArrayList<>(primesTo10.primes()), store.get(10).primes());
+    }
+
+    /**
+     * limits creeping upwards, most extensions only add a few primes, must keep matching a single sieve and keep the
+     * number of chunks logarithmic
+     */
+    @Test
+    void testCreepingExtensions() {
+        PrimeStore store = new PrimeStore();
+        store.put(primesTo1000);
+        Random random = new Random(21);
+        int limit = 1000;
+        while (limit < 3_000_000) {
+            limit += random.nextInt(limit / 4 + 1);
+            PrimeRange result = store.extendTo(limit);
+            assertEquals(limit, result.initial());
+            assertEquals(SegmentedSieve.basePrimes(limit).length, result.primes().size());
+        }
+        ChunkedPrimeList primes = (ChunkedPrimeList) store.get(limit).primes();
+        assertArrayEquals(SegmentedSieve.basePrimes(limit), primes.toIntArray());
+        assertTrue(primes.chunks().size() <= 2 * 32, () -> "chunks " + primes.chunks().size());
+        assertTrue(store.sizeInBytes() * 8 < 7L * primes.size(), () -> "bytes " + store.sizeInBytes());
+    }
+
+    /**
+     * readers slicing while a writer keeps extending always see a complete, correct prefix
+     */
+    @Test
+    void testReadersDuringExtension() throws Exception {
+        PrimeStore store = new PrimeStore();
+        store.put(primesTo10000);
+        int[] expected = SegmentedSieve.basePrimes(2_000_000);
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int reader = 0; reader < 2; reader++) {
+                readers.add(executor.submit(() -> {
+                    int reads = 0;
+                    do {
+                        int limit = store.getLimit();
+                        ChunkedPrimeList primes = (ChunkedPrimeList) store.get(limit).primes();
+                        int size = primes.size();
+                        assertTrue(size == 0 || primes.getInt(size - 1) <= limit);
+                        assertTrue(size == expected.length || expected[size] > limit);
+                        assertEquals(expected[size / 2], primes.getInt(size / 2));
+                        reads++;
+                    } while (!done.get());
+                    return reads;
+                }));
+            }
+            for (int limit = 20_000; limit <= 2_000_000; limit += 20_000) {
+                store.extendTo(limit);
+            }
+            done.set(true);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get() > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * clear() while an extension is running: the extension still answers its own limit, a writer that was waiting for
+     * the lock finds nothing left to extend and returns null rather than failing
+     */
+    @Test
+    void testClearDuringExtension() throws Exception {
+        PrimeStore store = new PrimeStore();
+        store.put(primesTo1000);
+        CountDownLatch publishing = new CountDownLatch(1);
+        AtomicReference<Thread> waiting = new AtomicReference<>();
+        //listeners run under the writer lock, so this clears while the first extension still holds it
+        store.addListener(primeRange -> {
+            publishing.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((waiting.get() == null || waiting.get().getState() != Thread.State.WAITING) && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            store.clear();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<PrimeRange> first = executor.submit(() -> store.extendTo(50_000));
+            assertTrue(publishing.await(10, TimeUnit.SECONDS));
+            Future<PrimeRange> second = executor.submit(() -> {
+                waiting.set(Thread.currentThread());
+                return store.extendTo(60_000);
+            });
+
+            assertArrayEquals(SegmentedSieve.basePrimes(50_000), ((ChunkedPrimeList) first.get().primes()).toIntArray());
+            assertNull(second.get());
+            assertEquals(Integer.MIN_VALUE, store.getLimit());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testPutKeepsLargest() {
+        PrimeStore store = new PrimeStore();
+        assertEquals(Integer.MIN_VALUE, store.getLimit());
+        store.put(primesTo100);
+        assertEquals(100, store.getLimit());
+        store.put(primesTo10);
+        assertEquals(100, store.getLimit());
+        assertNull(store.get(101));
+        store.put(primesTo1000);
+        assertEquals(1000, store.getLimit());
+        assertInstanceOf(ChunkedPrimeList.class, store.get(1000).primes());
+        assertEquals(List.of(2, 3, 5, 7), store.get(10).primes());
+        store.clear();
+        assertNull(store.get(10));
+    }
+
+    /**
+     * a result worked out by one sieve answers every lower limit of every other sieve, a higher limit extends it
+     */
+    @Test
+    void testSharedBySieves() {
+        PrimeRange atkin = primeService.getPrimes(SieveEnum.ATKIN, VersionEnum.V2, 3_000_017);
+        assertTrue(primeStore.getLimit() >= 3_000_017);
+
+        PrimeRange sundaram = primeService.getPrimes(SieveEnum.SUNDARAM, VersionEnum.V1, 3_000_000);
+        assertEquals(3_000_000, sundaram.initial());
+        assertEquals(216816, sundaram.primes().size());
+        assertEquals(new ArrayList<>(atkin.primes()).subList(0, 216816), sundaram.primes());
+
+        PrimeRange extended = primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, primeStore.getLimit() + 1_000_000);
+        assertEquals(primeStore.getLimit(), extended.initial());
+        assertArrayEquals(SegmentedSieve.basePrimes(extended.initial()), ((ChunkedPrimeList) extended.primes()).toIntArray());
+    }
+}
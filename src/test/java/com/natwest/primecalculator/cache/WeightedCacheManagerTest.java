@@ -0,0 +1,221 @@
+package com.natwest.primecalculator.cache;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.PrimeCount;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.PrimeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class WeightedCacheManagerTest extends TestBase {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PrimeService primeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HeapPressureMonitor heapPressureMonitor;
+
+    @Autowired
+    private PrimeStore primeStore;
+
+    @Test
+    void testGetPutEvict() {
+        WeightedCacheManager manager = new WeightedCacheManager(1 << 20, List.of("a"));
+        assertEquals(List.of("a"), manager.getCacheNames());
+        Cache cache = manager.getCache("a");
+        assertSame(cache, manager.getCache("a"));
+
+        assertNull(cache.get(1L));
+        cache.put(1L, "one");
+        cache.put(2L, null);
+        assertEquals("one", cache.get(1L).get());
+        assertNull(cache.get(2L).get());
+        assertEquals("three", cache.get(3L, () -> "three"));
+        assertEquals("three", cache.get(3L, () -> "not called"));
+        assertTrue(manager.getWeightedBytes() > 0);
+
+        cache.evict(1L);
+        assertNull(cache.get(1L));
+        cache.clear();
+        assertNull(cache.get(3L));
+        assertEquals(0, manager.getWeightedBytes());
+
+        WeightedCache weighted = (WeightedCache) cache;
+        assertEquals(3, weighted.getHitCount());
+        assertEquals(4, weighted.getMissCount());
+        assertEquals(3, weighted.getPutCount());
+        assertEquals(0, weighted.getSize());
+        assertEquals(0, weighted.getBytes());
+    }
+
+    /**
+     * the budget is never exceeded, and a new entry used more often than the least recently used one replaces it
+     */
+    @Test
+    void testBudgetEnforced() {
+        WeightedCacheManager manager = new WeightedCacheManager(10_000, List.of());
+        WeightedCache cache = (WeightedCache) manager.getCache("a");
+        for (long key = 0; key < 1000; key++) {
+            cache.put(key, new long[16]);
+            assertTrue(manager.getWeightedBytes() <= 10_000);
+        }
+        long held = cache.getSize();
+        assertTrue(held > 10, () -> "size " + held);
+        assertEquals(1000 - held, cache.getRejectionCount());
+
+        for (int round = 0; round < 3; round++) {
+            cache.get(5000L);
+        }
+        cache.put(5000L, new long[16]);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(held, cache.getSize());
+        assertNotNull(cache.get(5000L));
+        assertNull(cache.get(0L));
+        assertNotNull(cache.get(held - 1));
+    }
+
+    /**
+     * a single huge or one off entry can't flush the entries that keep being hit
+     */
+    @Test
+    void testFrequencyAwareAdmission() {
+        WeightedCacheManager manager = new WeightedCacheManager(10_000, List.of());
+        WeightedCache cache = (WeightedCache) manager.getCache("a");
+        for (long key = 0; key < 20; key++) {
+            cache.put(key, new long[32]);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (long key = 0; key < 20; key++) {
+                assertNotNull(cache.get(key));
+            }
+        }
+        long held = cache.getSize();
+
+        //bigger than the whole budget
+        cache.put(100L, new long[2000]);
+        assertNull(cache.get(100L));
+        //asked for once, would need to evict hot entries
+        assertNull(cache.get(101L));
+        cache.put(101L, new long[1000]);
+        assertNull(cache.get(101L));
+        assertEquals(held, cache.getSize());
+        assertEquals(2, cache.getRejectionCount());
+        assertEquals(0, cache.getEvictionCount());
+
+        //once it is asked for more often than the entries it displaces it gets in
+        for (int round = 0; round < 10; round++) {
+            cache.get(102L);
+        }
+        cache.put(102L, new long[400]);
+        assertNotNull(cache.get(102L));
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    /**
+     * a replacement that isn't admitted leaves the value already held rather than none
+     */
+    @Test
+    void testRejectedReplacementKeepsValue() {
+        WeightedCacheManager manager = new WeightedCacheManager(10_000, List.of());
+        WeightedCache cache = (WeightedCache) manager.getCache("a");
+        for (long key = 0; key < 20; key++) {
+            cache.put(key, new long[32]);
+        }
+        //every key but the one replaced is asked for often
+        for (int round = 0; round < 5; round++) {
+            for (long key = 0; key < 20; key++) {
+                if (key != 5L)
+                    assertNotNull(cache.get(key));
+            }
+        }
+        long held = cache.getSize();
+        long bytes = manager.getWeightedBytes();
+        Object value = cache.get(5L).get();
+
+        //bigger than the whole budget
+        cache.put(5L, new long[2000]);
+        assertSame(value, cache.get(5L).get());
+        //would need to evict entries asked for as often as it
+        cache.put(5L, new long[1000]);
+        assertSame(value, cache.get(5L).get());
+        assertEquals(2, cache.getRejectionCount());
+        assertEquals(held, cache.getSize());
+        assertEquals(bytes, manager.getWeightedBytes());
+
+        //a replacement that fits takes the place of the old value
+        long[] replacement = new long[32];
+        cache.put(5L, replacement);
+        assertSame(replacement, cache.get(5L).get());
+        assertEquals(held, cache.getSize());
+        assertEquals(bytes, manager.getWeightedBytes());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void testShed() {
+        WeightedCacheManager manager = new WeightedCacheManager(1 << 20, List.of());
+        Cache cache = manager.getCache("a");
+        for (long key = 0; key < 100; key++) {
+            cache.put(key, key);
+        }
+        long before = manager.getWeightedBytes();
+        long freed = manager.shed(0.5);
+        assertEquals(before - freed, manager.getWeightedBytes());
+        assertTrue(manager.getWeightedBytes() <= before / 2);
+        assertNull(cache.get(0L));
+        assertNotNull(cache.get(99L));
+    }
+
+    /**
+     * the @Cacheable results go through the WeightedCacheManager and its metrics are published
+     */
+    @Test
+    void testCacheableResultsAndMetrics() {
+        assertInstanceOf(WeightedCacheManager.class, cacheManager);
+        WeightedCache cache = (WeightedCache) cacheManager.getCache("PrimeCount");
+        long hits = cache.getHitCount();
+        PrimeCount first = primeService.getPrimeCount(12_345_678L, false);
+        PrimeCount second = primeService.getPrimeCount(12_345_678L, false);
+        assertSame(first, second);
+        assertEquals(hits + 1, cache.getHitCount());
+
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", "PrimeCount").tag("result", "hit").functionCounter());
+        assertTrue(meterRegistry.get("cache.bytes").tag("cache", "PrimeCount").gauge().value() > 0);
+        assertNotNull(meterRegistry.find("cache.rejections").tag("cache", "NthPrime").functionCounter());
+        assertTrue(meterRegistry.get("primecalculator.cache.bytes").gauge().value() > 0);
+        assertNotNull(meterRegistry.find("primecalculator.primestore.bytes").gauge());
+    }
+
+    @Test
+    void testHeapPressureSheds() {
+        primeService.getPrimeCount(1_234_567L, false);
+        primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, 1000);
+        long events = heapPressureMonitor.getEventCount();
+        long before = ((WeightedCacheManager) cacheManager).getWeightedBytes();
+
+        heapPressureMonitor.shed();
+        assertEquals(events + 1, heapPressureMonitor.getEventCount());
+        assertTrue(((WeightedCacheManager) cacheManager).getWeightedBytes() <= before / 2);
+        assertEquals(Integer.MIN_VALUE, primeStore.getLimit());
+        assertEquals(events + 1, meterRegistry.get("primecalculator.cache.heap.pressure").functionCounter().count());
+    }
+}
@@ -0,0 +1,83 @@
+package com.natwest.primecalculator.controllers;
+
+import com.natwest.primecalculator.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class FactorControllerTest extends TestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1:[]", "360:[2,2,2,3,3,5]", "4294967297:[641,6700417]",
+            "9223372036854775807:[7,7,73,127,337,92737,649657]"})
+    void testGetFactors(String value) throws Exception {
+        String[] parts = value.split(":");
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/factors/" + parts[0])
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"n\":" + parts[0] + ",\"factors\":" + parts[1] + "}"))
+                .andReturn();
+    }
+
+    @Test
+    void testGetFactorBatch() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/factors/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[12, 97, 1000000016000000063]")
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"n\":12,\"factors\":[2,2,3]},{\"n\":97,\"factors\":[97]},"
+                        + "{\"n\":1000000016000000063,\"factors\":[1000000007,1000000009]}]"))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/factors/0", "/factors/-12", "/factors/invalid", "/factors/9223372036854775808"})
+    void testInvalidArgForGetFactors(String urlPath) throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get(urlPath)
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @Test
+    void testInvalidArgForGetFactorBatch() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/factors/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[12, 0]")
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+}
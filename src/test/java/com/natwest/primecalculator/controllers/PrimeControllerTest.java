@@ -1,6 +1,8 @@
 package com.natwest.primecalculator.controllers;
 
 import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.client.PrimesDecoder;
+import com.natwest.primecalculator.client.PrimesFormat;
 import com.natwest.primecalculator.entities.PrimeRange;
 import com.natwest.primecalculator.service.PrimeService;
 
@@ -19,7 +21,13 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -60,6 +68,138 @@ class PrimeControllerTest extends TestBase {
                 .andReturn();
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetLargePrimes(PrimeRange primeRange) throws Exception {
+
+        String primeRangeJson = mapper.writeValueAsString(primeRange);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/large/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json(primeRangeJson))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeStream(PrimeRange primeRange) throws Exception {
+
+        String primeRangeJson = mapper.writeValueAsString(primeRange);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/stream/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().json(primeRangeJson, true))
+                .andReturn();
+    }
+
+    @Test
+    void testGetPrimeStreamAboveMaxLimit() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/stream/"+Long.MAX_VALUE)
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"int32", "int64", "delta-varint"})
+    void testGetPrimesAsBinary(String encoding) throws Exception {
+        for (String path : new String[]{"/primes/", "/primes/atkin/v2/"}) {
+            RequestBuilder request = MockMvcRequestBuilders
+                    .get(path+primesTo10000.initial())
+                    .accept(MediaType.parseMediaType("application/x-primes;encoding="+encoding));
+
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-primes;encoding="+encoding))
+                    .andReturn();
+
+            PrimesDecoder.Primes primes = PrimesDecoder.decode(result.getResponse().getContentAsByteArray());
+            assertEquals(primesTo10000.initial(), primes.to());
+            assertArrayEquals(primesTo10000.primes().stream().mapToLong(Integer::longValue).toArray(), primes.primes());
+        }
+    }
+
+    @Test
+    void testGetLargePrimesAndRangeAsBinary() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/large/1000000")
+                .accept(MediaType.parseMediaType("application/x-primes"));
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-primes;encoding=delta-varint"))
+                .andReturn();
+        //pi(10^6), 1 byte per prime rather than 7 as json
+        assertEquals(PrimesFormat.HEADER_SIZE + 78498, result.getResponse().getContentAsByteArray().length);
+        assertEquals(78498, PrimesDecoder.decode(result.getResponse().getContentAsByteArray()).primes().length);
+
+        request = MockMvcRequestBuilders
+                .get("/primes/eratosthenes/v5/range?from=90&to=110")
+                .accept(MediaType.parseMediaType("application/x-primes;encoding=int64"));
+
+        result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn();
+        PrimesDecoder.Primes primes = PrimesDecoder.decode(result.getResponse().getContentAsByteArray());
+        assertEquals(90, primes.from());
+        assertEquals(110, primes.to());
+        assertArrayEquals(new long[]{97, 101, 103, 107, 109}, primes.primes());
+    }
+
+    /**
+     * int32 can't hold the primes past Integer.MAX_VALUE, that is the client's choice of encoding rather than a failure
+     */
+    @Test
+    void testGetRangeAsInt32PastIntegerMaxValue() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/eratosthenes/v5/range?from=2147483600&to=2147483700")
+                .accept(MediaType.parseMediaType("application/x-primes;encoding=int32"));
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isNotAcceptable())
+                .andReturn();
+        assertEquals("int32 can't hold primes past Integer.MAX_VALUE (2147483700), use int64 or delta-varint",
+                result.getResponse().getErrorMessage());
+    }
+
+    @Test
+    void testGetPrimesAsBinaryUnknownEncoding() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/100")
+                .accept(MediaType.parseMediaType("application/x-primes;encoding=gzip"));
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-primes;encoding=delta-varint"))
+                .andReturn();
+    }
+
+    @Test
+    void testGetLargePrimesAboveMaxLimit() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/large/"+Long.MAX_VALUE)
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
     @ParameterizedTest
     @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
     void testGetPrimesWithEratosthenes(PrimeRange primeRange) throws Exception {
@@ -120,6 +260,96 @@ class PrimeControllerTest extends TestBase {
                 .andReturn();
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimesWithEratosthenesV5(PrimeRange primeRange) throws Exception {
+        String primeRangeJson = mapper.writeValueAsString(primeRange);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/eratosthenes/v5/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json(primeRangeJson))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimesWithEratosthenesV6(PrimeRange primeRange) throws Exception {
+        String primeRangeJson = mapper.writeValueAsString(primeRange);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/eratosthenes/v6/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json(primeRangeJson))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimesWithEratosthenesV7(PrimeRange primeRange) throws Exception {
+        String primeRangeJson = mapper.writeValueAsString(primeRange);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/eratosthenes/v7/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json(primeRangeJson))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimesWithAtkinV2(PrimeRange primeRange) throws Exception {
+        String primeRangeJson = mapper.writeValueAsString(primeRange);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/atkin/v2/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json(primeRangeJson))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimesWithSundaramV2(PrimeRange primeRange) throws Exception {
+        String primeRangeJson = mapper.writeValueAsString(primeRange);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/sundaram/v2/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json(primeRangeJson))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimesWithEulerV1(PrimeRange primeRange) throws Exception {
+        String primeRangeJson = mapper.writeValueAsString(primeRange);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/euler/v1/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json(primeRangeJson))
+                .andReturn();
+    }
+
     @ParameterizedTest
     @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
     void testGetPrimesWithSundaram(PrimeRange primeRange) throws Exception {
@@ -136,12 +366,236 @@ class PrimeControllerTest extends TestBase {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"/primes/atkin/v1/invalid",
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeCount(PrimeRange primeRange) throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/count/"+primeRange.initial())
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"initial\":"+primeRange.initial()+",\"count\":"+primeRange.primes().size()+",\"sum\":null}"))
+                .andReturn();
+    }
+
+    @Test
+    void testGetPrimeCountWithSum() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/count/100?sum=true")
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"initial\":100,\"count\":25,\"sum\":1060}"))
+                .andReturn();
+    }
+
+    @Test
+    void testGetPrimeCountAboveMaxLimit() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/count/"+Long.MAX_VALUE)
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @Test
+    void testGetNthPrime() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/nth/10000")
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"n\":10000,\"prime\":104729}"))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/primes/nth/0", "/primes/nth/-1", "/primes/nth/" + Long.MAX_VALUE})
+    void testGetNthPrimeOutOfRange(String urlPath) throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get(urlPath)
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"97:true", "100:false", "-3:false", "9223372036854775783:true", "9223372036854775807:false"})
+    void testIsPrime(String nAndExpected) throws Exception {
+        String[] parts = nAndExpected.split(":");
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/is-prime/"+parts[0])
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"n\":"+parts[0]+",\"prime\":"+parts[1]+"}"))
+                .andReturn();
+    }
+
+    @Test
+    void testGetPrimeBatch() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/primes/batch?operation=next-prime")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[-5, 2, 100, 9223372036854775782]")
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"operation\":\"NEXT_PRIME\",\"prime\":null,\"primes\":[2,3,101,9223372036854775783]}"))
+                .andReturn();
+    }
+
+    @Test
+    void testGetPrimeBatchBinary() throws Exception {
+        ByteBuffer body = ByteBuffer.allocate(3 * Long.BYTES);
+        body.asLongBuffer().put(new long[]{97, 100, 9223372036854775783L});
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/primes/batch?operation=is-prime")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(body.array())
+                .accept(MediaType.APPLICATION_OCTET_STREAM);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[]{1, 0, 1}))
+                .andReturn();
+
+        request = MockMvcRequestBuilders
+                .post("/primes/batch?operation=previous-prime")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(body.array())
+                .accept(MediaType.APPLICATION_OCTET_STREAM);
+
+        ByteBuffer expected = ByteBuffer.allocate(3 * Long.BYTES);
+        expected.asLongBuffer().put(new long[]{89, 97, 9223372036854775643L});
+        result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(expected.array()))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"invalid", "IS_COMPOSITE", ""})
+    void testGetPrimeBatchInvalidOperation(String operation) throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/primes/batch?operation="+operation)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 3]")
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @Test
+    void testGetPrimeBatchBinaryWithPartialLong() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/primes/batch?operation=is-prime")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(new byte[]{0, 0, 0, 7})
+                .accept(MediaType.APPLICATION_OCTET_STREAM);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @Test
+    void testGetPrimeStatistics() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/stats/100")
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"from\":0,\"to\":100,\"count\":25,\"maxGap\":8,\"maxGapStart\":89,\"twins\":8,"
+                        + "\"cousins\":8,\"sexy\":15,\"triplets\":8,\"quadruplets\":2,"
+                        + "\"gaps\":{\"1\":1,\"2\":8,\"4\":7,\"6\":7,\"8\":1}}"))
+                .andReturn();
+
+        request = MockMvcRequestBuilders
+                .get("/primes/stats/range?from=90&to=110")
+                .accept(MediaType.APPLICATION_JSON);
+
+        result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"from\":90,\"to\":110,\"count\":5,\"maxGap\":4,\"maxGapStart\":97,\"twins\":2,"
+                        + "\"cousins\":2,\"sexy\":3,\"triplets\":3,\"quadruplets\":1}"))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/primes/stats/range?from=10",
+            "/primes/stats/range?from=20&to=10",
+            "/primes/stats/range?from=-1&to=10",
+            "/primes/stats/invalid",
+            "/primes/stats/20000000001"})
+    void testInvalidArgForGetPrimeStatistics(String urlPath) throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get(urlPath)
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @Test
+    void testGetPrimesInRange() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/primes/eratosthenes/v5/range?from=2000000000&to=2000000100")
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"from\":2000000000,\"to\":2000000100,\"primes\":[2000000011,2000000033,2000000063,2000000087,2000000089,2000000099]}"))
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/primes/eratosthenes/v5/range?from=10",
+            "/primes/eratosthenes/v5/range?from=20&to=10",
+            "/primes/eratosthenes/v5/range?from=invalid&to=10",
+            "/primes/eratosthenes/v1/range?from=10&to=20",
+            "/primes/sundaram/v1/range?from=10&to=20"})
+    void testInvalidArgForGetPrimesInRange(String urlPath) throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get(urlPath)
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/primes/euler/v1/invalid",
+            "/primes/sundaram/v2/invalid",
+            "/primes/atkin/v2/invalid",
+            "/primes/eratosthenes/v7/invalid",
+            "/primes/eratosthenes/v6/invalid",
+            "/primes/atkin/v1/invalid",
             "/primes/sundaram/v1/invalid",
+            "/primes/eratosthenes/v5/invalid",
             "/primes/eratosthenes/v4/invalid",
             "/primes/eratosthenes/v3/invalid",
             "/primes/eratosthenes/v2/invalid",
             "/primes/eratosthenes/v1/invalid",
+            "/primes/large/invalid",
+            "/primes/stream/invalid",
+            "/primes/count/invalid",
+            "/primes/nth/invalid",
+            "/primes/is-prime/invalid",
             "/primes/invalid"})
     void testInvalidArgForEndpoints(String urlPath) throws Exception{
         RequestBuilder request = MockMvcRequestBuilders
@@ -0,0 +1,119 @@
+package com.natwest.primecalculator.converters;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.client.PrimesDecoder;
+import com.natwest.primecalculator.client.PrimesFormat;
+import com.natwest.primecalculator.entities.EliasFanoPrimeList;
+import com.natwest.primecalculator.entities.LargePrimeRange;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import com.natwest.primecalculator.sieve.SegmentedPrimeSequence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimesHttpMessageConverterTest extends TestBase {
+
+    private final PrimesHttpMessageConverter converter = new PrimesHttpMessageConverter();
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testRoundTripEveryEncoding(PrimeRange primeRange) throws IOException {
+        long[] expected = primeRange.primes().stream().mapToLong(Integer::longValue).toArray();
+        for (PrimesFormat.Encoding encoding : PrimesFormat.Encoding.values()) {
+            PrimesDecoder.Primes primes = PrimesDecoder.decode(write(primeRange, encoding.parameter()));
+            assertEquals(encoding, primes.encoding());
+            assertEquals(0, primes.from());
+            assertEquals(primeRange.initial(), primes.to());
+            assertArrayEquals(expected, primes.primes());
+        }
+        //the compressed form of a cached result is written the same way
+        if (!primeRange.primes().isEmpty()) {
+            PrimeRange compressed = new PrimeRange(primeRange.initial(), EliasFanoPrimeList.encode(primeRange.primes()));
+            assertArrayEquals(expected, PrimesDecoder.decode(write(compressed, null)).primes());
+        }
+    }
+
+    /**
+     * 4 bytes per prime for int32, 8 for int64 and 1 for delta-varint while every gap is below 128
+     */
+    @Test
+    void testSizes() throws IOException {
+        PrimeRange primeRange = primesTo10000;
+        int count = primeRange.primes().size();
+        assertEquals(PrimesFormat.HEADER_SIZE + 4 * count, write(primeRange, "int32").length);
+        assertEquals(PrimesFormat.HEADER_SIZE + 8 * count, write(primeRange, "int64").length);
+        assertEquals(PrimesFormat.HEADER_SIZE + count, write(primeRange, "delta-varint").length);
+        assertEquals(PrimesFormat.HEADER_SIZE + count, write(primeRange, null).length);
+    }
+
+    @Test
+    void testUnknownEncodingFallsBackToDeltaVarint() throws IOException {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        converter.write(primesTo100, MediaType.parseMediaType("application/x-primes;encoding=gzip"), outputMessage);
+        assertEquals("delta-varint", outputMessage.getHeaders().getContentType().getParameter(PrimesFormat.ENCODING_PARAMETER));
+        assertEquals(PrimesFormat.Encoding.DELTA_VARINT, PrimesDecoder.decode(outputMessage.getBodyAsBytes()).encoding());
+    }
+
+    @Test
+    void testLargePrimeRangeAndWindow() throws IOException {
+        long from = (1L << 40) - 100_000;
+        long to = (1L << 40) + 100_000;
+        long[] expected = StreamSupport.stream(new SegmentedPrimeSequence(from, to).spliterator(), false)
+                .mapToLong(Long::longValue).toArray();
+
+        PrimesDecoder.Primes window = PrimesDecoder.decode(write(new PrimeWindow(from, to, expected), "int64"));
+        assertEquals(from, window.from());
+        assertEquals(to, window.to());
+        assertArrayEquals(expected, window.primes());
+
+        PrimesDecoder.Primes large = PrimesDecoder.decode(write(new LargePrimeRange(1L << 33, new SegmentedPrimeSequence(from, to)), null));
+        assertEquals(1L << 33, large.to());
+        assertArrayEquals(expected, large.primes());
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> write(new PrimeWindow(from, to, expected), "int32"));
+        assertEquals(HttpStatus.NOT_ACCEPTABLE, e.getStatusCode());
+    }
+
+    @Test
+    void testCanWrite() {
+        assertTrue(converter.canWrite(PrimeRange.class, MediaType.parseMediaType("application/x-primes")));
+        assertTrue(converter.canWrite(PrimeRange.class, MediaType.parseMediaType("application/x-primes;encoding=INT32")));
+        assertFalse(converter.canWrite(PrimeRange.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(String.class, MediaType.parseMediaType("application/x-primes")));
+        assertFalse(converter.canRead(PrimeRange.class, MediaType.parseMediaType("application/x-primes")));
+    }
+
+    @Test
+    void testDecodeInvalidBody() throws IOException {
+        byte[] body = write(primesTo100, "int32");
+        assertThrows(EOFException.class, () -> PrimesDecoder.decode(Arrays.copyOf(body, body.length - 1)));
+        assertThrows(EOFException.class, () -> PrimesDecoder.decode(Arrays.copyOf(body, 10)));
+        assertThrows(IOException.class, () -> PrimesDecoder.decode("{\"initial\":1}".getBytes()));
+        byte[] varint = write(new PrimeRange(1000, List.of(997)), "delta-varint");
+        assertThrows(EOFException.class, () -> PrimesDecoder.decode(Arrays.copyOf(varint, varint.length - 1)));
+    }
+
+    private byte[] write(Object body, String encoding) throws IOException {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        MediaType mediaType = encoding == null
+                ? PrimesHttpMessageConverter.APPLICATION_X_PRIMES
+                : MediaType.parseMediaType(PrimesFormat.MEDIA_TYPE + ";encoding=" + encoding);
+        converter.write(body, mediaType, outputMessage);
+        assertEquals(encoding == null ? "delta-varint" : encoding,
+                outputMessage.getHeaders().getContentType().getParameter(PrimesFormat.ENCODING_PARAMETER));
+        return outputMessage.getBodyAsBytes();
+    }
+}
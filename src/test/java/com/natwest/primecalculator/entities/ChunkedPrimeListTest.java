@@ -0,0 +1,70 @@
+package com.natwest.primecalculator.entities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.natwest.primecalculator.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedPrimeListTest extends TestBase {
+
+    /**
+     * the primes up to 10000 split into chunks at every expected limit behave the same as the unsplit list
+     */
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testChunksMatchExpected(PrimeRange primeRange) throws Exception {
+        List<Integer> all = new ArrayList<>(primesTo10000.primes());
+        int split = primeRange.primes().size();
+        ChunkedPrimeList primes = ChunkedPrimeList.of(List.of(
+                EliasFanoPrimeList.encode(all.subList(0, split)),
+                EliasFanoPrimeList.encode(all.subList(split, all.size()), Math.max(1, (primeRange.initial() + 1) | 1))));
+
+        assertEquals(all.size(), primes.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(all.get(i), primes.getInt(i));
+        }
+        assertEquals(all, primes);
+        assertEquals(all.hashCode(), primes.hashCode());
+        assertArrayEquals(all.stream().mapToInt(Integer::intValue).toArray(), primes.toIntArray());
+        List<Integer> seen = new ArrayList<>();
+        primes.forEachInt(seen::add);
+        assertEquals(all, seen);
+
+        //slicing back at the split and at the limit
+        int count = primes.countUpTo(primeRange.initial());
+        assertEquals(split, count);
+        assertEquals(new ArrayList<>(primeRange.primes()), primes.headList(count));
+        assertEquals(all.subList(0, split / 2), primes.headList(split / 2));
+
+        JsonNode expectedJson = mapper.readTree(mapper.writeValueAsString(primesTo10000));
+        JsonNode actualJson = mapper.readTree(mapper.writeValueAsString(new PrimeRange(primesTo10000.initial(), primes)));
+        assertEquals(expectedJson, actualJson);
+    }
+
+    @Test
+    void testAppend() {
+        ChunkedPrimeList empty = ChunkedPrimeList.of(List.of());
+        assertTrue(empty.isEmpty());
+        assertEquals(0, empty.countUpTo(100));
+        assertFalse(empty.iterator().hasNext());
+
+        ChunkedPrimeList primes = empty.append(EliasFanoPrimeList.encode(List.of(2, 3, 5)));
+        assertSame(primes, primes.append(EliasFanoPrimeList.encode(List.of())));
+        ChunkedPrimeList appended = primes.append(EliasFanoPrimeList.encode(List.of(7, 11), 7));
+        assertEquals(List.of(2, 3, 5), primes);
+        assertEquals(List.of(2, 3, 5, 7, 11), appended);
+        assertEquals(2, appended.chunks().size());
+        assertEquals(4, appended.countUpTo(10));
+        assertEquals(List.of(2, 3, 5, 7), appended.headList(4));
+        assertTrue(appended.headList(0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> appended.append(EliasFanoPrimeList.encode(List.of(11, 13))));
+        assertThrows(IndexOutOfBoundsException.class, () -> appended.getInt(5));
+        assertThrows(UnsupportedOperationException.class, () -> appended.add(13));
+    }
+}
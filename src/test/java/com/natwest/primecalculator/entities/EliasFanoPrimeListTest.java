@@ -0,0 +1,140 @@
+package com.natwest.primecalculator.entities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EliasFanoPrimeListTest extends TestBase {
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testEncodeMatchesExpected(PrimeRange primeRange) throws Exception {
+        List<Integer> expected = new ArrayList<>(primeRange.primes());
+        EliasFanoPrimeList primes = EliasFanoPrimeList.encode(primeRange.primes());
+
+        assertEquals(expected.size(), primes.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), primes.getInt(i));
+        }
+        assertEquals(expected, primes);
+        assertEquals(primes, expected);
+        assertEquals(expected.hashCode(), primes.hashCode());
+
+        JsonNode expectedJson = mapper.readTree(mapper.writeValueAsString(primeRange));
+        JsonNode actualJson = mapper.readTree(mapper.writeValueAsString(new PrimeRange(primeRange.initial(), primes)));
+        assertEquals(expectedJson, actualJson);
+    }
+
+    /**
+     * every prime up to 20 million, random access and sequential decode both have to give back the original list
+     */
+    @Test
+    void testEncodeLarge() {
+        PrimeList.Builder builder = new PrimeList.Builder(SegmentedSieve.maxPrimesUpTo(20_000_000));
+        SegmentedSieve.forEachPrime(2, 20_000_000, prime -> builder.add((int) prime));
+        PrimeList expected = builder.build();
+        EliasFanoPrimeList primes = EliasFanoPrimeList.encode(expected);
+
+        assertEquals(1270607, primes.size());
+        assertArrayEquals(expected.toIntArray(), primes.toIntArray());
+        Random random = new Random(17);
+        for (int attempt = 0; attempt < 100_000; attempt++) {
+            int index = random.nextInt(expected.size());
+            assertEquals(expected.getInt(index), primes.getInt(index));
+        }
+        int[] count = {0};
+        primes.forEachInt(prime -> assertEquals(expected.getInt(count[0]++), prime));
+        assertEquals(expected.size(), count[0]);
+        assertEquals(expected, primes);
+
+        //under 6 bits per prime
+        assertTrue(primes.sizeInBytes() * 8 < 6L * primes.size(), () -> "bytes " + primes.sizeInBytes());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testCountUpToAndHeadList(PrimeRange primeRange) {
+        EliasFanoPrimeList primes = EliasFanoPrimeList.encode(primesTo10000.primes());
+        List<Integer> expected = new ArrayList<>(primeRange.primes());
+
+        int count = primes.countUpTo(primeRange.initial());
+        assertEquals(expected.size(), count);
+        EliasFanoPrimeList head = primes.headList(count);
+        assertEquals(expected, head);
+        assertEquals(head, expected);
+        assertEquals(EliasFanoPrimeList.encode(expected), head);
+        assertEquals(expected.hashCode(), head.hashCode());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), head.toIntArray());
+        if (count > 0)
+            assertNotEquals(expected, primes.headList(count - 1));
+    }
+
+    @Test
+    void testEdgeCases() {
+        assertTrue(EliasFanoPrimeList.encode(List.of()).isEmpty());
+        assertEquals(List.of(2), EliasFanoPrimeList.encode(List.of(2)));
+        assertEquals(List.of(3), EliasFanoPrimeList.encode(List.of(3)));
+        assertEquals(List.of(2, 3), EliasFanoPrimeList.encode(List.of(2, 3)));
+        assertEquals(List.of(2147483647), EliasFanoPrimeList.encode(List.of(2147483647)));
+        assertEquals(List.of(2, 3, 2147483629, 2147483647), EliasFanoPrimeList.encode(List.of(2, 3, 2147483629, 2147483647)));
+        assertThrows(IllegalArgumentException.class, () -> EliasFanoPrimeList.encode(List.of(2, 4)));
+        assertThrows(IllegalArgumentException.class, () -> EliasFanoPrimeList.encode(List.of(5, 3)));
+
+        //relative to a base
+        EliasFanoPrimeList based = EliasFanoPrimeList.encode(List.of(2147483629, 2147483647), 2147483629);
+        assertEquals(List.of(2147483629, 2147483647), based);
+        assertEquals(2147483629, based.base());
+        assertEquals(List.of(2, 3, 5), EliasFanoPrimeList.encode(List.of(2, 3, 5), 3));
+        assertThrows(IllegalArgumentException.class, () -> EliasFanoPrimeList.encode(List.of(3, 5), 5));
+        assertThrows(IllegalArgumentException.class, () -> EliasFanoPrimeList.encode(List.of(3, 5), 2));
+
+        EliasFanoPrimeList primes = EliasFanoPrimeList.encode(List.of(2, 3, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> primes.getInt(3));
+        assertThrows(UnsupportedOperationException.class, () -> primes.add(7));
+        PrimitiveIterator.OfInt iterator = primes.iterator();
+        iterator.nextInt();
+        iterator.nextInt();
+        iterator.nextInt();
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * the file form reads back equal, after a previous list in the same buffer
+     */
+    @Test
+    void testWriteToReadFrom() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<EliasFanoPrimeList> written = List.of(
+                EliasFanoPrimeList.encode(List.of()),
+                EliasFanoPrimeList.encode(PrimeList.of(SegmentedSieve.basePrimes(1_000_000))),
+                EliasFanoPrimeList.encode(List.of(1_000_003, 1_000_033, 1_000_037), 1_000_001));
+        for (EliasFanoPrimeList primes : written) {
+            primes.writeTo(Channels.newChannel(out));
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        for (EliasFanoPrimeList primes : written) {
+            EliasFanoPrimeList read = EliasFanoPrimeList.readFrom(buffer);
+            assertEquals(primes, read);
+            assertEquals(primes.base(), read.base());
+            assertEquals(primes.sizeInBytes(), read.sizeInBytes());
+            assertEquals(primes.countUpTo(999_999), read.countUpTo(999_999));
+        }
+        assertFalse(buffer.hasRemaining());
+        assertThrows(IllegalArgumentException.class, () -> EliasFanoPrimeList.readFrom(ByteBuffer.allocate(32)));
+    }
+}
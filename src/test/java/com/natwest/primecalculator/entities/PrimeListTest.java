@@ -0,0 +1,57 @@
+package com.natwest.primecalculator.entities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.natwest.primecalculator.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeListTest extends TestBase {
+
+    /**
+     * a PrimeRange backed by a PrimeList must serialize to exactly the same json as the expected results
+     */
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testSerializeMatchesExpectedJson(PrimeRange primeRange) throws Exception {
+        PrimeList.Builder builder = new PrimeList.Builder(1);
+        primeRange.primes().forEach(builder::add);
+        PrimeList primes = builder.build();
+
+        JsonNode expected = mapper.readTree(mapper.writeValueAsString(primeRange));
+        JsonNode actual = mapper.readTree(mapper.writeValueAsString(new PrimeRange(primeRange.initial(), primes)));
+        assertEquals(expected, actual);
+        assertEquals(new ArrayList<>(primeRange.primes()), primes);
+        assertEquals(primes, new ArrayList<>(primeRange.primes()));
+        assertEquals(new ArrayList<>(primeRange.primes()).hashCode(), primes.hashCode());
+    }
+
+    @Test
+    void testListBehaviour() {
+        PrimeList primes = PrimeList.of(new int[]{2, 3, 5, 7});
+        assertEquals(4, primes.size());
+        assertEquals(5, primes.getInt(2));
+        assertEquals(List.of(2, 3, 5, 7), primes);
+        assertEquals(PrimeList.of(new int[]{2, 3, 5, 7}), primes);
+        assertArrayEquals(new int[]{2, 3, 5, 7}, primes.toIntArray());
+        assertThrows(UnsupportedOperationException.class, () -> primes.add(11));
+        assertThrows(IndexOutOfBoundsException.class, () -> primes.getInt(4));
+
+        List<Integer> seen = new ArrayList<>();
+        primes.forEachInt(seen::add);
+        assertEquals(primes, seen);
+        assertTrue(PrimeList.of(new int[0]).isEmpty());
+
+        assertEquals(0, primes.countUpTo(1));
+        assertEquals(2, primes.countUpTo(4));
+        assertEquals(3, primes.countUpTo(5));
+        assertEquals(4, primes.countUpTo(100));
+        assertEquals(List.of(2, 3), primes.headList(2));
+        assertSame(primes, primes.headList(4));
+    }
+}
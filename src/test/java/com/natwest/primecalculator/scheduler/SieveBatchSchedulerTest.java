@@ -0,0 +1,112 @@
+package com.natwest.primecalculator.scheduler;
+
+import com.natwest.primecalculator.cache.PrimeStore;
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveAndVersionEnum;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SieveBatchSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountingSieveService sieveService = new CountingSieveService();
+    private SieveBatchScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * different limits within the window are sieved once up to the largest of them
+     */
+    @Test
+    void testBatchSievedOnceUpToLargestLimit() throws Exception {
+        scheduler = new SieveBatchScheduler(new PrimeStore(), meterRegistry, 500);
+        List<CompletableFuture<PrimeRange>> results = new ArrayList<>();
+        for (int limit : new int[]{1000, 50_000, 20_000, 2}) {
+            results.add(scheduler.schedule(sieveService, limit));
+        }
+        for (CompletableFuture<PrimeRange> result : results) {
+            PrimeRange primeRange = result.get(10, TimeUnit.SECONDS);
+            assertEquals(50_000, primeRange.initial());
+            assertEquals(5133, primeRange.primes().size());
+        }
+        assertEquals(List.of(50_000), sieveService.limits);
+
+        DistributionSummary batchSize = meterRegistry.get("primecalculator.sieve.batch.size").summary();
+        assertEquals(1, batchSize.count());
+        assertEquals(4, batchSize.max());
+        Timer batchWait = meterRegistry.get("primecalculator.sieve.batch.wait").timer();
+        assertEquals(4, batchWait.count());
+        assertTrue(batchWait.max(TimeUnit.MILLISECONDS) >= 400, () -> "wait " + batchWait.max(TimeUnit.MILLISECONDS));
+        assertTrue(batchWait.max(TimeUnit.MILLISECONDS) < 5000, () -> "wait " + batchWait.max(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * once the first batch has been sieved later limits are sliced from, or extend, the store without the sieve
+     */
+    @Test
+    void testLaterBatchesExtendStore() throws Exception {
+        PrimeStore primeStore = new PrimeStore();
+        scheduler = new SieveBatchScheduler(primeStore, meterRegistry, 0);
+        assertEquals(168, scheduler.schedule(sieveService, 1000).get(10, TimeUnit.SECONDS).primes().size());
+        assertEquals(1229, scheduler.schedule(sieveService, 10_000).get(10, TimeUnit.SECONDS).primes().size());
+        assertEquals(List.of(1000), sieveService.limits);
+        assertEquals(10_000, primeStore.getLimit());
+        assertEquals(2, meterRegistry.get("primecalculator.sieve.batch.size").summary().count());
+    }
+
+    /**
+     * cancelling what schedule(..) returned leaves the shared computation running
+     */
+    @Test
+    void testCancelDoesNotCancelBatch() throws Exception {
+        scheduler = new SieveBatchScheduler(new PrimeStore(), meterRegistry, 200);
+        CompletableFuture<PrimeRange> cancelled = scheduler.schedule(sieveService, 1000);
+        CompletableFuture<PrimeRange> kept = scheduler.schedule(sieveService, 1000);
+        assertTrue(cancelled.cancel(true));
+        assertEquals(168, kept.get(10, TimeUnit.SECONDS).primes().size());
+        assertEquals(1, sieveService.calls.get());
+    }
+
+    private static class CountingSieveService implements SieveService {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<Integer> limits = new ArrayList<>();
+
+        @Override
+        public synchronized PrimeRange getPrimeRange(int limit) {
+            calls.incrementAndGet();
+            limits.add(limit);
+            return new PrimeRange(limit, PrimeList.of(SegmentedSieve.basePrimes(limit)));
+        }
+
+        @Override
+        public SieveAndVersionEnum getSieveEnum() {
+            return SieveAndVersionEnum.ERATOSTHENESV1;
+        }
+
+        @Override
+        public SieveKey getSieveKey() {
+            return new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1);
+        }
+    }
+}
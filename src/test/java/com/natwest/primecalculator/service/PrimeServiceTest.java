@@ -1,7 +1,15 @@
 package com.natwest.primecalculator.service;
 
 import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.Factorisation;
+import com.natwest.primecalculator.entities.NthPrime;
+import com.natwest.primecalculator.entities.Primality;
+import com.natwest.primecalculator.entities.PrimeBatch;
+import com.natwest.primecalculator.entities.PrimeCount;
 import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeStatistics;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import com.natwest.primecalculator.enums.BatchOperationEnum;
 import com.natwest.primecalculator.enums.SieveEnum;
 import com.natwest.primecalculator.enums.VersionEnum;
 import org.junit.jupiter.api.Test;
@@ -13,9 +21,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -83,6 +94,48 @@ class PrimeServiceTest extends TestBase {
         assertEquals(primeRange, result);
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRangeUsingSieveOfEratosthenesV5(PrimeRange primeRange) {
+        final PrimeRange result = primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V5, primeRange.initial());
+        assertEquals(primeRange, result);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRangeUsingSieveOfEratosthenesV6(PrimeRange primeRange) {
+        final PrimeRange result = primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V6, primeRange.initial());
+        assertEquals(primeRange, result);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRangeUsingSieveOfEratosthenesV7(PrimeRange primeRange) {
+        final PrimeRange result = primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V7, primeRange.initial());
+        assertEquals(primeRange, result);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRangeUsingSieveOfAtkinV2(PrimeRange primeRange) {
+        final PrimeRange result = primeService.getPrimes(SieveEnum.ATKIN, VersionEnum.V2, primeRange.initial());
+        assertEquals(primeRange, result);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRangeUsingSieveOfSundaramV2(PrimeRange primeRange) {
+        final PrimeRange result = primeService.getPrimes(SieveEnum.SUNDARAM, VersionEnum.V2, primeRange.initial());
+        assertEquals(primeRange, result);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRangeUsingSieveOfEulerV1(PrimeRange primeRange) {
+        final PrimeRange result = primeService.getPrimes(SieveEnum.EULER, VersionEnum.V1, primeRange.initial());
+        assertEquals(primeRange, result);
+    }
+
     @Test
     void testGetPrimesSieveOfEratosthenes() {
         final PrimeRange result = primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, -11);
@@ -104,12 +157,218 @@ class PrimeServiceTest extends TestBase {
     @Test
     void testSundaramWrongVersionThrowsException(){
         Exception exception = assertThrows(ResponseStatusException.class, () -> {
-            primeService.getPrimes(SieveEnum.SUNDARAM, VersionEnum.V2,10);
+            primeService.getPrimes(SieveEnum.SUNDARAM, VersionEnum.V3,10);
+        });
+
+        String expectedMessage = "400 BAD_REQUEST \"Sieve algorithm SUNDARAM doesn't have supplied version V3 implementation\"";
+        String actualMessage = exception.getMessage();
+
+        assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimesInRange(PrimeRange primeRange) {
+        //the second half of each fixture, negative fixtures become the empty window [0, 0]
+        final long to = Math.max(0, primeRange.initial());
+        final long from = to / 2;
+        final long[] expected = primeRange.primes().stream()
+                .filter(prime -> prime >= from)
+                .mapToLong(Integer::longValue)
+                .toArray();
+        assertArrayEquals(expected, primeService.getPrimesInRange(SieveEnum.ERATOSTHENES, VersionEnum.V5, from, to).primes());
+        assertArrayEquals(expected, primeService.getPrimesInRange(SieveEnum.ERATOSTHENES, VersionEnum.V7, from, to).primes());
+        assertArrayEquals(expected, primeService.getPrimesInRange(SieveEnum.ATKIN, VersionEnum.V2, from, to).primes());
+    }
+
+    @Test
+    void testGetPrimesInRangeUnsupportedVersionThrowsException(){
+        Exception exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getPrimesInRange(SieveEnum.ERATOSTHENES, VersionEnum.V1, 10L, 20L);
+        });
+
+        String expectedMessage = "400 BAD_REQUEST \"Sieve algorithm ERATOSTHENES version V1 doesn't support range queries\"";
+        String actualMessage = exception.getMessage();
+
+        assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    @Test
+    void testGetPrimesInRangeInvalidRangeThrowsException(){
+        assertThrows(ResponseStatusException.class, () -> primeService.getPrimesInRange(SieveEnum.ERATOSTHENES, VersionEnum.V5, 20L, 10L));
+        assertThrows(ResponseStatusException.class, () -> primeService.getPrimesInRange(SieveEnum.ERATOSTHENES, VersionEnum.V5, -10L, 10L));
+        assertThrows(ResponseStatusException.class, () -> primeService.getPrimesInRange(SieveEnum.ERATOSTHENES, VersionEnum.V5, Long.MAX_VALUE - 10, Long.MAX_VALUE));
+        assertThrows(ResponseStatusException.class, () -> primeService.getPrimesInRange(SieveEnum.ERATOSTHENES, VersionEnum.V5, 0L, 1L << 40));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeCount(PrimeRange primeRange) {
+        final PrimeCount result = primeService.getPrimeCount((long) primeRange.initial(), false);
+        assertEquals(new PrimeCount(primeRange.initial(), primeRange.primes().size(), null), result);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeStream(PrimeRange primeRange) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        primeService.getPrimeStream((long) primeRange.initial()).writeTo(out);
+        assertEquals(mapper.readTree(mapper.writeValueAsString(primeRange)), mapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    void testGetPrimeStreamAboveMaxLimitThrowsException(){
+        Exception exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getPrimeStream(Long.MAX_VALUE);
+        });
+
+        String expectedMessage = "400 BAD_REQUEST \"Limit 9223372036854775807 is above the supported maximum of 281474976710656\"";
+        String actualMessage = exception.getMessage();
+
+        assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    @Test
+    void testGetPrimeCountAboveMaxLimitThrowsException(){
+        Exception exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getPrimeCount(Long.MAX_VALUE, false);
+        });
+
+        String expectedMessage = "400 BAD_REQUEST \"Limit 9223372036854775807 is above the supported maximum of 10000000000000\"";
+        String actualMessage = exception.getMessage();
+
+        assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetNthPrime(PrimeRange primeRange) {
+        if (primeRange.primes().isEmpty())
+            return;
+        final List<Integer> primes = List.copyOf(primeRange.primes());
+        final NthPrime result = primeService.getNthPrime((long) primes.size());
+        assertEquals(new NthPrime(primes.size(), primes.get(primes.size() - 1)), result);
+    }
+
+    @Test
+    void testGetNthPrimeOutOfRangeThrowsException(){
+        Exception exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getNthPrime(0L);
+        });
+
+        String expectedMessage = "400 BAD_REQUEST \"n 0 must be between 1 and 346065536839\"";
+        String actualMessage = exception.getMessage();
+
+        assertTrue(actualMessage.contains(expectedMessage));
+        assertThrows(ResponseStatusException.class, () -> primeService.getNthPrime(Long.MAX_VALUE));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testIsPrime(PrimeRange primeRange) {
+        for (int n = 0; n <= primeRange.initial(); n++) {
+            assertEquals(new Primality(n, primeRange.primes().contains(n)), primeService.isPrime((long) n));
+        }
+    }
+
+    /**
+     * the batch must give the same answers, in the same order, as the single value calls. 10,000 values spans several
+     * parallel chunks.
+     */
+    @Test
+    void testGetPrimeBatch() {
+        final long[] values = new Random(3).longs(10_000, -10, Long.MAX_VALUE / 2).toArray();
+        values[0] = 97;
+        values[1] = 100;
+
+        final PrimeBatch isPrime = primeService.getPrimeBatch(BatchOperationEnum.IS_PRIME, values);
+        final PrimeBatch next = primeService.getPrimeBatch(BatchOperationEnum.NEXT_PRIME, values);
+        final PrimeBatch previous = primeService.getPrimeBatch(BatchOperationEnum.PREVIOUS_PRIME, values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(primeService.isPrime(values[i]).prime(), isPrime.prime()[i]);
+            long expectedNext = values[i] < 2 ? 2 : BigInteger.valueOf(values[i]).nextProbablePrime().longValue();
+            assertEquals(expectedNext, next.primes()[i]);
+            assertEquals(primeService.isPrime(previous.primes()[i]).prime(), values[i] > 2);
+            assertTrue(previous.primes()[i] < Math.max(values[i], 1));
+        }
+        assertNull(isPrime.primes());
+        assertNull(next.prime());
+        assertArrayEquals(new long[]{101, 101}, new long[]{next.primes()[0], next.primes()[1]});
+        assertArrayEquals(new long[]{89, 97}, new long[]{previous.primes()[0], previous.primes()[1]});
+    }
+
+    @Test
+    void testGetPrimeBatchAboveMaxSizeThrowsException(){
+        Exception exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getPrimeBatch(BatchOperationEnum.IS_PRIME, new long[1_000_001]);
         });
 
-        String expectedMessage = "400 BAD_REQUEST \"Sieve algorithm SUNDARAM doesn't have supplied version V2 implementation\"";
+        String expectedMessage = "400 BAD_REQUEST \"Batch of 1000001 values is above the supported maximum of 1000000\"";
         String actualMessage = exception.getMessage();
 
         assertTrue(actualMessage.contains(expectedMessage));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetFactors() {
+        final Factorisation result = primeService.getFactors(9223372036854775807L);
+        assertEquals(9223372036854775807L, result.n());
+        assertArrayEquals(new long[]{7, 7, 73, 127, 337, 92737, 649657}, result.factors());
+    }
+
+    @Test
+    void testGetFactorsBelowOneThrowsException(){
+        Exception exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getFactors(0L);
+        });
+
+        String expectedMessage = "400 BAD_REQUEST \"n 0 must be >= 1 to be factorised\"";
+        String actualMessage = exception.getMessage();
+
+        assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    /**
+     * the batch must give the same answers, in the same order, as the single value calls
+     */
+    @Test
+    void testGetFactorBatch() {
+        final long[] values = new Random(5).longs(10_000, 1, Long.MAX_VALUE).toArray();
+        values[0] = 1;
+
+        final Factorisation[] result = primeService.getFactorBatch(values);
+        assertEquals(values.length, result.length);
+        for (int i = 0; i < values.length; i += 97) {
+            assertEquals(values[i], result[i].n());
+            assertArrayEquals(primeService.getFactors(values[i]).factors(), result[i].factors());
+        }
+        assertArrayEquals(new long[]{}, result[0].factors());
+
+        Exception exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getFactorBatch(new long[]{10, -10});
+        });
+        assertTrue(exception.getMessage().contains("400 BAD_REQUEST \"n -10 must be >= 1 to be factorised\""));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeStatistics(PrimeRange primeRange) {
+        final PrimeStatistics result = primeService.getPrimeStatistics((long) primeRange.initial());
+        assertEquals(primeRange.primes().size(), result.count());
+        assertEquals(Math.max(0, primeRange.initial()), result.to());
+        assertEquals(result, primeService.getPrimeStatistics(0L, (long) Math.max(0, primeRange.initial())));
+    }
+
+    @Test
+    void testGetPrimeStatisticsInvalidRangeThrowsException(){
+        Exception exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getPrimeStatistics(20L, 10L);
+        });
+        assertTrue(exception.getMessage().contains("400 BAD_REQUEST \"Range [20, 10] is invalid, from must be >= 0 and <= to\""));
+
+        exception = assertThrows(ResponseStatusException.class, () -> {
+            primeService.getPrimeStatistics(20_000_000_001L);
+        });
+        assertTrue(exception.getMessage().contains("400 BAD_REQUEST \"Range [0, 20000000001] is wider than the supported maximum of 10000000000\""));
+    }
+}
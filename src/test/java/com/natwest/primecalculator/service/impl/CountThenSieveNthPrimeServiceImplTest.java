@@ -0,0 +1,66 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.NthPrime;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.NthPrimeService;
+import com.natwest.primecalculator.service.SieveService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class CountThenSieveNthPrimeServiceImplTest extends TestBase {
+
+    @Autowired
+    private NthPrimeService nthPrimeService;
+
+    @Autowired
+    private Map<SieveKey, SieveService> beansMappedBySieveKey;
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testGetNthPrime(PrimeRange primeRange) {
+        final List<Integer> primes = List.copyOf(primeRange.primes());
+        for (int n = 1; n <= primes.size(); n++) {
+            assertEquals(new NthPrime(n, primes.get(n - 1)), nthPrimeService.getNthPrime(n));
+        }
+    }
+
+    /**
+     * n past the small sieve only path, where the estimate can land either side of p(n), against the sieve
+     */
+    @Test
+    void testGetNthPrimeAgainstSieve() {
+        final List<Integer> primes = List.copyOf(beansMappedBySieveKey
+                .get(new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1))
+                .getPrimeRange(20_000_000)
+                .primes());
+        for (int n = 99_000; n <= primes.size(); n += 997) {
+            assertEquals((long) primes.get(n - 1), nthPrimeService.getNthPrime(n).prime());
+        }
+    }
+
+    /**
+     * known values of p(10^k) (OEIS A006988)
+     */
+    @Test
+    void testGetNthPrimeForPowersOfTen() {
+        assertEquals(new NthPrime(1_000_000L, 15_485_863L), nthPrimeService.getNthPrime(1_000_000L));
+        assertEquals(new NthPrime(100_000_000L, 2_038_074_743L), nthPrimeService.getNthPrime(100_000_000L));
+        assertEquals(new NthPrime(1_000_000_000L, 22_801_763_489L), nthPrimeService.getNthPrime(1_000_000_000L));
+    }
+}
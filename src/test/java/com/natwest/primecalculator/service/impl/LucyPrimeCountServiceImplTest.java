@@ -0,0 +1,83 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.PrimeCount;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.PrimeCountService;
+import com.natwest.primecalculator.service.SieveService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class LucyPrimeCountServiceImplTest extends TestBase {
+
+    @Autowired
+    private PrimeCountService primeCountService;
+
+    @Autowired
+    private Map<SieveKey, SieveService> beansMappedBySieveKey;
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeCount(PrimeRange primeRange) {
+        final PrimeCount result = primeCountService.getPrimeCount(primeRange.initial(), true);
+
+        assertEquals(primeRange.primes().size(), result.count());
+        assertEquals(BigInteger.valueOf(primeRange.primes().stream().mapToLong(Integer::longValue).sum()), result.sum());
+    }
+
+    @Test
+    void testGetPrimeCountWithNegativeLimit() {
+        assertEquals(new PrimeCount(-11, 0, null), primeCountService.getPrimeCount(-11, false));
+    }
+
+    /**
+     * every limit up to 5000 against the sieve
+     */
+    @Test
+    void testGetPrimeCountForEverySmallLimit() {
+        final PrimeRange primeRange = beansMappedBySieveKey
+                .get(new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1))
+                .getPrimeRange(5000);
+
+        int count = 0;
+        long sum = 0;
+        for (int limit = 0; limit <= 5000; limit++) {
+            if (primeRange.primes().contains(limit)) {
+                count++;
+                sum += limit;
+            }
+            assertEquals(new PrimeCount(limit, count, BigInteger.valueOf(sum)), primeCountService.getPrimeCount(limit, true));
+        }
+    }
+
+    /**
+     * known values of pi(10^k) and the sum of the primes up to 10^k (OEIS A006880 and A046731). The sum passes
+     * Long.MAX_VALUE at 10^11.
+     */
+    @Test
+    void testGetPrimeCountForPowersOfTen() {
+        assertEquals(new PrimeCount(1_000_000_000L, 50_847_534L, new BigInteger("24739512092254535")),
+                primeCountService.getPrimeCount(1_000_000_000L, true));
+        assertEquals(new PrimeCount(10_000_000_000L, 455_052_511L, new BigInteger("2220822432581729238")),
+                primeCountService.getPrimeCount(10_000_000_000L, true));
+        assertEquals(new PrimeCount(100_000_000_000L, 4_118_054_813L, new BigInteger("201467077743744681014")),
+                primeCountService.getPrimeCount(100_000_000_000L, true));
+        assertEquals(new PrimeCount(100_000_000_000L, 4_118_054_813L, null),
+                primeCountService.getPrimeCount(100_000_000_000L, false));
+    }
+}
@@ -0,0 +1,128 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.service.PrimalityService;
+import com.natwest.primecalculator.sieve.MillerRabin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class MillerRabinPrimalityServiceImplTest extends TestBase {
+
+    @Autowired
+    private PrimalityService primalityService;
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testIsPrime(PrimeRange primeRange) {
+        for (int n = -1; n <= primeRange.initial(); n++) {
+            assertEquals(primeRange.primes().contains(n), primalityService.isPrime(n));
+        }
+    }
+
+    /**
+     * the bitmap and Miller-Rabin must agree on both sides of the bitmap limit (2^24)
+     */
+    @Test
+    void testIsPrimeAcrossBitmapLimit() {
+        for (long n = (1L << 24) - 100_000; n <= (1L << 24) + 100_000; n++) {
+            assertEquals(MillerRabin.isPrime(n), primalityService.isPrime(n));
+            assertEquals(BigInteger.valueOf(n).isProbablePrime(50), primalityService.isPrime(n));
+        }
+    }
+
+    @Test
+    void testIsPrimeForRandomLongs() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long n = (random.nextLong() & Long.MAX_VALUE) >>> random.nextInt(62);
+            assertEquals(BigInteger.valueOf(n).isProbablePrime(50), primalityService.isPrime(n));
+        }
+    }
+
+    /**
+     * strong pseudoprimes to several of the small bases, which a weaker base set gets wrong
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {3215031751L, 2152302898747L, 3474749660383L, 341550071728321L, 3825123056546413051L,
+            4611686014132420609L, Long.MAX_VALUE, Long.MIN_VALUE, -7})
+    void testIsPrimeForCompositesAndNegatives(long n) {
+        assertFalse(primalityService.isPrime(n));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {4_294_967_291L, 1_000_000_000_000_000_003L, 9_223_372_036_854_775_783L})
+    void testIsPrimeForLargePrimes(long n) {
+        assertTrue(primalityService.isPrime(n));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testNextAndPreviousPrime(PrimeRange primeRange) {
+        final List<Integer> primes = List.copyOf(primeRange.primes());
+        for (int n = -1; n <= primeRange.initial(); n++) {
+            final int value = n;
+            long next = primes.stream().filter(prime -> prime > value).findFirst().orElse(0);
+            long previous = primes.stream().filter(prime -> prime < value).reduce((first, second) -> second).orElse(0);
+            if (next != 0)
+                assertEquals(next, primalityService.nextPrime(n));
+            assertEquals(previous, primalityService.previousPrime(n));
+        }
+    }
+
+    /**
+     * the bitmap scan and the windowed search must agree on both sides of the bitmap limit (2^24)
+     */
+    @Test
+    void testNextAndPreviousPrimeAcrossBitmapLimit() {
+        long previous = primalityService.previousPrime((1L << 24) - 20_000);
+        for (long n = (1L << 24) - 20_000; n <= (1L << 24) + 20_000; n++) {
+            long next = BigInteger.valueOf(n).nextProbablePrime().longValueExact();
+            assertEquals(next, primalityService.nextPrime(n));
+            assertEquals(previous, primalityService.previousPrime(n));
+            if (primalityService.isPrime(n))
+                previous = n;
+        }
+    }
+
+    @Test
+    void testNextAndPreviousPrimeForRandomLongs() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            long n = (random.nextLong() & (Long.MAX_VALUE >>> 1)) >>> random.nextInt(60);
+            assertEquals(BigInteger.valueOf(n).nextProbablePrime().longValueExact(), primalityService.nextPrime(n));
+            //previous is a prime below n with no other prime between it and n
+            long previous = primalityService.previousPrime(n);
+            if (n > 2) {
+                assertTrue(previous < n && BigInteger.valueOf(previous).isProbablePrime(50));
+                assertTrue(BigInteger.valueOf(previous).nextProbablePrime().longValueExact() >= n);
+            }
+        }
+    }
+
+    @Test
+    void testNextAndPreviousPrimeAtTheEdges() {
+        assertEquals(2, primalityService.nextPrime(Long.MIN_VALUE));
+        assertEquals(9_223_372_036_854_775_783L, primalityService.nextPrime(9_223_372_036_854_775_782L));
+        assertEquals(0, primalityService.nextPrime(9_223_372_036_854_775_783L));
+        assertEquals(0, primalityService.nextPrime(Long.MAX_VALUE));
+        assertEquals(9_223_372_036_854_775_783L, primalityService.previousPrime(Long.MAX_VALUE));
+        assertEquals(0, primalityService.previousPrime(Long.MIN_VALUE));
+        assertEquals(0, primalityService.previousPrime(2));
+        assertEquals(2, primalityService.previousPrime(3));
+    }
+}
@@ -0,0 +1,75 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.service.PrimeStreamService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class PipelinedPrimeStreamServiceImplTest extends TestBase {
+
+    @Autowired
+    private PrimeStreamService primeStreamService;
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testWritePrimes(PrimeRange primeRange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        primeStreamService.writePrimes(primeRange.initial(), out);
+        assertEquals(mapper.readTree(mapper.writeValueAsString(primeRange)), mapper.readTree(out.toByteArray()));
+    }
+
+    /**
+     * 10 million spans many segments, so many chunks are handed back and forth
+     */
+    @Test
+    void testWritePrimesManySegments() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        primeStreamService.writePrimes(10_000_000, out);
+        JsonNode result = mapper.readTree(out.toByteArray());
+
+        assertEquals(10_000_000, result.get("initial").asLong());
+        JsonNode primes = result.get("primes");
+        assertEquals(664579, primes.size());
+        int[] index = {0};
+        SegmentedSieve.forEachPrime(2, 10_000_000, prime -> assertEquals(prime, primes.get(index[0]++).asLong()));
+    }
+
+    /**
+     * a failing output stream, e.g. the client went away, stops the stream with the IOException
+     */
+    @Test
+    void testWritePrimesStopsWhenWriteFails() {
+        OutputStream failing = new OutputStream() {
+            private long written;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                written += len;
+                if (written > 1_000_000)
+                    throw new IOException("Broken pipe");
+            }
+        };
+        assertThrows(IOException.class, () -> primeStreamService.writePrimes(Integer.MAX_VALUE, failing));
+    }
+}
@@ -0,0 +1,105 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.service.FactorisationService;
+import com.natwest.primecalculator.sieve.MillerRabin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class PollardRhoFactorisationServiceImplTest extends TestBase {
+
+    @Autowired
+    private FactorisationService factorisationService;
+
+    /**
+     * every prime up to the limit factorises to itself
+     */
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testFactorisePrimes(PrimeRange primeRange) {
+        for (int prime : primeRange.primes()) {
+            assertArrayEquals(new long[]{prime}, factorisationService.factorise(prime));
+        }
+    }
+
+    @Test
+    void testFactoriseSmall() {
+        assertArrayEquals(new long[]{}, factorisationService.factorise(1));
+        assertArrayEquals(new long[]{2, 2, 2, 3, 3, 5}, factorisationService.factorise(360));
+        assertArrayEquals(new long[]{2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+                2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2},
+                factorisationService.factorise(1L << 62));
+        assertThrows(IllegalArgumentException.class, () -> factorisationService.factorise(0));
+    }
+
+    /**
+     * values chosen to go through each of the table, trial division, Miller-Rabin and Pollard rho paths
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "16777215:3,3,5,7,13,17,241",
+            "16777259:16777259",
+            "4294967297:641,6700417",
+            "1000000016000000063:1000000007,1000000009",
+            "999999866000004473:999999929,999999937",
+            "4611686014132420609:2147483647,2147483647",
+            "9223372036854775783:9223372036854775783",
+            "9223372036854775807:7,7,73,127,337,92737,649657",
+            "9200000000000000000:2,2,2,2,2,2,2,2,2,2,2,2,2,2,2,2,2,2,2,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,5,23",
+            "2305843009213693951:2305843009213693951",
+            "2305836412121907263:1048573,2199023255531"})
+    void testFactoriseLarge(String value) {
+        String[] parts = value.split(":");
+        long[] expected = Arrays.stream(parts[1].split(",")).mapToLong(Long::parseLong).toArray();
+        assertArrayEquals(expected, factorisationService.factorise(Long.parseLong(parts[0])));
+    }
+
+    /**
+     * random products of primes of every size, checked by multiplying back and testing every factor
+     */
+    @Test
+    void testFactoriseRandom() {
+        Random random = new Random(14);
+        for (int i = 0; i < 3_000; i++) {
+            long n = random.nextLong(1, Long.MAX_VALUE) >>> random.nextInt(63);
+            n = Math.max(1, n);
+            long[] factors = factorisationService.factorise(n);
+            BigInteger product = BigInteger.ONE;
+            for (int k = 0; k < factors.length; k++) {
+                assertTrue(MillerRabin.isPrime(factors[k]), factors[k] + " of " + n);
+                if (k > 0)
+                    assertTrue(factors[k - 1] <= factors[k]);
+                product = product.multiply(BigInteger.valueOf(factors[k]));
+            }
+            assertEquals(BigInteger.valueOf(n), product);
+        }
+    }
+
+    /**
+     * semiprimes of two primes near 2^31, the worst case for Pollard rho
+     */
+    @Test
+    void testFactoriseBalancedSemiprimes() {
+        Random random = new Random(31);
+        for (int i = 0; i < 20; i++) {
+            long p = BigInteger.valueOf(random.nextLong(1L << 30, 1L << 31)).nextProbablePrime().longValue();
+            long q = BigInteger.valueOf(random.nextLong(1L << 30, 1L << 31)).nextProbablePrime().longValue();
+            assertArrayEquals(new long[]{Math.min(p, q), Math.max(p, q)}, factorisationService.factorise(p * q));
+        }
+    }
+}
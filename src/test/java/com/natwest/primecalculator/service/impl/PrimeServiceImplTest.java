@@ -0,0 +1,191 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.cache.PrimeStore;
+import com.natwest.primecalculator.entities.PrimeList;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveAndVersionEnum;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.scheduler.SieveBatchScheduler;
+import com.natwest.primecalculator.service.FactorisationService;
+import com.natwest.primecalculator.service.LargeSieveService;
+import com.natwest.primecalculator.service.NthPrimeService;
+import com.natwest.primecalculator.service.PrimalityService;
+import com.natwest.primecalculator.service.PrimeCountService;
+import com.natwest.primecalculator.service.PrimeStatisticsService;
+import com.natwest.primecalculator.service.PrimeStreamService;
+import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Single flight behaviour of PrimeServiceImpl.getPrimes(..), with a sieve that blocks until released so requests are
+ * sure to overlap
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class PrimeServiceImplTest extends TestBase {
+
+    @Autowired
+    private LargeSieveService largeSieveService;
+    @Autowired
+    private PrimeCountService primeCountService;
+    @Autowired
+    private NthPrimeService nthPrimeService;
+    @Autowired
+    private PrimalityService primalityService;
+    @Autowired
+    private FactorisationService factorisationService;
+    @Autowired
+    private PrimeStatisticsService primeStatisticsService;
+    @Autowired
+    private PrimeStreamService primeStreamService;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final GatedSieveService sieveService = new GatedSieveService();
+    private PrimeServiceImpl primeService;
+    private SieveBatchScheduler sieveBatchScheduler;
+
+    @AfterEach
+    void tearDown() {
+        sieveService.release.countDown();
+        executor.shutdownNow();
+        if (sieveBatchScheduler != null)
+            sieveBatchScheduler.shutdown();
+    }
+
+    /**
+     * requests for the same limit, and for lower limits arriving while it is worked out, all share one sieve
+     */
+    @Test
+    void testConcurrentRequestsShareOneComputation() throws Exception {
+        primeService = newPrimeService(10_000);
+        List<Future<PrimeRange>> results = new ArrayList<>();
+        results.add(submit(1_000_000));
+        assertTrue(sieveService.started.await(10, TimeUnit.SECONDS));
+        for (int limit : new int[]{1_000_000, 1_000_000, 999_999, 1000, 2, 1_000_000}) {
+            results.add(submit(limit));
+        }
+        Thread.sleep(100);
+        sieveService.release.countDown();
+
+        for (Future<PrimeRange> result : results) {
+            PrimeRange primeRange = result.get(10, TimeUnit.SECONDS);
+            assertArrayEquals(SegmentedSieve.basePrimes(primeRange.initial()),
+                    primeRange.primes().stream().mapToInt(Integer::intValue).toArray());
+        }
+        assertEquals(1, sieveService.calls.get());
+        assertEquals(78498, results.get(1).get().primes().size());
+    }
+
+    /**
+     * a waiter timing out or being interrupted gets a 503, the computation carries on and fills the store
+     */
+    @Test
+    void testWaiterGivingUpDoesNotCancelComputation() throws Exception {
+        primeService = newPrimeService(100);
+        ResponseStatusException timedOut = assertThrows(ResponseStatusException.class,
+                () -> primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, 100_000));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, timedOut.getStatusCode());
+
+        Future<PrimeRange> interrupted = submit(100_000);
+        Thread.sleep(20);
+        interrupted.cancel(true);
+
+        sieveService.release.countDown();
+        PrimeRange primeRange = null;
+        for (int attempt = 0; attempt < 100 && primeRange == null; attempt++) {
+            try {
+                primeRange = primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, 100_000);
+            } catch (ResponseStatusException e) {
+                assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+            }
+        }
+        assertNotNull(primeRange);
+        assertEquals(9592, primeRange.primes().size());
+        assertEquals(1, sieveService.calls.get());
+    }
+
+    /**
+     * a failed computation is reported to every waiter and the next request tries again
+     */
+    @Test
+    void testFailureIsNotRemembered() {
+        primeService = newPrimeService(10_000);
+        sieveService.failures.set(1);
+        sieveService.release.countDown();
+        assertThrows(IllegalStateException.class, () -> primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, 1000));
+        assertEquals(168, primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, 1000).primes().size());
+        assertEquals(2, sieveService.calls.get());
+    }
+
+    private Future<PrimeRange> submit(int limit) {
+        return executor.submit(() -> primeService.getPrimes(SieveEnum.ERATOSTHENES, VersionEnum.V1, limit));
+    }
+
+    private PrimeServiceImpl newPrimeService(long waitTimeoutMillis) {
+        PrimeStore primeStore = new PrimeStore();
+        sieveBatchScheduler = new SieveBatchScheduler(primeStore, new SimpleMeterRegistry(), 0);
+        return new PrimeServiceImpl(Map.of(new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1), sieveService),
+                primeStore, sieveBatchScheduler, largeSieveService, primeCountService, nthPrimeService, primalityService,
+                factorisationService, primeStatisticsService, primeStreamService, 100_000_000, 1_000_000, waitTimeoutMillis);
+    }
+
+    /**
+     * counts its calls and blocks until released
+     */
+    private static class GatedSieveService implements SieveService {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public PrimeRange getPrimeRange(int limit) {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (failures.getAndDecrement() > 0)
+                throw new IllegalStateException("failed");
+            return new PrimeRange(limit, PrimeList.of(SegmentedSieve.basePrimes(limit)));
+        }
+
+        @Override
+        public SieveAndVersionEnum getSieveEnum() {
+            return SieveAndVersionEnum.ERATOSTHENESV1;
+        }
+
+        @Override
+        public SieveKey getSieveKey() {
+            return new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.LargePrimeRange;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.service.LargeSieveService;
+import com.natwest.primecalculator.sieve.SegmentedPrimeSequence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class SegmentedLargeSieveServiceImplTest extends TestBase {
+
+    @Autowired
+    private LargeSieveService largeSieveService;
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRange(PrimeRange primeRange) {
+        final LargePrimeRange result = largeSieveService.getPrimeRange(primeRange.initial());
+
+        List<Integer> primes = new ArrayList<>();
+        result.primes().forEach(prime -> primes.add(prime.intValue()));
+        assertEquals(primeRange, new PrimeRange((int) result.initial(), primes));
+    }
+
+    @Test
+    void testGetPrimesRangeWithNegativeRange() {
+        final LargePrimeRange result = largeSieveService.getPrimeRange(-11);
+        assertEquals(-11, result.initial());
+        assertFalse(result.primes().iterator().hasNext());
+    }
+
+    /**
+     * Nothing is sieved up front, so a 2^36 limit is returned straight away and the primes come out in order.
+     */
+    @Test
+    void testGetPrimeRangePastIntegerMaxValueIsLazy() {
+        final LargePrimeRange result = largeSieveService.getPrimeRange(1L << 36);
+        assertEquals(1L << 36, result.initial());
+
+        Iterator<Long> primes = result.primes().iterator();
+        for (long expected : new long[]{2, 3, 5, 7, 11, 13, 17, 19, 23, 29}) {
+            assertEquals(expected, primes.next());
+        }
+    }
+
+    /**
+     * The segments past Integer.MAX_VALUE agree with BigInteger's primality test
+     */
+    @Test
+    void testSegmentsPastIntegerMaxValue() {
+        final long from = (1L << 36) - 100_000;
+        final long to = 1L << 36;
+
+        List<Long> expected = LongStream.rangeClosed(from, to)
+                .filter(n -> BigInteger.valueOf(n).isProbablePrime(50))
+                .boxed()
+                .toList();
+        List<Long> result = new ArrayList<>();
+        new SegmentedPrimeSequence(from, to).forEach(result::add);
+
+        assertEquals(expected, result);
+    }
+}
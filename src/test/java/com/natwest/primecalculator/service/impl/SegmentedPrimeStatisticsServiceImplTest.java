@@ -0,0 +1,150 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeStatistics;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.PrimeStatisticsService;
+import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.sieve.PrimeGapStatistics;
+import com.natwest.primecalculator.sieve.SegmentedSieve;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class SegmentedPrimeStatisticsServiceImplTest extends TestBase {
+
+    @Autowired
+    private PrimeStatisticsService primeStatisticsService;
+
+    @Autowired
+    private Map<SieveKey, SieveService> beansMappedBySieveKey;
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeStatistics(PrimeRange primeRange) {
+        long to = Math.max(0, primeRange.initial());
+        final PrimeStatistics expected = bruteForce(0, to, primeRange.primes().stream().mapToLong(Integer::longValue).toArray());
+        assertEquals(expected, primeStatisticsService.getPrimeStatistics(0, to));
+    }
+
+    /**
+     * 5 million spans several parallel tasks, the merged result has to match working it out from the full list
+     */
+    @Test
+    void testGetPrimeStatisticsMatchesFullList() {
+        final Collection<Integer> primes = beansMappedBySieveKey
+                .get(new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1))
+                .getPrimeRange(5_000_000)
+                .primes();
+        final PrimeStatistics expected = bruteForce(0, 5_000_000, primes.stream().mapToLong(Integer::longValue).toArray());
+        assertEquals(expected, primeStatisticsService.getPrimeStatistics(0, 5_000_000));
+    }
+
+    /**
+     * known values below 10^6: 78498 primes, 8169 twins, 8144 cousins, the largest gap 114 after 492113
+     */
+    @Test
+    void testGetPrimeStatisticsKnownValues() {
+        final PrimeStatistics result = primeStatisticsService.getPrimeStatistics(0, 1_000_000);
+        assertEquals(78498, result.count());
+        assertEquals(8169, result.twins());
+        assertEquals(8144, result.cousins());
+        assertEquals(114, result.maxGap());
+        assertEquals(492113, result.maxGapStart());
+        assertEquals(1, result.gaps().get(1));
+        assertEquals(result.count() - 1, result.gaps().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void testGetPrimeStatisticsHighOffset() {
+        long from = (1L << 40) - 3_000_000;
+        long to = (1L << 40) + 3_000_000;
+        long[] primes = new long[SegmentedSieve.maxPrimesInRange(from, to)];
+        int[] count = {0};
+        SegmentedSieve.forEachPrime(from, to, prime -> primes[count[0]++] = prime);
+        final PrimeStatistics expected = bruteForce(from, to, Arrays.copyOf(primes, count[0]));
+        assertEquals(expected, primeStatisticsService.getPrimeStatistics(from, to));
+    }
+
+    /**
+     * merging the statistics of neighbouring parts cut anywhere, including parts narrower than a pattern, must give
+     * the same result as one pass
+     */
+    @Test
+    void testMergeAtAnyBoundary() {
+        Random random = new Random(15);
+        for (int attempt = 0; attempt < 200; attempt++) {
+            long from = random.nextInt(100);
+            long to = from + random.nextInt(2_000);
+            PrimeGapStatistics whole = new PrimeGapStatistics(from, to);
+            SegmentedSieve.forEachPrime(from, to, whole::accept);
+
+            PrimeGapStatistics merged = null;
+            for (long low = from; low <= to; ) {
+                long high = Math.min(to, low + random.nextInt(random.nextBoolean() ? 10 : 300));
+                PrimeGapStatistics part = new PrimeGapStatistics(low, high);
+                SegmentedSieve.forEachPrime(low, high, part::accept);
+                merged = merged == null ? part : merged.merge(part);
+                low = high + 1;
+            }
+            assertEquals(toEntity(whole), toEntity(merged));
+        }
+    }
+
+    private static PrimeStatistics toEntity(PrimeGapStatistics statistics) {
+        return new PrimeStatistics(statistics.from(), statistics.to(), statistics.count(), statistics.maxGap(),
+                statistics.maxGapStart(), statistics.twins(), statistics.cousins(), statistics.sexy(),
+                statistics.triplets(), statistics.quadruplets(), statistics.gaps());
+    }
+
+    /**
+     * the statistics worked out from the full list of primes within [from, to]
+     */
+    private static PrimeStatistics bruteForce(long from, long to, long[] primes) {
+        Set<Long> set = new HashSet<>();
+        for (long prime : primes) {
+            set.add(prime);
+        }
+        long maxGap = 0;
+        long maxGapStart = -1;
+        Map<Integer, Long> gaps = new TreeMap<>();
+        long twins = 0, cousins = 0, sexy = 0, triplets = 0, quadruplets = 0;
+        for (int i = 0; i < primes.length; i++) {
+            long p = primes[i];
+            if (i > 0) {
+                long gap = p - primes[i - 1];
+                gaps.merge((int) gap, 1L, Long::sum);
+                if (gap > maxGap) {
+                    maxGap = gap;
+                    maxGapStart = primes[i - 1];
+                }
+            }
+            boolean two = set.contains(p + 2), four = set.contains(p + 4), six = set.contains(p + 6), eight = set.contains(p + 8);
+            twins += two ? 1 : 0;
+            cousins += four ? 1 : 0;
+            sexy += six ? 1 : 0;
+            triplets += (two && six ? 1 : 0) + (four && six ? 1 : 0);
+            quadruplets += two && six && eight ? 1 : 0;
+        }
+        return new PrimeStatistics(from, to, primes.length, maxGap, maxGapStart, twins, cousins, sexy, triplets, quadruplets, gaps);
+    }
+}
@@ -0,0 +1,115 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.PrimeWindow;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.service.WindowSieveService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class SieveOfEratosthenesV7ServiceImplTest extends TestBase {
+
+    @Autowired
+    private Map<SieveKey, SieveService> beansMappedBySieveKey;
+    public static final SieveKey SIEVE_KEY = new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V7);
+
+    @Test
+    void testGetSieveEnum() {
+        final SieveKey sieveKey = beansMappedBySieveKey.get(SIEVE_KEY).getSieveKey();
+        assertEquals(SIEVE_KEY, sieveKey);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRange(PrimeRange primeRange) {
+        final PrimeRange result = beansMappedBySieveKey
+                .get(SIEVE_KEY)
+                .getPrimeRange(primeRange.initial());
+
+        assertEquals(primeRange, result);
+    }
+
+    @Test
+    void testGetPrimesRangeWithNegativeRange() {
+        final PrimeRange result = beansMappedBySieveKey
+                .get(SIEVE_KEY)
+                .getPrimeRange(-11);
+        assertEquals(new PrimeRange(-11, List.of()), result);
+    }
+
+    /**
+     * 5 million spans several segments which are sieved by different workers, check the merged result against the
+     * single array version 1.
+     */
+    @Test
+    void testGetPrimeRangeAcrossSegments() {
+        final PrimeRange expected = beansMappedBySieveKey
+                .get(new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1))
+                .getPrimeRange(5_000_000);
+        final PrimeRange result = beansMappedBySieveKey
+                .get(SIEVE_KEY)
+                .getPrimeRange(5_000_000);
+
+        assertEquals(expected, result);
+    }
+
+    /**
+     * A window spanning several segments that doesn't start or end on a segment boundary must match the same slice of
+     * the single array version 1.
+     */
+    @Test
+    void testGetPrimeWindow() {
+        final long[] expected = beansMappedBySieveKey
+                .get(new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1))
+                .getPrimeRange(2_345_678)
+                .primes().stream()
+                .filter(prime -> prime >= 123_457)
+                .mapToLong(Integer::longValue)
+                .toArray();
+        final PrimeWindow result = ((WindowSieveService) beansMappedBySieveKey.get(SIEVE_KEY))
+                .getPrimeWindow(123_457, 2_345_678);
+
+        assertArrayEquals(expected, result.primes());
+    }
+
+    /**
+     * A narrow window past Integer.MAX_VALUE, checked against BigInteger.isProbablePrime(..)
+     */
+    @Test
+    void testGetPrimeWindowAtHighOffset() {
+        final long from = (1L << 40) - 50_000;
+        final long to = (1L << 40) + 50_000;
+        final long[] expected = LongStream.rangeClosed(from, to)
+                .filter(n -> BigInteger.valueOf(n).isProbablePrime(50))
+                .toArray();
+        final PrimeWindow result = ((WindowSieveService) beansMappedBySieveKey.get(SIEVE_KEY))
+                .getPrimeWindow(from, to);
+
+        assertArrayEquals(expected, result.primes());
+    }
+
+    @Test
+    void testGetPrimeWindowFromZero() {
+        final PrimeWindow result = ((WindowSieveService) beansMappedBySieveKey.get(SIEVE_KEY))
+                .getPrimeWindow(0, 30);
+        assertArrayEquals(new long[]{2, 3, 5, 7, 11, 13, 17, 19, 23, 29}, result.primes());
+    }
+}
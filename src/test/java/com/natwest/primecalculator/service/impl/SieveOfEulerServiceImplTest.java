@@ -0,0 +1,141 @@
+package com.natwest.primecalculator.service.impl;
+
+import com.natwest.primecalculator.TestBase;
+import com.natwest.primecalculator.entities.PrimeRange;
+import com.natwest.primecalculator.entities.SieveKey;
+import com.natwest.primecalculator.enums.SieveEnum;
+import com.natwest.primecalculator.enums.VersionEnum;
+import com.natwest.primecalculator.service.SieveService;
+import com.natwest.primecalculator.service.SmallestPrimeFactorService;
+import com.natwest.primecalculator.sieve.SmallestPrimeFactorTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class SieveOfEulerServiceImplTest extends TestBase {
+
+    @Autowired
+    private Map<SieveKey, SieveService> beansMappedBySieveKey;
+    @Autowired
+    private SmallestPrimeFactorService smallestPrimeFactorService;
+    public static final SieveKey SIEVE_KEY = new SieveKey(SieveEnum.EULER, VersionEnum.V1);
+
+    @Test
+    void testGetSieveEnum() {
+        final SieveKey sieveKey = beansMappedBySieveKey.get(SIEVE_KEY).getSieveKey();
+        assertEquals(SIEVE_KEY, sieveKey);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestBase.MyPrimeRangeArgumentsProvider.class)
+    void testGetPrimeRange(PrimeRange primeRange) {
+        final PrimeRange result = beansMappedBySieveKey
+                .get(SIEVE_KEY)
+                .getPrimeRange(primeRange.initial());
+
+        assertEquals(primeRange, result);
+    }
+
+    @Test
+    void testGetPrimesRangeWithNegativeRange() {
+        final PrimeRange result = beansMappedBySieveKey
+                .get(SIEVE_KEY)
+                .getPrimeRange(-11);
+        assertEquals(new PrimeRange(-11, List.of()), result);
+    }
+
+    /**
+     * 5 million, the result has to be identical to version 1 of Eratosthenes.
+     */
+    @Test
+    void testGetPrimeRangeMatchesEratosthenes() {
+        final PrimeRange expected = beansMappedBySieveKey
+                .get(new SieveKey(SieveEnum.ERATOSTHENES, VersionEnum.V1))
+                .getPrimeRange(5_000_000);
+        final PrimeRange result = beansMappedBySieveKey
+                .get(SIEVE_KEY)
+                .getPrimeRange(5_000_000);
+
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void testSmallestPrimeFactorMatchesTrialDivision() {
+        final SmallestPrimeFactorTable table = smallestPrimeFactorService.getSmallestPrimeFactorTable(200_000);
+        assertTrue(table.limit() >= 200_000);
+        for (int n = 2; n <= 200_000; n++) {
+            int expected = n;
+            for (int d = 2; d * d <= n; d++) {
+                if (n % d == 0) {
+                    expected = d;
+                    break;
+                }
+            }
+            assertEquals(expected, table.smallestPrimeFactor(n), "spf of " + n);
+            assertEquals(expected == n, table.isPrime(n), "isPrime of " + n);
+        }
+        assertFalse(table.isPrime(0));
+        assertFalse(table.isPrime(1));
+    }
+
+    @Test
+    void testFactorise() {
+        final SmallestPrimeFactorTable table = smallestPrimeFactorService.getSmallestPrimeFactorTable(1_000_000);
+        assertArrayEquals(new int[]{2, 2, 2, 3, 3, 5}, table.factorise(360));
+        assertArrayEquals(new int[]{999_983}, table.factorise(999_983));
+        assertArrayEquals(new int[]{2, 2, 2, 2, 2, 2, 5, 5, 5, 5, 5, 5}, table.factorise(1_000_000));
+        assertArrayEquals(new int[]{}, table.factorise(1));
+        for (int n = 2; n <= 1_000_000; n += 7) {
+            int product = 1;
+            int previous = 0;
+            for (int factor : table.factorise(n)) {
+                assertTrue(factor >= previous && table.isPrime(factor));
+                previous = factor;
+                product *= factor;
+            }
+            assertEquals(n, product);
+        }
+    }
+
+    /**
+     * a table for a lower limit comes from the one already built, a higher limit builds a new one, kept only up to
+     * the table limit
+     */
+    @Test
+    void testTableIsKept() {
+        final SmallestPrimeFactorTable kept = smallestPrimeFactorService.getSmallestPrimeFactorTable(100_000);
+        assertSame(kept, smallestPrimeFactorService.getSmallestPrimeFactorTable(50_000));
+
+        final SieveOfEulerServiceImpl service = new SieveOfEulerServiceImpl(1_000_000);
+        final SmallestPrimeFactorTable first = service.getSmallestPrimeFactorTable(100_000);
+        assertSame(first, service.getSmallestPrimeFactorTable(50_000));
+        final SmallestPrimeFactorTable larger = service.getSmallestPrimeFactorTable(first.limit() + 1);
+        assertTrue(larger.limit() > first.limit());
+        assertSame(larger, service.getSmallestPrimeFactorTable(first.limit()));
+
+        //past the table limit every call builds its own table and the kept one is left as it was
+        final SmallestPrimeFactorTable oneOff = service.getSmallestPrimeFactorTable(2_000_000);
+        assertTrue(oneOff.limit() >= 2_000_000);
+        assertNotSame(oneOff, service.getSmallestPrimeFactorTable(2_000_000));
+        assertSame(larger, service.getSmallestPrimeFactorTable(larger.limit()));
+    }
+
+    @Test
+    void testSmallLimits() {
+        assertArrayEquals(new int[]{}, SmallestPrimeFactorTable.sieve(1).primes());
+        assertArrayEquals(new int[]{2}, SmallestPrimeFactorTable.sieve(2).primes());
+        assertArrayEquals(new int[]{2, 3, 5, 7}, SmallestPrimeFactorTable.sieve(10).primes());
+        assertThrows(IllegalArgumentException.class, () -> SmallestPrimeFactorTable.sieve(0));
+    }
+}